@@ -0,0 +1,29 @@
+package martin.chess.book;
+
+import martin.chess.engine.Move;
+
+/**
+ * A move found in an opening book
+ */
+public class BookMove {
+	private Move move;
+	private int weight;
+
+	public BookMove(Move move, int weight) {
+		this.move = move;
+		this.weight = weight;
+	}
+
+	public Move getMove() {
+		return move;
+	}
+
+	public int getWeight() {
+		return weight;
+	}
+
+	@Override
+	public String toString() {
+		return move + " (" + weight + ")";
+	}
+}
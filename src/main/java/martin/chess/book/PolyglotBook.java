@@ -0,0 +1,184 @@
+package martin.chess.book;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Move;
+import martin.chess.engine.PieceType;
+
+/**
+ * An opening book in the Polyglot .bin format.
+ *
+ * The file is a sequence of 16 byte big-endian entries sorted by position key: key (8 bytes),
+ * move (2), weight (2) and learn (4). The file is memory-mapped and searched in place, so probing
+ * allocates nothing and the book is shared by the OS page cache between all users.
+ *
+ * Positions are looked up by Board.getZobristKey(), so books made by other Polyglot tools are only
+ * found when Zobrist.isPolyglotCompatible(). Books built by PolyglotBookBuilder always work.
+ */
+public class PolyglotBook implements Closeable {
+
+	static final int ENTRY_SIZE = 16;
+
+	private final FileChannel channel;
+	private final ByteBuffer entries;
+	private final int numEntries;
+
+	public PolyglotBook(Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+
+		long size = channel.size();
+		if (size % ENTRY_SIZE != 0 || size > Integer.MAX_VALUE) {
+			channel.close();
+			throw new IOException("Not a Polyglot book: " + path);
+		}
+
+		entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.BIG_ENDIAN);
+		numEntries = (int) (size / ENTRY_SIZE);
+	}
+
+	public int size() {
+		return numEntries;
+	}
+
+	/**
+	 * Returns the index of the first entry for the key, or -1 if the position is not in the book
+	 */
+	public int findFirst(long key) {
+		int low = 0;
+		int high = numEntries;
+
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (Long.compareUnsigned(getKey(mid), key) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+
+		return low < numEntries && getKey(low) == key ? low : -1;
+	}
+
+	public long getKey(int entryIdx) {
+		return entries.getLong(entryIdx * ENTRY_SIZE);
+	}
+
+	/**
+	 * The move of an entry in Polyglot encoding
+	 */
+	public int getRawMove(int entryIdx) {
+		return entries.getShort(entryIdx * ENTRY_SIZE + 8) & 0xFFFF;
+	}
+
+	public int getWeight(int entryIdx) {
+		return entries.getShort(entryIdx * ENTRY_SIZE + 10) & 0xFFFF;
+	}
+
+	/**
+	 * Picks a book move for the position at random, with probability proportional to the weights.
+	 * Returns null if the position is not in the book.
+	 */
+	public Move getMove(Board board, Random random) {
+		long key = board.getZobristKey();
+		int first = findFirst(key);
+		if (first == -1) {
+			return null;
+		}
+
+		long totalWeight = 0;
+		for (int i = first; i < numEntries && getKey(i) == key; ++i) {
+			totalWeight += getWeight(i);
+		}
+		if (totalWeight == 0) {
+			return null;
+		}
+
+		long selected = (long) (random.nextDouble() * totalWeight);
+		for (int i = first; i < numEntries && getKey(i) == key; ++i) {
+			selected -= getWeight(i);
+			if (selected < 0) {
+				return decodeMove(board, getRawMove(i));
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * All book moves for the position, with their weights
+	 */
+	public List<BookMove> getMoves(Board board) {
+		List<BookMove> moves = new ArrayList<>();
+
+		long key = board.getZobristKey();
+		int first = findFirst(key);
+		if (first != -1) {
+			for (int i = first; i < numEntries && getKey(i) == key; ++i) {
+				Move move = decodeMove(board, getRawMove(i));
+				if (move != null) {
+					moves.add(new BookMove(move, getWeight(i)));
+				}
+			}
+		}
+		return moves;
+	}
+
+	/**
+	 * Finds the legal move matching a Polyglot move, or null if there is none (e.g. a key collision)
+	 */
+	public static Move decodeMove(Board board, int rawMove) {
+		int to = rawMove & 0x3F;
+		int from = (rawMove >>> 6) & 0x3F;
+		PieceType promotion = getPromotion((rawMove >>> 12) & 0x7);
+
+		for (Move move : board.getAvailableMoves()) {
+			if (move.getIdxFrom() == from && move.getQueeningPiece() == promotion &&
+					(move.getIdxTo() == to || move.isCastling() && move.getAdditionalIdxFrom() == to)) {
+				return move;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Polyglot moves are from and to square plus promotion piece. Castling is written as the king capturing its own rook.
+	 */
+	public static int encodeMove(Move move) {
+		int to = move.isCastling() ? move.getAdditionalIdxFrom() : move.getIdxTo();
+		int promotion = 0;
+		if (move.getQueeningPiece() != null) {
+			switch (move.getQueeningPiece()) {
+				case KNIGHT:	promotion = 1; break;
+				case BISHOP:	promotion = 2; break;
+				case ROOK:		promotion = 3; break;
+				case QUEEN:		promotion = 4; break;
+				default: throw new IllegalArgumentException("Can't promote to " + move.getQueeningPiece());
+			}
+		}
+		return (promotion << 12) | (move.getIdxFrom() << 6) | to;
+	}
+
+	private static PieceType getPromotion(int promotion) {
+		switch (promotion) {
+			case 1: return PieceType.KNIGHT;
+			case 2: return PieceType.BISHOP;
+			case 3: return PieceType.ROOK;
+			case 4: return PieceType.QUEEN;
+			default: return null;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
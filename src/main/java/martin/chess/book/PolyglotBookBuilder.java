@@ -0,0 +1,140 @@
+package martin.chess.book;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Color;
+import martin.chess.engine.Move;
+import martin.chess.pgn.PgnGame;
+import martin.chess.pgn.PgnParseException;
+import martin.chess.pgn.PgnReader;
+
+/**
+ * Builds a Polyglot book from games.
+ *
+ * As in Polyglot, a move scores 2 for a win and 1 for a draw of the side that played it, and the
+ * scores become the weights of the book moves.
+ */
+public class PolyglotBookBuilder {
+
+	private static final int MAX_WEIGHT = 0xFFFF;
+
+	private int maxPly = 20;
+	private int minCount = 1;
+
+	// Position key -> Polyglot move -> { number of games, score }
+	private Map<Long, Map<Integer, int[]>> positions = new HashMap<>();
+	private int numGames;
+
+	/**
+	 * Only the first moves of each game are added to the book
+	 */
+	public PolyglotBookBuilder setMaxPly(int maxPly) {
+		this.maxPly = maxPly;
+		return this;
+	}
+
+	/**
+	 * Moves played in fewer games are left out of the book
+	 */
+	public PolyglotBookBuilder setMinCount(int minCount) {
+		this.minCount = minCount;
+		return this;
+	}
+
+	public int getNumGames() {
+		return numGames;
+	}
+
+	/**
+	 * Adds a game played from the initial position
+	 *
+	 * @param winner the winner, null for a draw
+	 */
+	public void addGame(List<Move> moves, Color winner) {
+		Board board = new Board();
+		board.setLogging(false);
+
+		for (int ply = 0; ply < Math.min(maxPly, moves.size()) && board.getResult() == null; ++ply) {
+			Color mover = board.getColorToMove();
+			int score = winner == null ? 1 : (winner == mover ? 2 : 0);
+
+			int[] data = positions.computeIfAbsent(board.getZobristKey(), k -> new HashMap<>())
+					.computeIfAbsent(PolyglotBook.encodeMove(moves.get(ply)), k -> new int[2]);
+			data[0]++;
+			data[1] += score;
+
+			board.move(moves.get(ply));
+		}
+
+		numGames++;
+	}
+
+	/**
+	 * Adds all decided or drawn games of a PGN file. Games with an unknown result or moves that can't be
+	 * read are skipped, as are games not starting from the initial position. Returns the number of games added.
+	 */
+	public int addPgn(Path path) throws IOException {
+		int added = 0;
+
+		try (PgnReader reader = new PgnReader(path)) {
+			while (true) {
+				PgnGame game;
+				try {
+					game = reader.next();
+				} catch (PgnParseException e) {
+					continue;
+				}
+				if (game == null) {
+					break;
+				}
+				
+				if (!game.getResult().equals(PgnGame.UNKNOWN) && game.getTag("FEN") == null) {
+					addGame(game.getMoves(), game.getWinner());
+					++added;
+				}
+			}
+		}
+
+		return added;
+	}
+
+	/**
+	 * Writes the book, sorted by key and with the best moves first
+	 */
+	public void write(Path path) throws IOException {
+		List<long[]> entries = new ArrayList<>();
+		int maxScore = 0;
+
+		for (var position : positions.entrySet()) {
+			for (var move : position.getValue().entrySet()) {
+				int[] data = move.getValue();
+				if (data[0] >= minCount && data[1] > 0) {
+					entries.add(new long[] { position.getKey(), move.getKey(), data[1] });
+					maxScore = Math.max(maxScore, data[1]);
+				}
+			}
+		}
+
+		entries.sort(Comparator.<long[]>comparingLong(e -> e[0] ^ Long.MIN_VALUE).thenComparing(e -> -e[2]));
+		double scale = maxScore > MAX_WEIGHT ? (double) MAX_WEIGHT / maxScore : 1;
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+			for (long[] entry : entries) {
+				out.writeLong(entry[0]);
+				out.writeShort((int) entry[1]);
+				out.writeShort((int) Math.max(1, Math.round(entry[2] * scale)));
+				out.writeInt(0);
+			}
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package martin.chess.engine;
+
+/**
+ * Attack tests on a plain array of squares, without generating moves
+ */
+final class Attacks {
+
+	static final int[][] KNIGHT_STEPS = { {1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2} };
+	static final int[][] KING_STEPS = { {1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1} };
+	static final int[][] ROOK_DIRECTIONS = { {1, 0}, {0, 1}, {-1, 0}, {0, -1} };
+	static final int[][] BISHOP_DIRECTIONS = { {1, 1}, {-1, 1}, {-1, -1}, {1, -1} };
+
+	private Attacks() {
+	}
+
+	/**
+	 * Returns true if the square is attacked by a piece of the given color
+	 */
+	static boolean isAttacked(byte[] squares, int idx, Color by) {
+		int rank = idx / 8;
+		int file = idx % 8;
+
+		int pawnRank = by == Color.WHITE ? rank - 1 : rank + 1;
+		if (isPiece(squares, pawnRank, file - 1, PieceType.PAWN, by) || isPiece(squares, pawnRank, file + 1, PieceType.PAWN, by)) {
+			return true;
+		}
+
+		for (int[] step : KNIGHT_STEPS) {
+			if (isPiece(squares, rank + step[0], file + step[1], PieceType.KNIGHT, by)) {
+				return true;
+			}
+		}
+
+		for (int[] step : KING_STEPS) {
+			if (isPiece(squares, rank + step[0], file + step[1], PieceType.KING, by)) {
+				return true;
+			}
+		}
+
+		return isAttackedBySlider(squares, rank, file, ROOK_DIRECTIONS, PieceType.ROOK, by) ||
+				isAttackedBySlider(squares, rank, file, BISHOP_DIRECTIONS, PieceType.BISHOP, by);
+	}
+
+	private static boolean isAttackedBySlider(byte[] squares, int rank, int file, int[][] directions, PieceType type, Color by) {
+		for (int[] direction : directions) {
+			int r = rank + direction[0];
+			int f = file + direction[1];
+
+			while (r >= 0 && r < 8 && f >= 0 && f < 8) {
+				byte code = squares[r * 8 + f];
+				if (code != Piece.EMPTY) {
+					if (Piece.is(code, type, by) || Piece.is(code, PieceType.QUEEN, by)) {
+						return true;
+					}
+					break;
+				}
+				r += direction[0];
+				f += direction[1];
+			}
+		}
+		return false;
+	}
+
+	private static boolean isPiece(byte[] squares, int rank, int file, PieceType type, Color color) {
+		if (rank < 0 || rank > 7 || file < 0 || file > 7) {
+			return false;
+		}
+		return Piece.is(squares[rank * 8 + file], type, color);
+	}
+
+	/**
+	 * Finds the pieces of the given type and color that attack the square, or could move to it if it is
+	 * empty. Pawns are not handled, they don't move the way they capture. Returns the number of squares
+	 * written to origins; pins are not considered.
+	 */
+	static int findOrigins(byte[] squares, int idx, PieceType type, Color color, int[] origins) {
+		int rank = idx / 8;
+		int file = idx % 8;
+		int count = 0;
+
+		switch (type) {
+		case KNIGHT:
+		case KING:
+			for (int[] step : type == PieceType.KNIGHT ? KNIGHT_STEPS : KING_STEPS) {
+				if (isPiece(squares, rank + step[0], file + step[1], type, color)) {
+					origins[count++] = (rank + step[0]) * 8 + file + step[1];
+				}
+			}
+			return count;
+		case PAWN:
+			throw new IllegalArgumentException("Pawns are not supported");
+		default:
+			if (type != PieceType.BISHOP) {
+				count = findSliders(squares, rank, file, ROOK_DIRECTIONS, type, color, origins, count);
+			}
+			if (type != PieceType.ROOK) {
+				count = findSliders(squares, rank, file, BISHOP_DIRECTIONS, type, color, origins, count);
+			}
+			return count;
+		}
+	}
+
+	private static int findSliders(byte[] squares, int rank, int file, int[][] directions, PieceType type, Color color, int[] origins, int count) {
+		for (int[] direction : directions) {
+			int r = rank + direction[0];
+			int f = file + direction[1];
+
+			while (r >= 0 && r < 8 && f >= 0 && f < 8) {
+				byte code = squares[r * 8 + f];
+				if (code != Piece.EMPTY) {
+					if (Piece.is(code, type, color)) {
+						origins[count++] = r * 8 + f;
+					}
+					break;
+				}
+				r += direction[0];
+				f += direction[1];
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns true if moving a piece would leave the king of its color attacked. The squares are
+	 * changed during the test and restored afterwards.
+	 *
+	 * @param enPassantCaptureIdx the square of a pawn captured en passant, or -1
+	 */
+	static boolean leavesKingAttacked(byte[] squares, int from, int to, int enPassantCaptureIdx, int kingIdx) {
+		byte code = squares[from];
+		byte captured = squares[to];
+		byte enPassantCaptured = enPassantCaptureIdx == -1 ? Piece.EMPTY : squares[enPassantCaptureIdx];
+		Piece piece = Piece.fromCode(code);
+		Color opponent = piece.color == Color.WHITE ? Color.BLACK : Color.WHITE;
+
+		squares[from] = Piece.EMPTY;
+		squares[to] = code;
+		if (enPassantCaptureIdx != -1) {
+			squares[enPassantCaptureIdx] = Piece.EMPTY;
+		}
+
+		boolean attacked = isAttacked(squares, piece.type == PieceType.KING ? to : kingIdx, opponent);
+
+		if (enPassantCaptureIdx != -1) {
+			squares[enPassantCaptureIdx] = enPassantCaptured;
+		}
+		squares[to] = captured;
+		squares[from] = code;
+		return attacked;
+	}
+}
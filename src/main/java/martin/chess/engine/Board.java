@@ -68,10 +68,14 @@ public class Board {
 		Piece takenPiece;
 		int takenPieceIdx;
 		Piece originalPieceMoved;
+		List<Move> availableMoves;
+		
+		// Set when the entry is shared with a copy of the board, the state must then be copied on undo
+		boolean shared;
 	}
 	
 	private List<BoardHistoryEntry> history = new ArrayList<>();
-	private Piece[] board = new Piece[64];
+	private byte[] squares = new byte[64];
 	private BoardState currentState = new BoardState();
 
 	private List<Move> availableMoves;
@@ -81,28 +85,68 @@ public class Board {
 	
 	private Map<String, Integer> repetitionData = new HashMap<>();
 
+	public static final String INITIAL_STATE = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+	
+	// The position the board was set up with, before any moves
+	private String startingState;
+	
 	public Board() {
-		this("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+		this(INITIAL_STATE);
 	}
 	
+	/**
+	 * A copy of the board, including the move history
+	 */
 	public Board(Board board) {
-		this(FENNotation.toString(board));
+		copyFrom(board);
 	}
 
 	public Board(String fenString) {
 		//logInfo("Initializing from " + fenString);
 		FENNotation.initialize(this, fenString);
+		startingState = fenString;
 		
 		currentState.blackData.kingIdx = findKingIdx(Color.BLACK);
 		currentState.whiteData.kingIdx = findKingIdx(Color.WHITE);
+		currentState.baseKey = Zobrist.computeBaseKey(this);
 		
 		addRepetitionData();
 		
-		currentState.updatePieceValues(board);
+		currentState.updatePieceValues(squares);
 		
 		updateAvailableMoves();
 	}
 	
+	/**
+	 * Makes this board a copy of another one. Nothing is recomputed: the squares, the state, the
+	 * available moves, the history and the repetition counts are copied as they are.
+	 * 
+	 * The history entries are shared between the boards, so the other board must not be moved
+	 * while it is being copied.
+	 */
+	public void copyFrom(Board other) {
+		if (other == this) {
+			return;
+		}
+		
+		System.arraycopy(other.squares, 0, squares, 0, squares.length);
+		currentState = new BoardState(other.currentState);
+		availableMoves = new ArrayList<>(other.availableMoves);
+		
+		history.clear();
+		for (BoardHistoryEntry entry : other.history) {
+			entry.shared = true;
+			history.add(entry);
+		}
+		
+		repetitionData.clear();
+		repetitionData.putAll(other.repetitionData);
+		
+		startingState = other.startingState;
+		logging = other.logging;
+		validateMoves = other.validateMoves;
+	}
+	
 	public Color getColorToMove() {
 		return currentState.colorToMove;
 	}
@@ -119,6 +163,28 @@ public class Board {
 		return currentState.moveNumber;
 	}
 	
+	/**
+	 * The FEN of the position the board was set up with
+	 */
+	public String getStartingState() {
+		return startingState;
+	}
+	
+	/**
+	 * The moves played since the board was set up
+	 */
+	public List<Move> getMoveHistory() {
+		List<Move> moves = new ArrayList<>(history.size());
+		for (BoardHistoryEntry entry : history) {
+			moves.add(entry.move);
+		}
+		return moves;
+	}
+	
+	public boolean isInCheck() {
+		return currentState.getSideData(currentState.colorToMove).inCheck;
+	}
+	
 	/**
 	 * 
 	 * Combinations with insufficient material to checkmate include:
@@ -128,32 +194,37 @@ public class Board {
   	 *   king and bishop versus king and bishop with the bishops on the same color.
   	 */   
 	private boolean isInsufficientMaterial() {
-		List<Piece> nonKingPieces = new ArrayList<>(32);
-		for (Piece piece : board) {
-			if (piece != null && piece.type != PieceType.KING) {
-				nonKingPieces.add(piece);
+		int numPieces = 0;
+		int pieceIdx1 = -1;
+		int pieceIdx2 = -1;
+		for (int idx = 0; idx < squares.length; ++idx) {
+			byte code = squares[idx];
+			if (code != Piece.EMPTY && Piece.fromCode(code).type != PieceType.KING) {
+				if (++numPieces > 2) {
+					return false;
+				}
+				if (pieceIdx1 == -1) {
+					pieceIdx1 = idx;
+				} else {
+					pieceIdx2 = idx;
+				}
 			}
 		}
-		if (nonKingPieces.size() == 0) {
+		if (numPieces == 0) {
 			return true;
 		}
 		
-		if (nonKingPieces.size() == 1) { 
-			return 
-				nonKingPieces.get(0).type == PieceType.BISHOP || 
-				nonKingPieces.get(0).type == PieceType.KNIGHT;
+		Piece piece1 = Piece.fromCode(squares[pieceIdx1]);
+		if (numPieces == 1) { 
+			return piece1.type == PieceType.BISHOP || piece1.type == PieceType.KNIGHT;
 		}
 		
-		if (nonKingPieces.size() == 2) {
-			Piece piece1 = nonKingPieces.get(0);
-			Piece piece2 = nonKingPieces.get(1);
-			if (piece1.type != PieceType.BISHOP || piece2.type != PieceType.BISHOP || piece1.color == piece2.color) {
-				return false;
-			}
-			// Now we have to find their colors...
-			return getSquareColor(piece1) == getSquareColor(piece2);
+		Piece piece2 = Piece.fromCode(squares[pieceIdx2]);
+		if (piece1.type != PieceType.BISHOP || piece2.type != PieceType.BISHOP || piece1.color == piece2.color) {
+			return false;
 		}
-		return false;
+		// Now we have to find their colors...
+		return getSquareColor(pieceIdx1 / 8, pieceIdx1 % 8) == getSquareColor(pieceIdx2 / 8, pieceIdx2 % 8);
 	}
 
 	public Color getSquareColor(int rank, int file) {
@@ -162,17 +233,6 @@ public class Board {
 		}
 		return file % 2 == 1 ? Color.BLACK : Color.WHITE;
 	}
-	
-	public Color getSquareColor(Piece piece) {
-		for (int i = 0; i < board.length; ++i) {
-			if (board[i] == piece) {
-				int rank = i / 8;
-				int file = i % 8;
-				return getSquareColor(rank, file);
-			}
-		}
-		return null;
-	}
 
 	private void logInfo(String string) {
 		if (!logging) {
@@ -182,11 +242,11 @@ public class Board {
 	}
 
 	public Piece pieceAt(int idx) {
-		return board[idx];
+		return Piece.fromCode(squares[idx]);
 	}
 
 	public Piece pieceAt(int rank, int file) {
-		return board[getArrayIdx(rank, file)];
+		return Piece.fromCode(squares[getArrayIdx(rank, file)]);
 	}
 	
 	public int getArrayIdx(int rank, int file) {
@@ -203,7 +263,7 @@ public class Board {
 	 * Gets a list of all playable moves in the current state 
 	 */
 	private List<Move> getAvailableMovesInt() {
-		currentState.pinnedPieces.clear();
+		currentState.clearPins();
 		currentState.blackData.clear();
 		currentState.whiteData.clear();
 		
@@ -214,10 +274,68 @@ public class Board {
 	}
 	
 	public void setColorToMove(Color colorToMove) {
+		if (colorToMove != currentState.colorToMove) {
+			currentState.baseKey ^= Zobrist.turnKey();
+		}
 		currentState.colorToMove = colorToMove;
 		updateAvailableMoves();
 	}
 	
+	/**
+	 * The Zobrist key of the current position
+	 */
+	public long getZobristKey() {
+		return currentState.baseKey ^ Zobrist.enPassantKey(this);
+	}
+	
+	/**
+	 * The Zobrist key of the position after the move, computed without playing it
+	 */
+	public long getZobristKeyAfter(Move move) {
+		Piece piece = Piece.fromCode(squares[move.idxFrom]);
+		PieceType newType = move.queeningPiece == null ? piece.type : move.queeningPiece;
+		
+		long key = currentState.baseKey ^ Zobrist.turnKey();
+		key ^= Zobrist.pieceKey(piece, move.idxFrom) ^ Zobrist.pieceKey(newType, piece.color, move.idxTo);
+		
+		if (squares[move.idxTo] != Piece.EMPTY) {
+			key ^= Zobrist.pieceKey(Piece.fromCode(squares[move.idxTo]), move.idxTo);
+		} else if (piece.type == PieceType.PAWN && move.idxTo == currentState.enPassantTargetIdx) {
+			int takenIdx = piece.color == Color.WHITE ? move.idxTo - 8 : move.idxTo + 8;
+			key ^= Zobrist.pieceKey(Piece.fromCode(squares[takenIdx]), takenIdx);
+		}
+		
+		if (move.additionalIdxFrom != -1) {
+			Piece rook = Piece.fromCode(squares[move.additionalIdxFrom]);
+			key ^= Zobrist.pieceKey(rook, move.additionalIdxFrom) ^ Zobrist.pieceKey(rook, move.additionalIdxTo);
+		}
+		
+		// Same rules as in doMove
+		CastlingAbility ca = currentState.getSideData(piece.color).castling;
+		boolean kingSide = ca.canCastleKingSide;
+		boolean queenSide = ca.canCastleQueenSide;
+		if (piece.type == PieceType.KING) {
+			kingSide = false;
+			queenSide = false;
+		} else if (piece.type == PieceType.ROOK) {
+			int fromFile = move.idxFrom % 8;
+			queenSide &= fromFile != 0;
+			kingSide &= fromFile != 7;
+		}
+		key ^= Zobrist.castlingKey(piece.color, ca.canCastleKingSide, ca.canCastleQueenSide) ^ Zobrist.castlingKey(piece.color, kingSide, queenSide);
+		
+		// A double step can be captured en passant by a pawn next to it
+		if (piece.type == PieceType.PAWN && Math.abs(move.idxTo - move.idxFrom) == 16) {
+			int file = move.idxTo % 8;
+			if ((file > 0 && Piece.is(squares[move.idxTo - 1], PieceType.PAWN, piece.color.getOpposite())) || 
+					(file < 7 && Piece.is(squares[move.idxTo + 1], PieceType.PAWN, piece.color.getOpposite()))) {
+				key ^= Zobrist.enPassantKey(file);
+			}
+		}
+		
+		return key;
+	}
+	
 	/**
 	 * Gets the list of playable moves for the given color. 
 	 * 
@@ -225,38 +343,34 @@ public class Board {
 	 * a check.
 	 * 
 	 * It is false in the cases where we want to see if a color is in check
+	 * 
+	 * When considering check and the color is in check, only evasions are generated: king moves, and 
+	 * other pieces only when they capture the checking piece or block its path. Under double check only
+	 * the king can move. This relies on the attacks of the opponent being computed first.
 	 */
 	private List<Move> getAvailableMoves(Color color, boolean considerCheck) {
 		
-		List<Move> moves = new ArrayList<>(256);
-		List<Move> inCheckMoves = new ArrayList<>(256);
+		SideData myData = currentState.getSideData(color);
+		SideData opponentData = currentState.getSideData(color.getOpposite());
+		
+		long targets = considerCheck && myData.inCheck ? getEvasionTargets(color) : -1L;
+		
+		List<Move> moves = new ArrayList<>(targets == -1L ? 256 : 16);
 		
 		for (int rank = 0; rank < 8; ++rank) {
 			for (int file = 0; file < 8; ++file) {
-				Piece piece = board[getArrayIdx(rank, file)];
-				if (piece != null && piece.color == color) {
-					List<Move> pieceMoves = getAvailableMoves(rank, file, piece, inCheckMoves);
-					moves.addAll(pieceMoves);
+				byte code = squares[getArrayIdx(rank, file)];
+				if (Piece.isColor(code, color)) {
+					Piece piece = Piece.fromCode(code);
+					getAvailableMoves(moves, rank, file, piece, myData, piece.type == PieceType.KING ? -1L : targets);
 				}
 			}
 		}
 		
-		int opponentKingIdx = getKingIdx(color.getOpposite());
-		
-		SideData myData = currentState.getSideData(color);
-		SideData opponentData = currentState.getSideData(color.getOpposite());
-				
-		Map<Integer, Set<Integer>> inCheckSquares = new HashMap<>(64);
-		for (var move : inCheckMoves) {
-			inCheckSquares.computeIfAbsent(move.getIdxTo(), k -> new HashSet<>()).add(move.getIdxFrom());
-		}
-		
-		if (inCheckSquares.containsKey(opponentKingIdx)) {
+		if (myData.isAttacking(getKingIdx(color.getOpposite()))) {
 			opponentData.inCheck = true;
 		}
 		
-		myData.squaresAttackedByMe = inCheckSquares;
-		
 		if (considerCheck) {
 			Iterator<Move> moveIterator = moves.iterator();
 			while (moveIterator.hasNext()) {
@@ -273,28 +387,51 @@ public class Board {
 	}
 	
 	/**
-	 * Gets a list of playable moves for the given piece 
+	 * The squares that a piece other than the king can move to when the color is in check: the square 
+	 * of a single checking piece and the squares between it and the king. None under double check.
 	 */
-	private List<Move> getAvailableMoves(int rank, int file, Piece piece, List<Move> inCheckMoves) {
-		int fromIdx = getArrayIdx(rank, file);
+	private long getEvasionTargets(Color color) {
+		long checkers = currentState.getSideData(color.getOpposite()).attackersOf[getKingIdx(color)];
+		if (Long.bitCount(checkers) != 1) {
+			return 0;
+		}
+		
+		SideData myData = currentState.getSideData(color);
+		long targets = checkers;
+		if (myData.numPathsToMyKing > 0) {
+			targets |= myData.pathsToMyKing;
+		}
 		
-		List<Move> moves = new ArrayList<>(24);
+		// A pawn giving check after a double step can also be captured en passant
+		int epIdx = currentState.enPassantTargetIdx;
+		if (epIdx != -1 && (checkers & (1L << (color == Color.WHITE ? epIdx - 8 : epIdx + 8))) != 0) {
+			targets |= 1L << epIdx;
+		}
+		return targets;
+	}
+	
+	/**
+	 * Adds the playable moves for the given piece that end on one of the target squares, and records 
+	 * all squares it attacks 
+	 */
+	private void getAvailableMoves(List<Move> moves, int rank, int file, Piece piece, SideData myData, long targets) {
+		int fromIdx = getArrayIdx(rank, file);
 		
 		switch (piece.type) {
 		case BISHOP:
-			getMoves(moves, inCheckMoves, rank, file, piece, BISHOP_DIRECTIONS, false);
+			getMoves(moves, myData, rank, file, piece, BISHOP_DIRECTIONS, false, targets);
 			break;
 		case KNIGHT:
-			getMoves(moves, inCheckMoves, rank, file, piece, KNIGHT_DIRECTIONS, true);
+			getMoves(moves, myData, rank, file, piece, KNIGHT_DIRECTIONS, true, targets);
 			break;
 		case QUEEN:
-			getMoves(moves, inCheckMoves, rank, file, piece, ALL_DIRECTIONS, false);
+			getMoves(moves, myData, rank, file, piece, ALL_DIRECTIONS, false, targets);
 			break;
 		case ROOK:
-			getMoves(moves, inCheckMoves, rank, file, piece, ROOK_DIRECTIONS, false);
+			getMoves(moves, myData, rank, file, piece, ROOK_DIRECTIONS, false, targets);
 			break;
 		case KING:
-			getMoves(moves, inCheckMoves, rank, file, piece, ALL_DIRECTIONS, true);
+			getMoves(moves, myData, rank, file, piece, ALL_DIRECTIONS, true, targets);
 			
 			CastlingAbility ca = currentState.getSideData(piece.color).castling;
 			
@@ -315,19 +452,23 @@ public class Board {
 					
 			// Capture left?
 			if (takeLeftIdx != -1) {
-				inCheckMoves.add(new Move(fromIdx, takeLeftIdx));
-				getPawnCaptureMove(piece, fromIdx, moves, takeLeftIdx);
+				myData.addAttack(fromIdx, takeLeftIdx);
+				if (isTarget(targets, takeLeftIdx)) {
+					getPawnCaptureMove(piece, fromIdx, moves, takeLeftIdx);
+				}
 			}
 
 			// Capture right?
 			if (takeRightIdx != -1) {
-				inCheckMoves.add(new Move(fromIdx, takeRightIdx));
-				getPawnCaptureMove(piece, fromIdx, moves, takeRightIdx);
+				myData.addAttack(fromIdx, takeRightIdx);
+				if (isTarget(targets, takeRightIdx)) {
+					getPawnCaptureMove(piece, fromIdx, moves, takeRightIdx);
+				}
 			}
 			
 			// Go forward one step?
 			int fwdIndex1 = getArrayIdx(rank + forwardRank, file);
-			if (fwdIndex1 != -1 && null == board[fwdIndex1]) {
+			if (fwdIndex1 != -1 && squares[fwdIndex1] == Piece.EMPTY && isTarget(targets, fwdIndex1)) {
 				addPawnMoves(moves, fromIdx, fwdIndex1);
 			}
 			
@@ -338,7 +479,7 @@ public class Board {
 			if (!hasMoved) {
 				// Go forward two steps?
 				int fwdIndex2 = getArrayIdx(rank + 2 * forwardRank, file);
-				if (fwdIndex2 != -1 && null == board[fwdIndex1] && null == board[fwdIndex2]) {
+				if (fwdIndex2 != -1 && squares[fwdIndex1] == Piece.EMPTY && squares[fwdIndex2] == Piece.EMPTY && isTarget(targets, fwdIndex2)) {
 					addPawnMoves(moves, fromIdx, fwdIndex2);
 				}
 			}
@@ -348,12 +489,14 @@ public class Board {
 			break;
 		
 		}
-		
-		return moves;
+	}
+
+	private static boolean isTarget(long targets, int idx) {
+		return (targets & (1L << idx)) != 0;
 	}
 
 	private void getPawnCaptureMove(Piece piece, int fromIdx, List<Move> moves, int takeIdx) {
-		Piece takeLeftPiece = board[takeIdx];
+		Piece takeLeftPiece = Piece.fromCode(squares[takeIdx]);
 		if (takeLeftPiece != null && takeLeftPiece.color != piece.color) {
 			addPawnMoves(moves, fromIdx, takeIdx);
 		}
@@ -404,7 +547,7 @@ public class Board {
 		int fileDelta = castleKingSide ? 1 : -1;
 		int rookFile = castleKingSide ? 7 : 0;
 		
-		Piece rook = board[getArrayIdx(rank, rookFile)];
+		Piece rook = Piece.fromCode(squares[getArrayIdx(rank, rookFile)]);
 		
 		if (rook == null || rook.color != piece.color && rook.type != PieceType.ROOK) {
 			// Perhaps the rook was captured
@@ -418,7 +561,7 @@ public class Board {
 		int stepsTaken = 1;
 		while (nextKingFile != rookFile) {
 			int newIdx = getArrayIdx(rank, nextKingFile);
-			if (null != board[newIdx]) {
+			if (squares[newIdx] != Piece.EMPTY) {
 				// Occupied
 				return;
 			}
@@ -445,70 +588,52 @@ public class Board {
 	 */
 	private boolean wouldBeInCheck(Move move) {
 		
-		Piece piece = board[move.idxFrom];
+		Piece piece = Piece.fromCode(squares[move.idxFrom]);
 
 		SideData myData = currentState.getSideData(piece.color);
 		SideData opponentData = currentState.getSideData(piece.color.getOpposite());
 		
-		var attackedSquares = opponentData.squaresAttackedByMe;
-		var pathsToKing = myData.attackingPathsToMyKing;
+		long toMask = 1L << move.idxTo;
 		
 		if (piece.type == PieceType.KING) {
 			// Can't move to an attacked square
-			return attackedSquares.containsKey(move.idxTo);
+			return (opponentData.attackedSquares & toMask) != 0;
 		} else {
 			// Can't move this piece so that the king becomes in check
 			
 			// Check pinning
-			List<List<Integer>> pinData = currentState.pinnedPieces.get(move.idxFrom); 
-			if (pinData != null) {
-				boolean matchesAllPins = true;
-				for (var list : pinData) {
-					if (!list.contains(move.idxTo)) {
-						matchesAllPins = false;
-						break;
-					}
-				}
-				
-				if (!matchesAllPins) {
-					return true;
-				}
+			if ((currentState.getPinRay(move.idxFrom) & toMask) == 0) {
+				return true;
 			}
 			
 			// Check if we can block check by moving in the way of the attacker and the king
-			boolean canBlockAllPaths = pathsToKing.size() > 0;
-			for (var path : pathsToKing) {
-				if (!path.contains(move.idxTo)) {
-					canBlockAllPaths = false;
-					break;
-				}
-			}
+			boolean canBlockAllPaths = myData.numPathsToMyKing > 0 && (myData.pathsToMyKing & toMask) != 0;
 
 			// Check the current state of the king
 			int kingIdx = getKingIdx(piece.color);
-			var setOfAttackers = attackedSquares.get(kingIdx);
-			boolean hasAttackers = setOfAttackers != null;
+			long attackers = opponentData.attackersOf[kingIdx];
+			boolean hasAttackers = attackers != 0;
 			
 			if (hasAttackers) {
 			
 				// We are in check with multiple attackers
-				if (setOfAttackers.size() > 1) {
+				if (Long.bitCount(attackers) > 1) {
 					return true;
 				}
 				
 				// If this move captures the lone attacker, we are not in check
-				if (setOfAttackers.contains(move.idxTo)) {
+				if ((attackers & toMask) != 0) {
 					return false;
 				}
 
 				// See if this would in fact capture the attacker en-passant
 				if (currentState.enPassantTargetIdx != -1 && move.idxTo == currentState.enPassantTargetIdx && piece.type == PieceType.PAWN) {
-					int attackerIdx = setOfAttackers.iterator().next();
+					int attackerIdx = Long.numberOfTrailingZeros(attackers);
 					
 					int attackerRank = attackerIdx / 8; 
 					int attackerFile = attackerIdx % 8;
 							
-					Piece attackingPiece = board[attackerIdx];
+					Piece attackingPiece = Piece.fromCode(squares[attackerIdx]);
 					if (attackingPiece.type == PieceType.PAWN) {
 						int enPassantRank = currentState.enPassantTargetIdx / 8;
 						int enPassantFile = currentState.enPassantTargetIdx % 8;
@@ -527,7 +652,6 @@ public class Board {
 			
 			
 			if (canBlockAllPaths) {
-				//System.err.println("Can block all paths with move to " + Algebraic.toAlgebraic(move.idxTo) + ", in check: FALSE");
 				return false;
 			}
 			
@@ -536,9 +660,8 @@ public class Board {
 	}
 
 	private int findKingIdx(Color color) {
-		for (int idx = 0; idx < board.length; ++idx) {
-			Piece kingPiece = board[idx];
-			if (kingPiece != null && kingPiece.color == color && kingPiece.type == PieceType.KING) {
+		for (int idx = 0; idx < squares.length; ++idx) {
+			if (Piece.is(squares[idx], PieceType.KING, color)) {
 				return idx;
 			}
 		}
@@ -558,24 +681,25 @@ public class Board {
 		
 		BoardHistoryEntry historyEntry = history.remove(history.size() - 1);
 		
-		this.currentState = historyEntry.state;
+		this.currentState = historyEntry.shared ? new BoardState(historyEntry.state) : historyEntry.state;
+		this.availableMoves = historyEntry.availableMoves;
 		
 		Move move = historyEntry.move;
-		board[move.idxTo] = null;
-		board[move.idxFrom] = historyEntry.originalPieceMoved;
+		squares[move.idxTo] = Piece.EMPTY;
+		squares[move.idxFrom] = historyEntry.originalPieceMoved.code;
 		
 		if (historyEntry.originalPieceMoved.type == PieceType.KING) {
 			currentState.getSideData(historyEntry.originalPieceMoved.color).kingIdx = move.idxFrom;
 		}
 		
 		if (move.additionalIdxFrom != -1) {
-			Piece additionalPiece = board[move.additionalIdxTo];
-			board[move.additionalIdxTo] = null;
-			board[move.additionalIdxFrom] = additionalPiece;
+			Piece additionalPiece = Piece.fromCode(squares[move.additionalIdxTo]);
+			squares[move.additionalIdxTo] = Piece.EMPTY;
+			squares[move.additionalIdxFrom] = additionalPiece.code;
 		}
 		
 		if (historyEntry.takenPiece != null) {
-			board[historyEntry.takenPieceIdx] = historyEntry.takenPiece;
+			squares[historyEntry.takenPieceIdx] = historyEntry.takenPiece.code;
 		}
 	}
 
@@ -642,10 +766,10 @@ public class Board {
 		int newRank = move.idxTo / 8;
 		int newFile = move.idxTo % 8;
 		
-		Piece piece = board[move.idxFrom];
-		board[move.idxFrom] = null;
+		Piece piece = Piece.fromCode(squares[move.idxFrom]);
+		squares[move.idxFrom] = Piece.EMPTY;
 		
-		Piece takenPiece = board[move.idxTo];
+		Piece takenPiece = Piece.fromCode(squares[move.idxTo]);
 		int takenPieceIdx = -1;
 		
 		if (takenPiece != null) {
@@ -659,29 +783,30 @@ public class Board {
 			// Find the pawn
 			int takenRank = piece.color == Color.WHITE ? newRank - 1 : newRank + 1;
 			takenPieceIdx = getArrayIdx(takenRank, newFile);
-			takenPiece = board[takenPieceIdx];
+			takenPiece = Piece.fromCode(squares[takenPieceIdx]);
 			if (takenPiece == null || takenPiece.type != PieceType.PAWN) {
 				throw new RuntimeException("enpassant capture of non-pawn");
 			}
 		}
 		
 		if (takenPieceIdx != -1) {
-			board[takenPieceIdx] = null;
+			squares[takenPieceIdx] = Piece.EMPTY;
 		}
 
 		// Check queening and replace piece with new piece
 		Piece originalPieceMoved = piece;
 		if (move.queeningPiece != null) {
-			piece = new Piece(move.queeningPiece, piece.color);
+			piece = Piece.of(move.queeningPiece, piece.color);
 		}
 		
-		board[move.idxTo] = piece;
+		squares[move.idxTo] = piece.code;
 		
 		// The rook in a castling move
+		Piece additionalPiece = null;
 		if (move.additionalIdxFrom != -1) {
-			Piece additionalPiece = board[move.additionalIdxFrom];
-			board[move.additionalIdxFrom] = null;
-			board[move.additionalIdxTo] = additionalPiece;
+			additionalPiece = Piece.fromCode(squares[move.additionalIdxFrom]);
+			squares[move.additionalIdxFrom] = Piece.EMPTY;
+			squares[move.additionalIdxTo] = additionalPiece.code;
 		}
 		
 		//
@@ -694,6 +819,7 @@ public class Board {
 		historyEntry.state = new BoardState(currentState);
 		historyEntry.takenPiece = takenPiece;
 		historyEntry.takenPieceIdx = takenPieceIdx;
+		historyEntry.availableMoves = availableMoves;
 		history.add(historyEntry);
 		
 		
@@ -705,6 +831,15 @@ public class Board {
 			currentState.getSideData(piece.color).kingIdx = move.idxTo;
 		}
 		
+		long key = currentState.baseKey ^ Zobrist.castlingKey(currentState) ^ Zobrist.turnKey();
+		key ^= Zobrist.pieceKey(originalPieceMoved, move.idxFrom) ^ Zobrist.pieceKey(piece, move.idxTo);
+		if (takenPiece != null) {
+			key ^= Zobrist.pieceKey(takenPiece, takenPieceIdx);
+		}
+		if (additionalPiece != null) {
+			key ^= Zobrist.pieceKey(additionalPiece, move.additionalIdxFrom) ^ Zobrist.pieceKey(additionalPiece, move.additionalIdxTo);
+		}
+		
 		// Adjust half move clock
 		if (takenPiece != null || piece.type == PieceType.PAWN) {
 			currentState.halfMoveClock = 0;
@@ -746,13 +881,14 @@ public class Board {
 		}
 		
 		currentState.colorToMove = currentState.colorToMove == Color.WHITE ? Color.BLACK : Color.WHITE;
+		currentState.baseKey = key ^ Zobrist.castlingKey(currentState);
 		
 		if (currentState.colorToMove == Color.WHITE) {
 			currentState.moveNumber++;
 		}
 		
 		if (move.queeningPiece != null || takenPiece != null) {
-			currentState.updatePieceValues(board);
+			currentState.updatePieceValues(squares);
 		}
 		
 		addRepetitionData();
@@ -842,6 +978,17 @@ public class Board {
 			}
 		}
 
+		/**
+		 * The squares of the path up to, but not including, the given index into the path
+		 */
+		public long getMask(int end) {
+			long mask = 0;
+			for (int i = 0; i < end; ++i) {
+				mask |= 1L << path.get(i);
+			}
+			return mask;
+		}
+
 		public boolean isBeforeFirstPiece(int idx) {
 			return firstPieceIdx == -1 || idx < firstPieceIdx;
 		}
@@ -902,7 +1049,7 @@ public class Board {
 		
 	}
 	
-	private void getMoves(List<Move> moves, List<Move> inCheckMoves, int rank, int file, Piece piece, int[][] directions, boolean oneStepOnly) {
+	private void getMoves(List<Move> moves, SideData myData, int rank, int file, Piece piece, int[][] directions, boolean oneStepOnly, long targets) {
 		int fromIdx = getArrayIdx(rank, file);
 		SideData opponentData = currentState.getSideData(piece.color.getOpposite());
 		
@@ -921,16 +1068,21 @@ public class Board {
 				int toIdx = pathData.path.get(i);
 				
 				if (pathData.isBeforeFirstPiece(i)) {
-					moves.add(new Move(fromIdx, toIdx));
-					inCheckMoves.add(new Move(fromIdx, toIdx));
+					if (isTarget(targets, toIdx)) {
+						moves.add(new Move(fromIdx, toIdx));
+					}
+					myData.addAttack(fromIdx, toIdx);
 				}
 				else if (pathData.isAtFirstPiece(i)) {
 					if (pathData.firstPieceIsOurs) {
 						// If king captures this piece, it would be in check
-						inCheckMoves.add(new Move(fromIdx, toIdx));	
+						myData.addAttack(fromIdx, toIdx);
 					} else {
-						// We can capture this piece
-						moves.add(new Move(fromIdx, toIdx));
+						// We can capture this piece, it is attacked
+						if (isTarget(targets, toIdx)) {
+							moves.add(new Move(fromIdx, toIdx));
+						}
+						myData.addAttack(fromIdx, toIdx);
 					}
 					
 					break;
@@ -952,19 +1104,12 @@ public class Board {
 				
 				if (ownPiecesBeforeKing == 0 && oppPiecesBeforeKing == 1) {
 
-					Integer pinnedPieceIdx = pathData.path.get(pathData.oppPiecesBeforeKing.get(0));
+					int pinnedPieceIdx = pathData.path.get(pathData.oppPiecesBeforeKing.get(0));
 
-					// Clone subList since it is a view
-					var toKing = pathData.path.subList(0, pathData.opponentKingIdx);
-					
-					List<Integer> pinnedSquares = new ArrayList<>(toKing.size() + 1);
-					pinnedSquares.addAll(toKing);
-					
 					// Add our own position to the pinned squares to let the pinned piece capture us
-					pinnedSquares.add(fromIdx);
-					//System.out.println(board[pinnedPieceIdx] + " is pinned on squares " + pinnedSquares.stream().map(idx -> Algebraic.toAlgebraic(idx)).collect(Collectors.toList()));
+					long pinnedSquares = pathData.getMask(pathData.opponentKingIdx) | (1L << fromIdx);
 					
-					currentState.pinnedPieces.computeIfAbsent(pinnedPieceIdx, k -> new ArrayList<>(pinnedSquares.size())).add(pinnedSquares);
+					currentState.addPin(pinnedPieceIdx, pinnedSquares);
 				}
 				
 				//
@@ -973,12 +1118,11 @@ public class Board {
 				//
 				if (ownPiecesBeforeKing == 0 && oppPiecesBeforeKing == 0) {
 					for (int idx = pathData.opponentKingIdx; idx < pathData.path.size(); idx++) {
-						inCheckMoves.add(new Move(fromIdx, pathData.path.get(idx)));
+						myData.addAttack(fromIdx, pathData.path.get(idx));
 					}
 					
 					// Also add a path to king (to enable pieces to place themselves in this path, thereby preventing check)
-					Set<Integer> pathToKing = new HashSet<>(pathData.path.subList(0, pathData.opponentKingIdx));
-					opponentData.attackingPathsToMyKing.add(pathToKing);
+					opponentData.addPathToMyKing(pathData.getMask(pathData.opponentKingIdx));
 				}
 				
 				//
@@ -995,7 +1139,7 @@ public class Board {
 					int oppPieceIdx = pathData.path.get(pathData.oppPiecesBeforeKing.get(0));
 					int ownPieceIdx = pathData.path.get(pathData.ownPiecesBeforeKing.get(0));
 					
-					if (board[ownPieceIdx].type == PieceType.PAWN && board[oppPieceIdx].type == PieceType.PAWN) {
+					if (Piece.fromCode(squares[ownPieceIdx]).type == PieceType.PAWN && Piece.fromCode(squares[oppPieceIdx]).type == PieceType.PAWN) {
 						// Ok there are two different colored pawns between us.
 						
 						// Now if
@@ -1013,8 +1157,8 @@ public class Board {
 						int ownPawnRank = ownPieceIdx / 8;
 						int ownPawnFile = ownPieceIdx % 8;
 
-						int enpassantPawnRankForOurColor = board[ownPieceIdx].color == Color.WHITE ? 3 : 4;
-						int enpassantCaptureRankForOurColor = board[ownPieceIdx].color == Color.WHITE ? 2 : 5;
+						int enpassantPawnRankForOurColor = Piece.fromCode(squares[ownPieceIdx]).color == Color.WHITE ? 3 : 4;
+						int enpassantCaptureRankForOurColor = Piece.fromCode(squares[ownPieceIdx]).color == Color.WHITE ? 2 : 5;
 						
 						if (enpassantPawnRankForOurColor == ownPawnRank && 
 							enpassantCaptureRankForOurColor == enPassantPawnRank &&
@@ -1025,21 +1169,20 @@ public class Board {
 							// Can the other pawn capture our pawn?
 							if ((oppPawnFile + 1) == ownPawnFile || (oppPawnFile - 1) == ownPawnFile) {
 								// Yes. Pin the opposing pawn
-								int opposingColorRankDelta = board[oppPieceIdx].color == Color.WHITE ? 1 : -1;
+								int opposingColorRankDelta = Piece.fromCode(squares[oppPieceIdx]).color == Color.WHITE ? 1 : -1;
 
 								int fwdIdx = getArrayIdx(ownPawnRank + opposingColorRankDelta, oppPawnFile);
 								int leftCaptureIdx = getArrayIdx(ownPawnRank + opposingColorRankDelta, oppPawnFile + 1);
 								int rightCaptureIdx = getArrayIdx(ownPawnRank + opposingColorRankDelta, oppPawnFile - 1);
 								
-								List<Integer> pinnedPawnSquares = new ArrayList<>(3);
-								pinnedPawnSquares.add(fwdIdx);
+								long pinnedPawnSquares = toMask(fwdIdx);
 								if (leftCaptureIdx != currentState.enPassantTargetIdx) {
-									pinnedPawnSquares.add(leftCaptureIdx);
+									pinnedPawnSquares |= toMask(leftCaptureIdx);
 								}
 								if (rightCaptureIdx != currentState.enPassantTargetIdx) {
-									pinnedPawnSquares.add(rightCaptureIdx);
+									pinnedPawnSquares |= toMask(rightCaptureIdx);
 								}
-								currentState.pinnedPieces.computeIfAbsent(oppPieceIdx, k -> new ArrayList<>(pinnedPawnSquares.size())).add(pinnedPawnSquares);
+								currentState.addPin(oppPieceIdx, pinnedPawnSquares);
 							}
 						}
 						
@@ -1052,6 +1195,13 @@ public class Board {
 		
 	}	
 	
+	/**
+	 * The mask of a square, empty for -1 (off the board)
+	 */
+	private static long toMask(int idx) {
+		return idx == -1 ? 0 : 1L << idx;
+	}
+	
 	private PathData getPathData(int[] vector, int rank, int file, Piece piece, boolean oneStepOnly) {
 		PathData pathData = new PathData(piece, vector);
 		
@@ -1070,7 +1220,7 @@ public class Board {
 				break;
 			}
 			
-			pathData.addSquare(newIdx, board[newIdx]);
+			pathData.addSquare(newIdx, Piece.fromCode(squares[newIdx]));
 			
 			if (oneStepOnly) {
 				break;
@@ -1097,7 +1247,7 @@ public class Board {
 			for (int file = 0; file < 8; ++file) {
 				sb.append("|");
 				
-				Piece piece = board[getArrayIdx(rank, file)];
+				Piece piece = Piece.fromCode(squares[getArrayIdx(rank, file)]);
 				if (piece == null) {
 					sb.append(" ");
 				} else {
@@ -1126,8 +1276,11 @@ public class Board {
 		return currentState;
 	}
 	
-	public Piece[] getBoard() {
-		return board;
+	/**
+	 * The squares of the board as piece codes, see Piece.getCode()
+	 */
+	public byte[] getSquares() {
+		return squares;
 	}
 
 	public void setLogging(boolean logging) {
@@ -1138,8 +1291,29 @@ public class Board {
 		this.validateMoves = validateMoves;
 	}
 
+	/**
+	 * The squares attacked by the color, each with the squares of its attackers. Built from the attack
+	 * masks on every call, prefer isAttacked() when only a few squares are of interest.
+	 */
 	public Map<Integer, Set<Integer>> getAttackedSquares(Color color) {
-		return currentState.getSideData(color).squaresAttackedByMe;
+		SideData data = currentState.getSideData(color);
+		Map<Integer, Set<Integer>> attacked = new HashMap<>();
+		for (long squaresLeft = data.attackedSquares; squaresLeft != 0; squaresLeft &= squaresLeft - 1) {
+			int idx = Long.numberOfTrailingZeros(squaresLeft);
+			Set<Integer> attackers = new HashSet<>();
+			for (long attackersLeft = data.attackersOf[idx]; attackersLeft != 0; attackersLeft &= attackersLeft - 1) {
+				attackers.add(Long.numberOfTrailingZeros(attackersLeft));
+			}
+			attacked.put(idx, attackers);
+		}
+		return attacked;
+	}
+	
+	/**
+	 * Whether the square is attacked by the color in the current position
+	 */
+	public boolean isAttacked(int idx, Color by) {
+		return currentState.getSideData(by).isAttacking(idx);
 	}
 	
 	public String getAttackedSquares() {
@@ -0,0 +1,59 @@
+package martin.chess.engine;
+
+import java.util.List;
+
+/**
+ * The outcome of a mate search
+ */
+public class MateSearchResult {
+	
+	public enum Status {
+		/** A forced mate was found */
+		MATE,
+		/** There is no forced mate within the given number of moves */
+		NO_MATE,
+		/** The node budget ran out before the search was finished */
+		UNKNOWN,
+	}
+	
+	private Status status;
+	private List<Move> line;
+	private long nodes;
+	
+	MateSearchResult(Status status, List<Move> line, long nodes) {
+		this.status = status;
+		this.line = line;
+		this.nodes = nodes;
+	}
+	
+	public Status getStatus() {
+		return status;
+	}
+	
+	public boolean isMate() {
+		return status == Status.MATE;
+	}
+	
+	/**
+	 * The mating line, moves of both sides starting with the attacker. Empty unless a mate was found.
+	 */
+	public List<Move> getLine() {
+		return line;
+	}
+	
+	/**
+	 * The number of moves of the attacker in the mating line, 0 unless a mate was found 
+	 */
+	public int getMateIn() {
+		return (line.size() + 1) / 2;
+	}
+	
+	public long getNodes() {
+		return nodes;
+	}
+	
+	@Override
+	public String toString() {
+		return isMate() ? "Mate in " + getMateIn() + ": " + line + " (" + nodes + " nodes)" : status + " (" + nodes + " nodes)";
+	}
+}
@@ -0,0 +1,302 @@
+package martin.chess.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Searches for forced mates with depth-first proof-number search (df-pn).
+ *
+ * Proof and disproof numbers are kept in a fixed size table keyed by the Zobrist key of the position
+ * and the number of moves left, so memory use is bounded no matter how long the search runs. The table
+ * has buckets of two entries, and on collision the entry representing the least work is replaced; a lost
+ * entry only costs a re-search.
+ *
+ * Mate lengths are tried in increasing order, so the mate found is the shortest one. A solver keeps
+ * its table between searches and must not be used from several threads at once.
+ */
+public class MateSolver {
+
+	public static final int DEFAULT_TABLE_SIZE = 1 << 18;
+
+	private static final int INF = Integer.MAX_VALUE / 2;
+	private static final int MAX_MOVES = 63;
+
+	// Mixed into the key so results for different numbers of moves left don't collide
+	private static final long[] MOVES_LEFT_KEYS = new long[MAX_MOVES + 1];
+
+	static {
+		SplittableRandom random = new SplittableRandom(0x3A7E5L);
+		for (int i = 0; i < MOVES_LEFT_KEYS.length; ++i) {
+			MOVES_LEFT_KEYS[i] = random.nextLong();
+		}
+	}
+
+	private final int mask;
+	private final long[] keys;
+	private final int[] proofNumbers;
+	private final int[] disproofNumbers;
+	
+	// The number of nodes searched below an entry, the cheapest entry of a bucket is replaced
+	private final int[] work;
+
+	private long nodes;
+	private long maxNodes;
+
+	public MateSolver() {
+		this(DEFAULT_TABLE_SIZE);
+	}
+
+	/**
+	 * @param tableSize the number of table entries, rounded up to a power of two
+	 */
+	public MateSolver(int tableSize) {
+		int size = Integer.highestOneBit(Math.max(2, tableSize - 1)) << 1;
+		mask = size - 1;
+		keys = new long[size];
+		proofNumbers = new int[size];
+		disproofNumbers = new int[size];
+		work = new int[size];
+	}
+
+	/**
+	 * Searches for a mate in at most maxMoves moves by the side to move. The board is restored afterwards.
+	 *
+	 * @param maxNodes the node budget, after which the result is UNKNOWN
+	 */
+	public MateSearchResult solve(Board board, int maxMoves, long maxNodes) {
+		if (maxMoves < 1 || maxMoves > MAX_MOVES) {
+			throw new IllegalArgumentException("Moves must be between 1 and " + MAX_MOVES);
+		}
+
+		this.nodes = 0;
+		this.maxNodes = maxNodes;
+
+		if (board.getResult() != null) {
+			return new MateSearchResult(MateSearchResult.Status.NO_MATE, Collections.emptyList(), 0);
+		}
+
+		for (int movesLeft = 1; movesLeft <= maxMoves; ++movesLeft) {
+			search(board, movesLeft, true, INF, INF);
+
+			if (nodes > maxNodes) {
+				return new MateSearchResult(MateSearchResult.Status.UNKNOWN, Collections.emptyList(), nodes);
+			}
+			int idx = lookup(key(board, movesLeft));
+			if (idx != -1 && proofNumbers[idx] == 0) {
+				List<Move> line = getLine(board, movesLeft);
+				if (line != null) {
+					return new MateSearchResult(MateSearchResult.Status.MATE, line, nodes);
+				}
+				// The budget ran out while the line was rebuilt
+				return new MateSearchResult(MateSearchResult.Status.UNKNOWN, Collections.emptyList(), nodes);
+			}
+		}
+
+		return new MateSearchResult(MateSearchResult.Status.NO_MATE, Collections.emptyList(), nodes);
+	}
+
+	/**
+	 * Searches until the proof number of the attacker (phi) or its counterpart (delta) reaches its threshold.
+	 * Phi and delta are the proof and disproof numbers seen from the side to move.
+	 *
+	 * @param movesLeft the number of moves the attacker has left, including the next one if it is to move
+	 */
+	private void search(Board board, int movesLeft, boolean attackerToMove, int phiThreshold, int deltaThreshold) {
+		long startNodes = nodes++;
+
+		if (storeIfTerminal(board, key(board, movesLeft), movesLeft, attackerToMove)) {
+			return;
+		}
+
+		// Children are only played once they are selected, until then they count as unknown.
+		// Their numbers are kept here as well, so siblings replacing each other in the table can't make us loop.
+		List<Move> moves = board.getAvailableMoves();
+		int childMovesLeft = attackerToMove ? movesLeft - 1 : movesLeft;
+		long[] childKeys = new long[moves.size()];
+		int[] childPhis = new int[moves.size()];
+		int[] childDeltas = new int[moves.size()];
+		
+		for (int i = 0; i < moves.size(); ++i) {
+			childKeys[i] = board.getZobristKeyAfter(moves.get(i)) ^ MOVES_LEFT_KEYS[childMovesLeft];
+			readChild(childKeys[i], !attackerToMove, childPhis, childDeltas, i);
+		}
+
+		while (nodes <= maxNodes) {
+			// The children's phi is our delta and vice versa
+			int phi = INF;
+			int delta = 0;
+			int best = -1;
+			int bestChildPhi = 0;
+			int secondBestDelta = INF;
+
+			for (int i = 0; i < childKeys.length; ++i) {
+				int childDelta = childDeltas[i];
+				int childPhi = childPhis[i];
+
+				if (childDelta < phi) {
+					secondBestDelta = phi;
+					phi = childDelta;
+					best = i;
+					bestChildPhi = childPhi;
+				} else if (childDelta < secondBestDelta) {
+					secondBestDelta = childDelta;
+				}
+				delta = Math.min(INF, delta + childPhi);
+			}
+
+			if (phi >= phiThreshold || delta >= deltaThreshold) {
+				long key = key(board, movesLeft);
+				int nodesSearched = (int) Math.min(Integer.MAX_VALUE, nodes - startNodes);
+				if (attackerToMove) {
+					store(key, phi, delta, nodesSearched);
+				} else {
+					store(key, delta, phi, nodesSearched);
+				}
+				return;
+			}
+
+			int childPhiThreshold = (int) Math.min(INF, (long) deltaThreshold + bestChildPhi - delta);
+			int childDeltaThreshold = Math.min(phiThreshold, secondBestDelta + 1);
+
+			board.move(moves.get(best));
+			search(board, childMovesLeft, !attackerToMove, childPhiThreshold, childDeltaThreshold);
+			board.undoLastMove();
+			
+			readChild(childKeys[best], !attackerToMove, childPhis, childDeltas, best);
+		}
+	}
+
+	/**
+	 * Stores the result of a position where the game is over or the attacker has run out of moves
+	 */
+	private boolean storeIfTerminal(Board board, long key, int movesLeft, boolean attackerToMove) {
+		GameResultData result = board.getResult();
+		if (result != null) {
+			boolean mate = isMatedDefender(result, attackerToMove);
+			store(key, mate ? 0 : INF, mate ? INF : 0, 1);
+			return true;
+		}
+		if (movesLeft == 0) {
+			store(key, INF, 0, 1);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Rebuilds the mating line from the table, searching again where entries have been replaced.
+	 * The defender picks the reply that delays the mate the longest. Returns null if the budget runs out.
+	 */
+	private List<Move> getLine(Board board, int movesLeft) {
+		List<Move> line = new ArrayList<>();
+		boolean attackerToMove = true;
+
+		while (board.getResult() == null && nodes <= maxNodes) {
+			Move selected = null;
+			int childMovesLeft = attackerToMove ? movesLeft - 1 : movesLeft;
+
+			for (Move move : board.getAvailableMoves()) {
+				board.move(move);
+				boolean proven = isProven(board, childMovesLeft, !attackerToMove);
+				boolean delays = !attackerToMove && proven && !isProven(board, childMovesLeft - 1, true);
+				board.undoLastMove();
+
+				if (attackerToMove && proven || delays) {
+					selected = move;
+					break;
+				}
+				if (!attackerToMove && proven && selected == null) {
+					selected = move;
+				}
+			}
+
+			if (selected == null) {
+				break;
+			}
+			board.move(selected);
+			line.add(selected);
+			attackerToMove = !attackerToMove;
+			movesLeft = childMovesLeft;
+		}
+
+		for (int i = 0; i < line.size(); ++i) {
+			board.undoLastMove();
+		}
+
+		return nodes <= maxNodes ? line : null;
+	}
+
+	private boolean isProven(Board board, int movesLeft, boolean attackerToMove) {
+		GameResultData result = board.getResult();
+		if (result != null) {
+			return isMatedDefender(result, attackerToMove);
+		}
+		if (movesLeft <= 0) {
+			return false;
+		}
+
+		long key = key(board, movesLeft);
+		int idx = lookup(key);
+		if (idx == -1 || (proofNumbers[idx] != 0 && disproofNumbers[idx] != 0)) {
+			search(board, movesLeft, attackerToMove, INF, INF);
+			idx = lookup(key);
+		}
+		return idx != -1 && proofNumbers[idx] == 0;
+	}
+
+	/**
+	 * The mated side is the one to move, so a mate is ours if the defender is to move
+	 */
+	private static boolean isMatedDefender(GameResultData result, boolean attackerToMove) {
+		return result.getOutcome() == GameOutcome.CHECKMATE && !attackerToMove;
+	}
+
+	/**
+	 * Copies the numbers of a child from the table, seen from the child's side to move. Keeps the
+	 * old numbers if the entry is missing, which are 1 for an unknown child.
+	 */
+	private void readChild(long key, boolean attackerToMove, int[] phis, int[] deltas, int i) {
+		int idx = lookup(key);
+		if (idx != -1) {
+			phis[i] = attackerToMove ? proofNumbers[idx] : disproofNumbers[idx];
+			deltas[i] = attackerToMove ? disproofNumbers[idx] : proofNumbers[idx];
+		} else if (phis[i] == 0 && deltas[i] == 0) {
+			phis[i] = 1;
+			deltas[i] = 1;
+		}
+	}
+
+	private static long key(Board board, int movesLeft) {
+		return board.getZobristKey() ^ MOVES_LEFT_KEYS[movesLeft];
+	}
+
+	/**
+	 * Returns the table index of the key, or -1 if it isn't in the table
+	 */
+	private int lookup(long key) {
+		int idx = (int) key & mask & ~1;
+		if (keys[idx] == key) {
+			return idx;
+		}
+		return keys[idx + 1] == key ? idx + 1 : -1;
+	}
+
+	private void store(long key, int proofNumber, int disproofNumber, int nodesSearched) {
+		int idx = lookup(key);
+		if (idx == -1) {
+			idx = (int) key & mask & ~1;
+			if (work[idx + 1] < work[idx]) {
+				++idx;
+			}
+		} else {
+			// Re-searches add up
+			nodesSearched = (int) Math.min(Integer.MAX_VALUE, (long) work[idx] + nodesSearched);
+		}
+		keys[idx] = key;
+		proofNumbers[idx] = proofNumber;
+		disproofNumbers[idx] = disproofNumber;
+		work[idx] = nodesSearched;
+	}
+}
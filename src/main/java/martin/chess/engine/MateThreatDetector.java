@@ -0,0 +1,136 @@
+package martin.chess.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds forced mates of a limited length.
+ *
+ * Only checking moves are tried for the attacker, and the defender's replies are the legal moves
+ * in check, i.e. the evasions. Checks are found without playing the moves, so only the few checking
+ * moves in a position ever reach full move generation. Mates starting with a quiet move are not found
+ * for N > 1, which is the usual trade-off for a threat detector.
+ *
+ * Results are kept in a small cache keyed by the Zobrist key of the position. Every cache entry is a
+ * single long, so the detector can be shared between threads without locking.
+ */
+public class MateThreatDetector {
+
+	private static final int CACHE_BITS = 16;
+
+	// Entry layout: key bits 63-6 | depth bits 5-2 | mate bit 1 | valid bit 0
+	private static final long KEY_MASK = ~0x3FL;
+	private static final int MAX_DEPTH = 15;
+
+	private final long[] cache = new long[1 << CACHE_BITS];
+
+	/**
+	 * Returns true if the side to move can force mate in at most n moves by giving check on every move.
+	 *
+	 * The board is used for searching and is restored afterwards.
+	 */
+	public boolean hasMate(Board board, int n) {
+		if (n <= 0) {
+			return false;
+		}
+		if (n > MAX_DEPTH) {
+			throw new IllegalArgumentException("Depth too large: " + n);
+		}
+
+		long key = board.getZobristKey();
+		int cacheIdx = (int) (key >>> (64 - CACHE_BITS));
+		long entry = cache[cacheIdx];
+		if ((entry & 1) != 0 && (entry & KEY_MASK) == (key & KEY_MASK) && ((entry >>> 2) & 0xF) == n) {
+			return (entry & 2) != 0;
+		}
+
+		Color attacker = board.getColorToMove();
+		boolean mate = false;
+
+		for (Move check : getCheckingMoves(board)) {
+			board.move(check);
+
+			GameResultData result = board.getResult();
+			if (result != null) {
+				mate = result.getWinner() == attacker;
+			} else if (n > 1) {
+				mate = isMatedAfterEveryEvasion(board, n - 1);
+			}
+
+			board.undoLastMove();
+			if (mate) {
+				break;
+			}
+		}
+
+		cache[cacheIdx] = (key & KEY_MASK) | (n << 2) | (mate ? 2 : 0) | 1;
+		return mate;
+	}
+
+	private boolean isMatedAfterEveryEvasion(Board board, int n) {
+		List<Move> evasions = board.getAvailableMoves();
+
+		for (Move evasion : evasions) {
+			board.move(evasion);
+			boolean mate = board.getResult() == null && hasMate(board, n);
+			board.undoLastMove();
+
+			if (!mate) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the available moves that give check
+	 */
+	public List<Move> getCheckingMoves(Board board) {
+		Color attacker = board.getColorToMove();
+		Color defender = attacker == Color.WHITE ? Color.BLACK : Color.WHITE;
+		int kingIdx = board.getCurrentState().getSideData(defender).kingIdx;
+		int enPassantIdx = board.getCurrentState().enPassantTargetIdx;
+
+		byte[] squares = board.getSquares().clone();
+		List<Move> checks = new ArrayList<>();
+
+		for (Move move : board.getAvailableMoves()) {
+			byte piece = squares[move.idxFrom];
+			byte captured = squares[move.idxTo];
+
+			// Play the move on the copy
+			int enPassantCaptureIdx = -1;
+			if (Piece.is(piece, PieceType.PAWN, attacker) && move.idxTo == enPassantIdx && captured == Piece.EMPTY) {
+				enPassantCaptureIdx = move.idxTo + (attacker == Color.WHITE ? -8 : 8);
+			}
+			byte enPassantCaptured = enPassantCaptureIdx == -1 ? Piece.EMPTY : squares[enPassantCaptureIdx];
+
+			squares[move.idxFrom] = Piece.EMPTY;
+			squares[move.idxTo] = move.queeningPiece == null ? piece : Piece.of(move.queeningPiece, attacker).code;
+			if (enPassantCaptureIdx != -1) {
+				squares[enPassantCaptureIdx] = Piece.EMPTY;
+			}
+			if (move.additionalIdxFrom != -1) {
+				squares[move.additionalIdxTo] = squares[move.additionalIdxFrom];
+				squares[move.additionalIdxFrom] = Piece.EMPTY;
+			}
+
+			if (Attacks.isAttacked(squares, kingIdx, attacker)) {
+				checks.add(move);
+			}
+
+			// And take it back
+			if (move.additionalIdxFrom != -1) {
+				squares[move.additionalIdxFrom] = squares[move.additionalIdxTo];
+				squares[move.additionalIdxTo] = Piece.EMPTY;
+			}
+			if (enPassantCaptureIdx != -1) {
+				squares[enPassantCaptureIdx] = enPassantCaptured;
+			}
+			squares[move.idxTo] = captured;
+			squares[move.idxFrom] = piece;
+		}
+
+		return checks;
+	}
+}
@@ -65,4 +65,22 @@ public class Move {
 	public int getIdxTo() {
 		return idxTo;
 	}
+	
+	/**
+	 * True if this is a castling move, in which the rook moves as well
+	 */
+	public boolean isCastling() {
+		return additionalIdxFrom != -1;
+	}
+	
+	/**
+	 * The square of the rook in a castling move, -1 otherwise
+	 */
+	public int getAdditionalIdxFrom() {
+		return additionalIdxFrom;
+	}
+	
+	public int getAdditionalIdxTo() {
+		return additionalIdxTo;
+	}
 }
@@ -1,24 +1,74 @@
 package martin.chess.engine;
 
-public class Piece {
+/**
+ * A piece of a color. There are only twelve instances, shared by all boards, so pieces can be
+ * compared by identity.
+ *
+ * On the board a piece is stored as a byte code: the type ordinal plus one, with BLACK_BIT set for
+ * black pieces. EMPTY is an empty square.
+ */
+public final class Piece {
 
-	PieceType type;
-	Color color;
-	
-	public Piece(PieceType type, Color color) {
+	public static final byte EMPTY = 0;
+	static final int BLACK_BIT = 8;
+
+	private static final Piece[] PIECES = new Piece[16];
+
+	static {
+		for (PieceType type : PieceType.values()) {
+			for (Color color : Color.values()) {
+				Piece piece = new Piece(type, color);
+				PIECES[piece.code] = piece;
+			}
+		}
+	}
+
+	final PieceType type;
+	final Color color;
+	final byte code;
+
+	private Piece(PieceType type, Color color) {
 		this.type = type;
 		this.color = color;
+		this.code = (byte) ((type.ordinal() + 1) | (color == Color.BLACK ? BLACK_BIT : 0));
+	}
+
+	public static Piece of(PieceType type, Color color) {
+		return PIECES[(type.ordinal() + 1) | (color == Color.BLACK ? BLACK_BIT : 0)];
+	}
+
+	/**
+	 * The piece with the given code, null for EMPTY
+	 */
+	public static Piece fromCode(byte code) {
+		return PIECES[code];
+	}
+
+	static byte codeOf(Piece piece) {
+		return piece == null ? EMPTY : piece.code;
+	}
+
+	static boolean isColor(byte code, Color color) {
+		return code != EMPTY && ((code & BLACK_BIT) != 0) == (color == Color.BLACK);
+	}
+
+	static boolean is(byte code, PieceType type, Color color) {
+		return code == ((type.ordinal() + 1) | (color == Color.BLACK ? BLACK_BIT : 0));
 	}
-	
+
+	public byte getCode() {
+		return code;
+	}
+
 	@Override
 	public String toString() {
 		return String.valueOf(type.getShortName(color));
 	}
-	
+
 	public Color getColor() {
 		return color;
 	}
-	
+
 	public PieceType getType() {
 		return type;
 	}
@@ -0,0 +1,81 @@
+package martin.chess.engine;
+
+import martin.chess.engine.state.BoardState;
+import martin.chess.engine.state.SideData;
+
+/**
+ * A snapshot of the attacks in a position, computed once per decision and shared by everyone 
+ * evaluating it. 
+ * 
+ * It is built from the attack data the board already computes when it generates moves, so no 
+ * additional move generation is needed. Square sets are 64-bit masks with bit n set for square index n.
+ */
+public class PositionAnalysis {
+
+	private final Color colorToMove;
+	
+	// Indexed by Color.ordinal()
+	private final long[] attacks = new long[2];
+	private final byte[][] attackerCounts = new byte[2][64];
+	
+	private final long pinnedPieces;
+	private final long checkers;
+	
+	public PositionAnalysis(Board board) {
+		BoardState state = board.getCurrentState();
+		colorToMove = state.colorToMove;
+		
+		for (Color color : Color.values()) {
+			SideData data = state.getSideData(color);
+			attacks[color.ordinal()] = data.attackedSquares;
+			for (long left = data.attackedSquares; left != 0; left &= left - 1) {
+				int idx = Long.numberOfTrailingZeros(left);
+				attackerCounts[color.ordinal()][idx] = (byte) Long.bitCount(data.attackersOf[idx]);
+			}
+		}
+		
+		pinnedPieces = state.pinnedPieces;
+		checkers = state.getSideData(colorToMove.getOpposite()).attackersOf[state.getSideData(colorToMove).kingIdx];
+	}
+	
+	public Color getColorToMove() {
+		return colorToMove;
+	}
+	
+	/**
+	 * The squares attacked by the given color, including squares occupied by its own pieces (i.e. defended)
+	 */
+	public long getAttacks(Color color) {
+		return attacks[color.ordinal()];
+	}
+	
+	public boolean isAttacked(int idx, Color by) {
+		return (attacks[by.ordinal()] & (1L << idx)) != 0;
+	}
+	
+	public int getAttackerCount(int idx, Color by) {
+		return attackerCounts[by.ordinal()][idx];
+	}
+	
+	/**
+	 * Pieces of either color that are pinned to their king
+	 */
+	public long getPinnedPieces() {
+		return pinnedPieces;
+	}
+	
+	public boolean isPinned(int idx) {
+		return (pinnedPieces & (1L << idx)) != 0;
+	}
+	
+	/**
+	 * The pieces giving check to the side to move
+	 */
+	public long getCheckers() {
+		return checkers;
+	}
+	
+	public boolean isInCheck() {
+		return checkers != 0;
+	}
+}
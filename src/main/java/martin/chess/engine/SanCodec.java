@@ -0,0 +1,334 @@
+package martin.chess.engine;
+
+import martin.chess.engine.state.BoardState;
+import martin.chess.engine.state.CastlingAbility;
+
+/**
+ * Converts between moves and standard algebraic notation (SAN), like "Nbd7", "exd6" or "O-O+".
+ *
+ * The available moves of the board are not used. The origin of a move is found by looking back from
+ * the target square for pieces of the right type, and only those pieces are checked for pins when a
+ * move needs disambiguation. The check and mate suffixes are only computed when asked for, and the
+ * move is only played on the board to tell a check from a mate.
+ */
+public final class SanCodec {
+
+	private static final String KING_SIDE = "O-O";
+	private static final String QUEEN_SIDE = "O-O-O";
+
+	private SanCodec() {
+	}
+
+	/**
+	 * Finds the legal move written in SAN, or returns null if there is no such move or the notation
+	 * is ambiguous. Check marks and annotations like "!?" are ignored, and castling may be written with
+	 * zeros.
+	 */
+	public static Move parse(Board board, CharSequence san) {
+		int end = san.length();
+		while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) != -1) {
+			--end;
+		}
+		if (end < 2) {
+			return null;
+		}
+
+		if (isCastling(san, end, KING_SIDE)) {
+			return getCastlingMove(board, true);
+		}
+		if (isCastling(san, end, QUEEN_SIDE)) {
+			return getCastlingMove(board, false);
+		}
+
+		// Promotion, as in "e8=Q" or "e8Q"
+		PieceType promotion = null;
+		char last = san.charAt(end - 1);
+		if ("QRBN".indexOf(last) != -1) {
+			promotion = PieceType.fromShortName(Character.toLowerCase(last));
+			end -= san.charAt(end - 2) == '=' ? 2 : 1;
+		}
+
+		int start = 0;
+		PieceType type = PieceType.PAWN;
+		if ("KQRBN".indexOf(san.charAt(0)) != -1) {
+			type = PieceType.fromShortName(Character.toLowerCase(san.charAt(0)));
+			start = 1;
+		}
+
+		// What is left is an optional origin file and rank, an optional capture and the target square
+		int fromFile = -1;
+		int fromRank = -1;
+		int to = -1;
+		for (int i = start; i < end; ++i) {
+			char c = san.charAt(i);
+			if (c >= 'a' && c <= 'h') {
+				if (i + 1 < end && san.charAt(i + 1) >= '1' && san.charAt(i + 1) <= '8') {
+					if (to != -1) {
+						fromFile = to % 8;
+						fromRank = to / 8;
+					}
+					to = (san.charAt(i + 1) - '1') * 8 + (c - 'a');
+					++i;
+				} else {
+					fromFile = c - 'a';
+				}
+			} else if (c >= '1' && c <= '8') {
+				fromRank = c - '1';
+			} else if (c != 'x' && c != '-' && c != ':') {
+				return null;
+			}
+		}
+		if (to == -1) {
+			return null;
+		}
+
+		byte[] squares = board.getSquares().clone();
+		if (type == PieceType.PAWN) {
+			return getPawnMove(board, squares, fromFile, fromRank, to, promotion);
+		}
+		if (promotion != null) {
+			return null;
+		}
+
+		Color color = board.getColorToMove();
+		if (Piece.isColor(squares[to], color)) {
+			return null;
+		}
+
+		int kingIdx = board.getCurrentState().getSideData(color).kingIdx;
+		int[] origins = new int[10];
+		int count = Attacks.findOrigins(squares, to, type, color, origins);
+
+		Move found = null;
+		for (int i = 0; i < count; ++i) {
+			int from = origins[i];
+			if ((fromFile != -1 && from % 8 != fromFile) || (fromRank != -1 && from / 8 != fromRank)) {
+				continue;
+			}
+			if (Attacks.leavesKingAttacked(squares, from, to, -1, kingIdx)) {
+				continue;
+			}
+			if (found != null) {
+				// Ambiguous
+				return null;
+			}
+			found = new Move(from, to);
+		}
+		return found;
+	}
+
+	private static boolean isCastling(CharSequence san, int end, String notation) {
+		if (end != notation.length()) {
+			return false;
+		}
+		for (int i = 0; i < end; ++i) {
+			char c = san.charAt(i);
+			char expected = notation.charAt(i);
+			if (c != expected && !(expected == 'O' && c == '0')) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Move getPawnMove(Board board, byte[] squares, int fromFile, int fromRank, int to, PieceType promotion) {
+		Color color = board.getColorToMove();
+		BoardState state = board.getCurrentState();
+		int forward = color == Color.WHITE ? 8 : -8;
+		int toRank = to / 8;
+
+		boolean lastRank = toRank == (color == Color.WHITE ? 7 : 0);
+		if (lastRank != (promotion != null) || promotion == PieceType.KING || promotion == PieceType.PAWN) {
+			return null;
+		}
+
+		int from;
+		int enPassantCaptureIdx = -1;
+		if (fromFile == -1 || fromFile == to % 8) {
+			// A push, one or two squares
+			if (squares[to] != Piece.EMPTY) {
+				return null;
+			}
+			from = to - forward;
+			if (from < 0 || from > 63) {
+				return null;
+			}
+			if (squares[from] == Piece.EMPTY && toRank == (color == Color.WHITE ? 3 : 4)) {
+				from -= forward;
+			}
+		} else {
+			// A capture
+			if (Math.abs(fromFile - to % 8) != 1) {
+				return null;
+			}
+			from = to - forward - to % 8 + fromFile;
+			if (from < 0 || from > 63) {
+				return null;
+			}
+			byte target = squares[to];
+			if (target == Piece.EMPTY) {
+				if (to != state.enPassantTargetIdx) {
+					return null;
+				}
+				enPassantCaptureIdx = to - forward;
+			} else if (Piece.isColor(target, color)) {
+				return null;
+			}
+		}
+
+		if (!Piece.is(squares[from], PieceType.PAWN, color) || (fromRank != -1 && from / 8 != fromRank)) {
+			return null;
+		}
+		if (Attacks.leavesKingAttacked(squares, from, to, enPassantCaptureIdx, state.getSideData(color).kingIdx)) {
+			return null;
+		}
+		return new Move(from, to, promotion);
+	}
+
+	/**
+	 * The castling move of the side to move, or null if it can't castle that way
+	 */
+	private static Move getCastlingMove(Board board, boolean kingSide) {
+		Color color = board.getColorToMove();
+		BoardState state = board.getCurrentState();
+		CastlingAbility castling = state.getSideData(color).castling;
+		if (kingSide ? !castling.canCastleKingSide : !castling.canCastleQueenSide) {
+			return null;
+		}
+
+		byte[] squares = board.getSquares();
+		int kingIdx = state.getSideData(color).kingIdx;
+		int rookIdx = kingIdx - kingIdx % 8 + (kingSide ? 7 : 0);
+		if (!Piece.is(squares[rookIdx], PieceType.ROOK, color)) {
+			return null;
+		}
+
+		// The squares between king and rook must be empty, and the king can't pass an attacked square
+		int step = kingSide ? 1 : -1;
+		for (int idx = kingIdx + step; idx != rookIdx; idx += step) {
+			if (squares[idx] != Piece.EMPTY) {
+				return null;
+			}
+		}
+		Color opponent = color == Color.WHITE ? Color.BLACK : Color.WHITE;
+		for (int i = 0; i <= 2; ++i) {
+			if (Attacks.isAttacked(squares, kingIdx + i * step, opponent)) {
+				return null;
+			}
+		}
+
+		Move move = new Move(kingIdx, kingIdx + 2 * step);
+		move.additionalIdxFrom = rookIdx;
+		move.additionalIdxTo = kingIdx + step;
+		return move;
+	}
+
+	/**
+	 * Formats a legal move in SAN, with a check or mate suffix
+	 */
+	public static String format(Board board, Move move) {
+		return format(board, move, true);
+	}
+
+	/**
+	 * Formats a legal move in SAN. For the suffix the move is played on the board and taken back if it
+	 * gives check, the board is otherwise left untouched.
+	 */
+	public static String format(Board board, Move move, boolean withSuffix) {
+		StringBuilder sb = new StringBuilder(8);
+		byte[] squares = board.getSquares().clone();
+		Piece piece = Piece.fromCode(squares[move.idxFrom]);
+		int from = move.idxFrom;
+		int to = move.idxTo;
+
+		if (move.isCastling()) {
+			sb.append(to % 8 > from % 8 ? KING_SIDE : QUEEN_SIDE);
+		} else {
+			boolean capture = squares[to] != Piece.EMPTY || (piece.type == PieceType.PAWN && from % 8 != to % 8);
+
+			if (piece.type == PieceType.PAWN) {
+				if (capture) {
+					sb.append((char) ('a' + from % 8));
+				}
+			} else {
+				sb.append(Character.toUpperCase(piece.type.getShortName(piece.color)));
+				appendDisambiguation(board, squares, piece, from, to, sb);
+			}
+
+			if (capture) {
+				sb.append('x');
+			}
+			sb.append((char) ('a' + to % 8)).append((char) ('1' + to / 8));
+
+			if (move.queeningPiece != null) {
+				sb.append('=').append(Character.toUpperCase(move.queeningPiece.getShortName(piece.color)));
+			}
+		}
+
+		if (withSuffix && givesCheck(board, squares, move)) {
+			board.move(move);
+			GameResultData result = board.getResult();
+			sb.append(result != null && result.getWinner() != null ? '#' : '+');
+			board.undoLastMove();
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Adds the file, the rank or both of the origin if another piece of the same type can move to the target square
+	 */
+	private static void appendDisambiguation(Board board, byte[] squares, Piece piece, int from, int to, StringBuilder sb) {
+		if (piece.type == PieceType.KING) {
+			return;
+		}
+
+		int kingIdx = board.getCurrentState().getSideData(piece.color).kingIdx;
+		int[] origins = new int[10];
+		int count = Attacks.findOrigins(squares, to, piece.type, piece.color, origins);
+
+		boolean ambiguous = false;
+		boolean sameFile = false;
+		boolean sameRank = false;
+		for (int i = 0; i < count; ++i) {
+			int other = origins[i];
+			if (other == from || Attacks.leavesKingAttacked(squares, other, to, -1, kingIdx)) {
+				continue;
+			}
+			ambiguous = true;
+			sameFile |= other % 8 == from % 8;
+			sameRank |= other / 8 == from / 8;
+		}
+
+		if (!ambiguous) {
+			return;
+		}
+		if (!sameFile) {
+			sb.append((char) ('a' + from % 8));
+		} else if (!sameRank) {
+			sb.append((char) ('1' + from / 8));
+		} else {
+			sb.append((char) ('a' + from % 8)).append((char) ('1' + from / 8));
+		}
+	}
+
+	/**
+	 * Plays the move on the copy of the squares and tests whether the opponent's king is attacked
+	 */
+	private static boolean givesCheck(Board board, byte[] squares, Move move) {
+		Piece piece = Piece.fromCode(squares[move.idxFrom]);
+		Color opponent = piece.color == Color.WHITE ? Color.BLACK : Color.WHITE;
+
+		if (piece.type == PieceType.PAWN && squares[move.idxTo] == Piece.EMPTY && move.idxFrom % 8 != move.idxTo % 8) {
+			// En passant
+			squares[move.idxFrom - move.idxFrom % 8 + move.idxTo % 8] = Piece.EMPTY;
+		}
+		squares[move.idxFrom] = Piece.EMPTY;
+		squares[move.idxTo] = (move.queeningPiece == null ? piece : Piece.of(move.queeningPiece, piece.color)).code;
+		if (move.additionalIdxFrom != -1) {
+			squares[move.additionalIdxTo] = squares[move.additionalIdxFrom];
+			squares[move.additionalIdxFrom] = Piece.EMPTY;
+		}
+
+		return Attacks.isAttacked(squares, board.getCurrentState().getSideData(opponent).kingIdx, piece.color);
+	}
+}
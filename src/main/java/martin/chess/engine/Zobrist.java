@@ -0,0 +1,205 @@
+package martin.chess.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import martin.chess.engine.state.BoardState;
+import martin.chess.engine.state.CastlingAbility;
+
+/**
+ * Zobrist hashing of positions.
+ * 
+ * The table has 768 piece-square keys, 4 castling keys, 8 en passant file keys and one key for white 
+ * to move. The en passant file is only hashed if a pawn of the side to move stands ready to capture.
+ * 
+ * The numbers come from a fixed seed, unless the Random64 array of the Polyglot book format is on the 
+ * class path, see POLYGLOT_RANDOM_RESOURCE. Only then are the keys Polyglot keys, see 
+ * isPolyglotCompatible(). The array is checked against the reference key of the starting position 
+ * when loaded.
+ */
+public final class Zobrist {
+
+	private static final int CASTLING_OFFSET = 768;
+	private static final int EN_PASSANT_OFFSET = 772;
+	private static final int TURN_OFFSET = 780;
+	
+	/**
+	 * The 781 numbers of the Random64 array from the Polyglot book format description, written as 
+	 * 0x-prefixed hex numbers in any layout, so the array can be pasted from the C source as it is. 
+	 * Loaded next to this class, from src/main/resources/martin/chess/engine.
+	 */
+	public static final String POLYGLOT_RANDOM_RESOURCE = "polyglot-random64.txt";
+	
+	// The key of the starting position with the official table, from the book format description
+	static final long POLYGLOT_START_KEY = 0x463B96181691FC9CL;
+	
+	static final long[] RANDOM = new long[781];
+	
+	private static final boolean POLYGLOT_COMPATIBLE = loadPolyglotTable();
+	
+	static {
+		if (!POLYGLOT_COMPATIBLE) {
+			SplittableRandom random = new SplittableRandom(0x5EED_C0FFEEL);
+			for (int i = 0; i < RANDOM.length; ++i) {
+				RANDOM[i] = random.nextLong();
+			}
+		}
+	}
+	
+	private static boolean loadPolyglotTable() {
+		InputStream in = Zobrist.class.getResourceAsStream(POLYGLOT_RANDOM_RESOURCE);
+		if (in == null) {
+			return false;
+		}
+		
+		String text;
+		try (in) {
+			text = new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read " + POLYGLOT_RANDOM_RESOURCE, e);
+		}
+		
+		Matcher matcher = Pattern.compile("0[xX]([0-9A-Fa-f]{1,16})").matcher(text);
+		int count = 0;
+		while (matcher.find()) {
+			if (count == RANDOM.length) {
+				throw new IllegalStateException("More than " + RANDOM.length + " numbers in " + POLYGLOT_RANDOM_RESOURCE);
+			}
+			RANDOM[count++] = Long.parseUnsignedLong(matcher.group(1), 16);
+		}
+		if (count != RANDOM.length) {
+			throw new IllegalStateException("Expected " + RANDOM.length + " numbers in " + POLYGLOT_RANDOM_RESOURCE + ", found " + count);
+		}
+		if (computeStartKey() != POLYGLOT_START_KEY) {
+			throw new IllegalStateException(POLYGLOT_RANDOM_RESOURCE + " is not the Polyglot Random64 array, the starting position key doesn't match");
+		}
+		return true;
+	}
+	
+	/**
+	 * The key of the starting position, computed without a Board since the table is still being set up
+	 */
+	private static long computeStartKey() {
+		PieceType[] backRank = { PieceType.ROOK, PieceType.KNIGHT, PieceType.BISHOP, PieceType.QUEEN, 
+				PieceType.KING, PieceType.BISHOP, PieceType.KNIGHT, PieceType.ROOK };
+		long key = 0;
+		for (int file = 0; file < 8; ++file) {
+			key ^= pieceKey(backRank[file], Color.WHITE, file);
+			key ^= pieceKey(PieceType.PAWN, Color.WHITE, 8 + file);
+			key ^= pieceKey(PieceType.PAWN, Color.BLACK, 48 + file);
+			key ^= pieceKey(backRank[file], Color.BLACK, 56 + file);
+		}
+		return key ^ castlingKey(Color.WHITE, true, true) ^ castlingKey(Color.BLACK, true, true) ^ turnKey();
+	}
+	
+	/**
+	 * True if the official table was loaded, and the keys are compatible with opening books made by 
+	 * other Polyglot tools
+	 */
+	public static boolean isPolyglotCompatible() {
+		return POLYGLOT_COMPATIBLE;
+	}
+	
+	private Zobrist() {
+	}
+
+	/**
+	 * The Polyglot piece kind: black pawn = 0, white pawn = 1, black knight = 2, ... white king = 11 
+	 */
+	static int getKind(PieceType type, Color color) {
+		int typeIdx;
+		switch (type) {
+			case PAWN:		typeIdx = 0; break;
+			case KNIGHT:	typeIdx = 1; break;
+			case BISHOP:	typeIdx = 2; break;
+			case ROOK:		typeIdx = 3; break;
+			case QUEEN:		typeIdx = 4; break;
+			case KING:		typeIdx = 5; break;
+			default: throw new IllegalArgumentException("Unknown type");
+		}
+		return typeIdx * 2 + (color == Color.WHITE ? 1 : 0);
+	}
+	
+	static long pieceKey(Piece piece, int idx) {
+		return pieceKey(piece.type, piece.color, idx);
+	}
+	
+	static long pieceKey(PieceType type, Color color, int idx) {
+		return RANDOM[64 * getKind(type, color) + idx];
+	}
+	
+	static long turnKey() {
+		return RANDOM[TURN_OFFSET];
+	}
+	
+	static long castlingKey(BoardState state) {
+		CastlingAbility white = state.whiteData.castling;
+		CastlingAbility black = state.blackData.castling;
+		
+		return castlingKey(Color.WHITE, white.canCastleKingSide, white.canCastleQueenSide) ^ 
+				castlingKey(Color.BLACK, black.canCastleKingSide, black.canCastleQueenSide);
+	}
+	
+	static long castlingKey(Color color, boolean kingSide, boolean queenSide) {
+		int offset = CASTLING_OFFSET + (color == Color.WHITE ? 0 : 2);
+		long key = 0;
+		
+		if (kingSide) key ^= RANDOM[offset];
+		if (queenSide) key ^= RANDOM[offset + 1];
+		
+		return key;
+	}
+	
+	static long enPassantKey(int file) {
+		return RANDOM[EN_PASSANT_OFFSET + file];
+	}
+	
+	/**
+	 * The en passant part of the key, which is not maintained incrementally
+	 */
+	static long enPassantKey(Board board) {
+		BoardState state = board.getCurrentState();
+		if (state.enPassantTargetIdx == -1) {
+			return 0;
+		}
+		
+		int file = state.enPassantTargetIdx % 8;
+		int pawnRank = state.colorToMove == Color.WHITE ? 4 : 3;
+		
+		for (int captureFile = file - 1; captureFile <= file + 1; captureFile += 2) {
+			if (captureFile < 0 || captureFile > 7) {
+				continue;
+			}
+			Piece piece = board.pieceAt(pawnRank, captureFile);
+			if (piece != null && piece.getType() == PieceType.PAWN && piece.getColor() == state.colorToMove) {
+				return enPassantKey(file);
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * Computes the key from scratch, without the en passant part
+	 */
+	static long computeBaseKey(Board board) {
+		long key = 0;
+		for (int idx = 0; idx < 64; ++idx) {
+			Piece piece = board.pieceAt(idx);
+			if (piece != null) {
+				key ^= pieceKey(piece, idx);
+			}
+		}
+		
+		BoardState state = board.getCurrentState();
+		key ^= castlingKey(state);
+		if (state.colorToMove == Color.WHITE) {
+			key ^= turnKey();
+		}
+		return key;
+	}
+}
@@ -1,22 +1,32 @@
 package martin.chess.engine.state;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
 import martin.chess.engine.Color;
 import martin.chess.engine.GameResultData;
 import martin.chess.engine.Piece;
 
 public class BoardState {
+	
+	// A king can have at most one pin in each of its 8 directions
+	public static final int MAX_PINS = 16;
+	
 	public Color colorToMove;
 	public int enPassantTargetIdx = -1;
 	public SideData blackData;
 	public SideData whiteData;
-	public Map<Integer, List<List<Integer>>> pinnedPieces = new HashMap<>();
+	
+	// Pieces of either color that are pinned to their king, and for each pin the squares the pinned
+	// piece may still move to. A piece can be pinned from more than one direction.
+	public long pinnedPieces;
+	public int numPins;
+	public final byte[] pinnedIdx = new byte[MAX_PINS];
+	public final long[] pinRays = new long[MAX_PINS];
+	
 	public int halfMoveClock;
 	public int moveNumber;
 	public GameResultData result;
+	
+	// Zobrist key of everything but the en passant square, see Board.getZobristKey
+	public long baseKey;
 
 	public BoardState() {
 		 blackData = new SideData();
@@ -29,20 +39,55 @@ public class BoardState {
 		this.moveNumber = from.moveNumber;
 		this.enPassantTargetIdx = from.enPassantTargetIdx;
 		
+		this.pinnedPieces = from.pinnedPieces;
+		this.numPins = from.numPins;
+		System.arraycopy(from.pinnedIdx, 0, pinnedIdx, 0, numPins);
+		System.arraycopy(from.pinRays, 0, pinRays, 0, numPins);
+		
 		this.blackData = new SideData(from.blackData);
 		this.whiteData = new SideData(from.whiteData);
 		this.result = from.result;
+		this.baseKey = from.baseKey;
+	}
+	
+	public void clearPins() {
+		pinnedPieces = 0;
+		numPins = 0;
+	}
+	
+	public void addPin(int idx, long ray) {
+		pinnedPieces |= 1L << idx;
+		pinnedIdx[numPins] = (byte) idx;
+		pinRays[numPins] = ray;
+		numPins++;
+	}
+	
+	/**
+	 * The squares a piece may move to without exposing its king, -1 (all squares) if it isn't pinned
+	 */
+	public long getPinRay(int idx) {
+		if ((pinnedPieces & (1L << idx)) == 0) {
+			return -1L;
+		}
+		long ray = -1L;
+		for (int i = 0; i < numPins; ++i) {
+			if (pinnedIdx[i] == idx) {
+				ray &= pinRays[i];
+			}
+		}
+		return ray;
 	}
 	
 	public SideData getSideData(Color color) {
 		return color == Color.WHITE ? whiteData : blackData;
 	}
 
-	public void updatePieceValues(Piece[] board) {
+	public void updatePieceValues(byte[] squares) {
 		int pieceValueBlack = 0;
 		int pieceValueWhite = 0;
 		
-		for (Piece piece : board) {
+		for (byte code : squares) {
+			Piece piece = Piece.fromCode(code);
 			if (piece == null) {
 				continue;
 			}
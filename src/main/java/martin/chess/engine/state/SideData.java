@@ -1,22 +1,30 @@
 package martin.chess.engine.state;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import martin.chess.engine.Algebraic;
 
 /**
- * Represents data specific for each side
+ * Represents data specific for each side.
+ * 
+ * Square sets are 64-bit masks with bit n set for square index n.
  */
 public class SideData {
 	public boolean inCheck;
 	public int kingIdx;
-	public List<Set<Integer>> attackingPathsToMyKing;
-	public Map<Integer, Set<Integer>> squaresAttackedByMe;
+	
+	// The squares attacked by this side, including squares of its own pieces (i.e. defended)
+	public long attackedSquares;
+	
+	// For every square, the squares of the pieces of this side that attack it
+	public final long[] attackersOf = new long[64];
+	
+	// The lines of check to this side's king: how many there are, and the squares that lie on all of them.
+	// A knight or pawn check has no squares, so it can't be blocked.
+	public int numPathsToMyKing;
+	public long pathsToMyKing;
+	
 	public CastlingAbility castling;
 	public int pieceValue;
 	
@@ -27,20 +35,47 @@ public class SideData {
 	
 	SideData(SideData from) {
 		inCheck = from.inCheck;
-		attackingPathsToMyKing = new ArrayList<>(from.attackingPathsToMyKing);
-		squaresAttackedByMe = new HashMap<>(from.squaresAttackedByMe);
+		attackedSquares = from.attackedSquares;
+		System.arraycopy(from.attackersOf, 0, attackersOf, 0, attackersOf.length);
+		numPathsToMyKing = from.numPathsToMyKing;
+		pathsToMyKing = from.pathsToMyKing;
 		castling = new CastlingAbility(from.castling);
 		kingIdx = from.kingIdx;
 		pieceValue = from.pieceValue;
 	}
 	
 	public void clear() {
-		attackingPathsToMyKing = new ArrayList<>(24);
-		squaresAttackedByMe = new HashMap<>(128);
+		// Only the attacked squares have attackers
+		for (long squares = attackedSquares; squares != 0; squares &= squares - 1) {
+			attackersOf[Long.numberOfTrailingZeros(squares)] = 0;
+		}
+		attackedSquares = 0;
+		numPathsToMyKing = 0;
+		pathsToMyKing = -1L;
 		inCheck = false;
 	}
+	
+	/**
+	 * Records that the piece on one square attacks another square
+	 */
+	public void addAttack(int fromIdx, int toIdx) {
+		attackersOf[toIdx] |= 1L << fromIdx;
+		attackedSquares |= 1L << toIdx;
+	}
+	
+	/**
+	 * Records a line of check to the king, from the square next to the attacker up to the king, both exclusive
+	 */
+	public void addPathToMyKing(long path) {
+		numPathsToMyKing++;
+		pathsToMyKing &= path;
+	}
+	
+	public boolean isAttacking(int idx) {
+		return (attackedSquares & (1L << idx)) != 0;
+	}
 
 	public String getAttackedSquares() {
-		return squaresAttackedByMe.entrySet().stream().map(i -> Algebraic.toAlgebraic(i.getKey())).collect(Collectors.joining(","));
+		return IntStream.range(0, 64).filter(this::isAttacking).mapToObj(Algebraic::toAlgebraic).collect(Collectors.joining(","));
 	}
 }
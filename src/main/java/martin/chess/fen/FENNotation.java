@@ -1,6 +1,5 @@
 package martin.chess.fen;
 
-import martin.chess.engine.Algebraic;
 import martin.chess.engine.Board;
 import martin.chess.engine.Color;
 import martin.chess.engine.Piece;
@@ -11,177 +10,269 @@ import martin.chess.engine.state.CastlingAbility;
 /**
  * https://en.wikipedia.org/wiki/Forsyth%E2%80%93Edwards_Notation
  *
+ * Parsing reads the characters in place, without splitting the string or parsing numbers from
+ * substrings. Writing goes to a char array, so a caller can reuse its own buffer.
  */
 public class FENNotation {
 
 	private static final int BOARD_SIZE = 8;
-	
-	public static void initialize(Board theBoard, String fenString) {
-		Piece[] board = theBoard.getBoard();
-		BoardState currentState = theBoard.getCurrentState();
-		
-		for (Piece piece : board) {
-			if (piece != null) {
+
+	/**
+	 * Enough for any FEN: 64 pieces and 7 slashes, the side to move, castling, en passant and two counters
+	 */
+	public static final int MAX_LENGTH = 128;
+
+	private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[MAX_LENGTH]);
+
+	public static void initialize(Board theBoard, CharSequence fenString) {
+		for (byte code : theBoard.getSquares()) {
+			if (code != Piece.EMPTY) {
 				throw new IllegalArgumentException("Board has already been initialized");
 			}
 		}
-		
+
+		parse(fenString, theBoard.getSquares(), theBoard.getCurrentState());
+	}
+
+	/**
+	 * Parses a FEN into the squares, as piece codes, and the state, overwriting what was there before.
+	 *
+	 * The move counters are optional, as in EPD, and anything after them is ignored.
+	 */
+	public static void parse(CharSequence fen, byte[] board, BoardState state) {
+		int length = fen.length();
 		int rank = 7;
 		int file = 0;
-		
+
 		int i = 0;
-		char c;
-		for (; i < fenString.length(); ++i) {
-			
-			c = fenString.charAt(i);
+		for (; i < length; ++i) {
+			char c = fen.charAt(i);
 			if (c == ' ') {
 				break;
 			}
-			
+
 			if (c == '/') {
+				if (file != BOARD_SIZE || rank == 0) {
+					throw new IllegalArgumentException("Bad rank " + (rank + 1) + " in " + fen);
+				}
 				rank--;
 				file = 0;
 				continue;
 			}
-			
-			if (Character.isDigit(c)) {
-				file += Character.digit(c, 10);
-				continue;
+
+			int squares = c >= '1' && c <= '8' ? c - '0' : 1;
+			if (file + squares > BOARD_SIZE) {
+				throw new IllegalArgumentException("Bad rank " + (rank + 1) + " in " + fen);
 			}
-			
-			if (Character.isAlphabetic(c)) {
-				Color color = Character.isUpperCase(c) ? Color.WHITE : Color.BLACK;
-				PieceType type= null;
-				
-				switch (Character.toUpperCase(c)) {
-					case 'P': type = PieceType.PAWN; break;
-					case 'R': type = PieceType.ROOK; break;
-					case 'N': type = PieceType.KNIGHT; break;
-					case 'B': type = PieceType.BISHOP; break;
-					case 'Q': type = PieceType.QUEEN; break;
-					case 'K': type = PieceType.KING; break;
-					default: throw new IllegalArgumentException(("Invalid piece: " + c));
+
+			if (squares == 1 && c != '1') {
+				board[getArrayIdx(rank, file++)] = createPiece(c).getCode();
+			} else {
+				for (; squares > 0; --squares) {
+					board[getArrayIdx(rank, file++)] = Piece.EMPTY;
 				}
-				
-				board[getArrayIdx(rank, file)] = new Piece(type, color);
-				file++;
 			}
 		}
-		
-		i++;
-		
+		if (rank != 0 || file != BOARD_SIZE) {
+			throw new IllegalArgumentException("Incomplete board in " + fen);
+		}
+
 		// To move
-		currentState.colorToMove = fenString.charAt(i) == 'w' ? Color.WHITE : Color.BLACK;
-		i+=2;
-		
+		i = skipSpace(fen, i);
+		state.colorToMove = fen.charAt(i) == 'w' ? Color.WHITE : Color.BLACK;
+		i = skipSpace(fen, i + 1);
+
 		// Castling availability
-		if (fenString.charAt(i) != '-') {
-			while (fenString.charAt(i) != ' ') {
-				CastlingAbility ca = Character.isUpperCase(fenString.charAt(i)) ? currentState.whiteData.castling : currentState.blackData.castling;
-				c = Character.toUpperCase(fenString.charAt(i));
-				if (c == 'K') {
-					ca.canCastleKingSide = true;
-				} else if (c == 'Q') {
-					ca.canCastleQueenSide = true;
-				} else {
-					throw new IllegalArgumentException("Bad castling character: " + c);
+		CastlingAbility white = state.whiteData.castling;
+		CastlingAbility black = state.blackData.castling;
+		white.canCastleKingSide = white.canCastleQueenSide = black.canCastleKingSide = black.canCastleQueenSide = false;
+
+		if (fen.charAt(i) == '-') {
+			i++;
+		} else {
+			for (; i < length && fen.charAt(i) != ' '; ++i) {
+				char c = fen.charAt(i);
+				switch (c) {
+					case 'K': white.canCastleKingSide = true; break;
+					case 'Q': white.canCastleQueenSide = true; break;
+					case 'k': black.canCastleKingSide = true; break;
+					case 'q': black.canCastleQueenSide = true; break;
+					default: throw new IllegalArgumentException("Bad castling character: " + c);
 				}
-				i++;
 			}
+		}
+
+		// En passant square
+		i = skipSpace(fen, i);
+		if (fen.charAt(i) == '-') {
+			state.enPassantTargetIdx = -1;
+			i++;
 		} else {
+			state.enPassantTargetIdx = getArrayIdx(fen.charAt(i + 1) - '1', fen.charAt(i) - 'a');
+			i += 2;
+		}
+
+		// Half-move clock and full move number, if present
+		state.halfMoveClock = 0;
+		state.moveNumber = 1;
+
+		i = skipSpaces(fen, i);
+		if (i < length && isDigit(fen.charAt(i))) {
+			int value = 0;
+			for (; i < length && isDigit(fen.charAt(i)); ++i) {
+				value = value * 10 + fen.charAt(i) - '0';
+			}
+			state.halfMoveClock = value;
+
+			i = skipSpaces(fen, i);
+			value = 0;
+			for (; i < length && isDigit(fen.charAt(i)); ++i) {
+				value = value * 10 + fen.charAt(i) - '0';
+			}
+			state.moveNumber = value;
+		}
+	}
+
+	private static Piece createPiece(char c) {
+		Color color = c < 'a' ? Color.WHITE : Color.BLACK;
+
+		switch (c) {
+			case 'P': case 'p':	return Piece.of(PieceType.PAWN, color);
+			case 'R': case 'r':	return Piece.of(PieceType.ROOK, color);
+			case 'N': case 'n':	return Piece.of(PieceType.KNIGHT, color);
+			case 'B': case 'b':	return Piece.of(PieceType.BISHOP, color);
+			case 'Q': case 'q':	return Piece.of(PieceType.QUEEN, color);
+			case 'K': case 'k':	return Piece.of(PieceType.KING, color);
+			default: throw new IllegalArgumentException("Invalid piece: " + c);
+		}
+	}
+
+	/**
+	 * Skips the single space separating two fields
+	 */
+	private static int skipSpace(CharSequence fen, int i) {
+		if (i >= fen.length() || fen.charAt(i) != ' ' || i + 1 >= fen.length()) {
+			throw new IllegalArgumentException("Missing field in " + fen);
+		}
+		return i + 1;
+	}
+
+	private static int skipSpaces(CharSequence fen, int i) {
+		while (i < fen.length() && fen.charAt(i) == ' ') {
 			i++;
 		}
-		
-		// En passant square
-		i++;
-		if (fenString.charAt(i) != '-') {
-			currentState.enPassantTargetIdx = Algebraic.fromAlgebraic(fenString, i);
-			i += 1;
-		}
-		
-		i+=2;
-
-		// Half-move clock
-		int nextSpace = fenString.indexOf(' ', i);
-		currentState.halfMoveClock = Integer.parseInt(fenString.substring(i,  nextSpace));
-		
-		i = nextSpace + 1;
-		
-		//Full move number
-		currentState.moveNumber = Integer.parseInt(fenString.substring(i).trim());
+		return i;
+	}
 
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
 	}
-	
+
 	public static String toString(Board board) {
 		return toString(board, true);
 	}
-	
+
 	public static String toString(Board board, boolean includeMoveCounters) {
-		Piece[] pieces = board.getBoard();
+		char[] buffer = BUFFER.get();
+		int length = write(board, includeMoveCounters, buffer, 0);
+		return new String(buffer, 0, length);
+	}
+
+	/**
+	 * Appends the FEN of the board to a builder
+	 */
+	public static StringBuilder appendTo(Board board, boolean includeMoveCounters, StringBuilder sb) {
+		char[] buffer = BUFFER.get();
+		int length = write(board, includeMoveCounters, buffer, 0);
+		return sb.append(buffer, 0, length);
+	}
+
+	/**
+	 * Writes the FEN of the board to a buffer, which needs room for MAX_LENGTH characters from the offset.
+	 * Returns the offset after the last character written.
+	 */
+	public static int write(Board board, boolean includeMoveCounters, char[] buffer, int offset) {
+		byte[] squares = board.getSquares();
 		BoardState state = board.getCurrentState();
-		
-		StringBuilder sb = new StringBuilder();
-		
+		int i = offset;
+
 		for (int rank = BOARD_SIZE - 1; rank >= 0; --rank) {
-			
-			int file = 0;
-			while (true) {
-			
-				int empty = 0;
-				while (file < BOARD_SIZE && pieces[getArrayIdx(rank, file)] == null) {
-					file++;
+			int empty = 0;
+			for (int file = 0; file < BOARD_SIZE; ++file) {
+				Piece piece = Piece.fromCode(squares[getArrayIdx(rank, file)]);
+				if (piece == null) {
 					empty++;
+					continue;
 				}
 				if (empty > 0) {
-					sb.append(empty);
+					buffer[i++] = (char) ('0' + empty);
+					empty = 0;
 				}
-				
-				if (file >= BOARD_SIZE) {
-					break;
-				}
-				Piece piece = pieces[getArrayIdx(rank, file)];
-				sb.append(piece.toString());
-				file++;
+				buffer[i++] = piece.getType().getShortName(piece.getColor());
+			}
+			if (empty > 0) {
+				buffer[i++] = (char) ('0' + empty);
 			}
-			
+
 			if (rank > 0) {
-				sb.append("/");
+				buffer[i++] = '/';
 			}
 		}
-		
-		sb.append(" ").append(state.colorToMove == Color.WHITE ? "w" : "b").append(" ");
-		
+
+		buffer[i++] = ' ';
+		buffer[i++] = state.colorToMove == Color.WHITE ? 'w' : 'b';
+		buffer[i++] = ' ';
+
 		CastlingAbility whiteCA = state.getSideData(Color.WHITE).castling;
 		CastlingAbility blackCA = state.getSideData(Color.BLACK).castling;
-		
-		StringBuilder castlingString = new StringBuilder();
+
+		int castlingStart = i;
 		if (whiteCA.canCastleKingSide) {
-			castlingString.append(PieceType.KING.getShortName(Color.WHITE));
+			buffer[i++] = 'K';
 		}
 		if (whiteCA.canCastleQueenSide) {
-			castlingString.append(PieceType.QUEEN.getShortName(Color.WHITE));
+			buffer[i++] = 'Q';
 		}
 		if (blackCA.canCastleKingSide) {
-			castlingString.append(PieceType.KING.getShortName(Color.BLACK));
+			buffer[i++] = 'k';
 		}
 		if (blackCA.canCastleQueenSide) {
-			castlingString.append(PieceType.QUEEN.getShortName(Color.BLACK));
+			buffer[i++] = 'q';
 		}
-		sb.append(castlingString.length() > 0 ? castlingString.toString() : "-").append(" ");
-		
+		if (i == castlingStart) {
+			buffer[i++] = '-';
+		}
+		buffer[i++] = ' ';
+
 		if (state.enPassantTargetIdx != -1) {
-			sb.append(Algebraic.toAlgebraic(state.enPassantTargetIdx));	
+			buffer[i++] = (char) ('a' + state.enPassantTargetIdx % 8);
+			buffer[i++] = (char) ('1' + state.enPassantTargetIdx / 8);
 		} else {
-			sb.append("-");
+			buffer[i++] = '-';
 		}
-		
+
 		if (includeMoveCounters) {
-			sb.append(" ").append(state.halfMoveClock).append(" ").append(state.moveNumber);
+			buffer[i++] = ' ';
+			i = writeNumber(state.halfMoveClock, buffer, i);
+			buffer[i++] = ' ';
+			i = writeNumber(state.moveNumber, buffer, i);
 		}
-		
-		return sb.toString();
+
+		return i;
 	}
-	
+
+	private static int writeNumber(int value, char[] buffer, int offset) {
+		int digits = 1;
+		for (int v = value / 10; v > 0; v /= 10) {
+			digits++;
+		}
+		for (int i = offset + digits - 1; i >= offset; --i) {
+			buffer[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+		return offset + digits;
+	}
+
 	private static int getArrayIdx(int rank, int file) {
 		return rank * 8 + file;
 	}
@@ -0,0 +1,121 @@
+package martin.chess.pgn;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Color;
+import martin.chess.engine.GameResultData;
+import martin.chess.engine.Move;
+
+/**
+ * A game record: tag pairs, the moves and the result
+ */
+public class PgnGame {
+
+	public static final String WHITE_WINS = "1-0";
+	public static final String BLACK_WINS = "0-1";
+	public static final String DRAW = "1/2-1/2";
+	public static final String UNKNOWN = "*";
+
+	private Map<String, String> tags = new LinkedHashMap<>();
+	private List<Move> moves = new ArrayList<>();
+	private String result = UNKNOWN;
+
+	public PgnGame() {
+	}
+
+	/**
+	 * A record of the game played on the board so far
+	 */
+	public static PgnGame fromBoard(Board board) {
+		PgnGame game = new PgnGame();
+		if (!board.getStartingState().equals(Board.INITIAL_STATE)) {
+			game.setStartingState(board.getStartingState());
+		}
+		game.moves.addAll(board.getMoveHistory());
+		game.setResult(toResult(board.getResult()));
+		return game;
+	}
+
+	public static String toResult(GameResultData result) {
+		if (result == null) {
+			return UNKNOWN;
+		}
+		if (result.getWinner() == null) {
+			return DRAW;
+		}
+		return result.getWinner() == Color.WHITE ? WHITE_WINS : BLACK_WINS;
+	}
+
+	public String getTag(String name) {
+		return tags.get(name);
+	}
+
+	public void setTag(String name, String value) {
+		tags.put(name, value);
+	}
+
+	/**
+	 * The tags in the order they were read or set
+	 */
+	public Map<String, String> getTags() {
+		return tags;
+	}
+
+	/**
+	 * The FEN of the starting position, taken from the FEN tag
+	 */
+	public String getStartingState() {
+		String fen = tags.get("FEN");
+		return fen == null ? Board.INITIAL_STATE : fen;
+	}
+
+	public void setStartingState(String fen) {
+		tags.put("SetUp", "1");
+		tags.put("FEN", fen);
+	}
+
+	public List<Move> getMoves() {
+		return moves;
+	}
+
+	/**
+	 * One of WHITE_WINS, BLACK_WINS, DRAW or UNKNOWN
+	 */
+	public String getResult() {
+		return result;
+	}
+
+	public void setResult(String result) {
+		this.result = result;
+		tags.put("Result", result);
+	}
+
+	/**
+	 * The winner, null for a draw or an unknown result
+	 */
+	public Color getWinner() {
+		switch (result) {
+			case WHITE_WINS:	return Color.WHITE;
+			case BLACK_WINS:	return Color.BLACK;
+			default:			return null;
+		}
+	}
+
+	/**
+	 * Sets up a board at the starting position of the game
+	 */
+	public Board createBoard() {
+		Board board = new Board(getStartingState());
+		board.setLogging(false);
+		return board;
+	}
+
+	@Override
+	public String toString() {
+		return tags.getOrDefault("White", "?") + " - " + tags.getOrDefault("Black", "?") + " " + result + " (" + moves.size() + " plies)";
+	}
+}
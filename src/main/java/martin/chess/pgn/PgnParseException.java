@@ -0,0 +1,22 @@
+package martin.chess.pgn;
+
+import java.io.IOException;
+
+/**
+ * A game in a PGN file that can't be read
+ */
+public class PgnParseException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	private int lineNumber;
+
+	public PgnParseException(String message, int lineNumber) {
+		super(message + " at line " + lineNumber);
+		this.lineNumber = lineNumber;
+	}
+
+	public int getLineNumber() {
+		return lineNumber;
+	}
+}
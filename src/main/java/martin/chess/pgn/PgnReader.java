@@ -0,0 +1,299 @@
+package martin.chess.pgn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Move;
+import martin.chess.engine.SanCodec;
+
+/**
+ * Reads games from PGN, one at a time.
+ *
+ * Only the current game is kept in memory, so files of any size can be read. Moves are decoded
+ * with SanCodec as they are read; comments, variations and annotations are skipped.
+ */
+public class PgnReader implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final Reader reader;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private int position;
+	private int limit;
+	private int lineNumber = 1;
+
+	private final StringBuilder token = new StringBuilder();
+
+	/**
+	 * Reads a PGN file, which is expected to be ISO 8859-1 as the standard says
+	 */
+	public PgnReader(Path path) throws IOException {
+		this(Channels.newReader(FileChannel.open(path, StandardOpenOption.READ), StandardCharsets.ISO_8859_1.newDecoder(), BUFFER_SIZE));
+	}
+
+	public PgnReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Reads the next game, or returns null at the end of the input.
+	 *
+	 * @throws PgnParseException if a move can't be read, after which the reader continues with the next game
+	 */
+	public PgnGame next() throws IOException {
+		PgnGame game = null;
+		Board board = null;
+
+		while (true) {
+			int c = peek();
+			if (c == -1) {
+				return game;
+			}
+
+			if (Character.isWhitespace(c)) {
+				read();
+			} else if (c == '[') {
+				if (board != null) {
+					// A new game starts without a result for the previous one
+					return game;
+				}
+				if (game == null) {
+					game = new PgnGame();
+				}
+				readTag(game);
+			} else if (c == '{') {
+				skipComment();
+			} else if (c == ';' || c == '%') {
+				skipLine();
+			} else if (c == '(') {
+				skipVariation();
+			} else {
+				readToken();
+				if (token.length() == 0) {
+					// A stray delimiter
+					read();
+					continue;
+				}
+				if (game == null) {
+					game = new PgnGame();
+				}
+
+				if (isResult(token)) {
+					game.setResult(token.toString());
+					return game;
+				}
+
+				int start = getMoveStart(token);
+				if (start == token.length() || token.charAt(0) == '$') {
+					// A move number or an annotation
+					continue;
+				}
+
+				if (board == null) {
+					board = game.createBoard();
+					board.validateMoves(false);
+				}
+
+				CharSequence san = token.subSequence(start, token.length());
+				Move move = SanCodec.parse(board, san);
+				if (move == null) {
+					int line = lineNumber;
+					skipGame();
+					throw new PgnParseException("Illegal move " + san + " in position " + board.getState(), line);
+				}
+				game.getMoves().add(move);
+				board.move(move);
+			}
+		}
+	}
+
+	private void readTag(PgnGame game) throws IOException {
+		read();
+		skipSpaces();
+
+		StringBuilder name = new StringBuilder();
+		while (peek() != -1 && !Character.isWhitespace(peek()) && peek() != '"' && peek() != ']') {
+			name.append((char) read());
+		}
+		skipSpaces();
+
+		StringBuilder value = new StringBuilder();
+		if (peek() == '"') {
+			read();
+			int c;
+			while ((c = read()) != -1 && c != '"') {
+				if (c == '\\') {
+					c = read();
+				}
+				value.append((char) c);
+			}
+		}
+
+		// Skip to the end of the tag
+		int c;
+		while ((c = read()) != -1 && c != ']' && c != '\n') {
+		}
+
+		game.setTag(name.toString(), value.toString());
+		if (name.toString().equals("Result")) {
+			game.setResult(value.toString());
+		}
+	}
+
+	private void readToken() throws IOException {
+		token.setLength(0);
+		int c;
+		while ((c = peek()) != -1 && !Character.isWhitespace(c) && "{}();[]".indexOf(c) == -1) {
+			token.append((char) read());
+		}
+	}
+
+	/**
+	 * Skips the move number in tokens like "12." or "12...e5"
+	 */
+	private static int getMoveStart(CharSequence token) {
+		int i = 0;
+		while (i < token.length() && Character.isDigit(token.charAt(i))) {
+			++i;
+		}
+		if (i == token.length()) {
+			return i;
+		}
+		if (token.charAt(i) != '.') {
+			return 0;
+		}
+		while (i < token.length() && token.charAt(i) == '.') {
+			++i;
+		}
+		return i;
+	}
+
+	private static boolean isResult(CharSequence token) {
+		return contentEquals(token, PgnGame.WHITE_WINS) || contentEquals(token, PgnGame.BLACK_WINS) ||
+				contentEquals(token, PgnGame.DRAW) || contentEquals(token, PgnGame.UNKNOWN);
+	}
+
+	private static boolean contentEquals(CharSequence a, String b) {
+		if (a.length() != b.length()) {
+			return false;
+		}
+		for (int i = 0; i < b.length(); ++i) {
+			if (a.charAt(i) != b.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Skips the rest of a game after an error
+	 */
+	private void skipGame() throws IOException {
+		while (true) {
+			int c = peek();
+			if (c == -1 || c == '[') {
+				return;
+			}
+			if (c == '{') {
+				skipComment();
+			} else if (c == ';' || c == '%') {
+				skipLine();
+			} else if (Character.isWhitespace(c) || c == '(' || c == ')') {
+				read();
+			} else {
+				readToken();
+				if (token.length() == 0) {
+					read();
+				} else if (isResult(token)) {
+					return;
+				}
+			}
+		}
+	}
+
+	private void skipComment() throws IOException {
+		int c;
+		while ((c = read()) != -1 && c != '}') {
+		}
+	}
+
+	private void skipLine() throws IOException {
+		int c;
+		while ((c = read()) != -1 && c != '\n') {
+		}
+	}
+
+	private void skipVariation() throws IOException {
+		int depth = 0;
+		int c;
+		while ((c = peek()) != -1) {
+			if (c == '{') {
+				skipComment();
+				continue;
+			}
+			if (c == ';') {
+				skipLine();
+				continue;
+			}
+			read();
+			if (c == '(') {
+				++depth;
+			} else if (c == ')' && --depth == 0) {
+				return;
+			}
+		}
+	}
+
+	private void skipSpaces() throws IOException {
+		while (peek() == ' ' || peek() == '\t') {
+			read();
+		}
+	}
+
+	private int peek() throws IOException {
+		if (position == limit && !fill()) {
+			return -1;
+		}
+		return buffer[position];
+	}
+
+	private int read() throws IOException {
+		if (position == limit && !fill()) {
+			return -1;
+		}
+		char c = buffer[position++];
+		if (c == '\n') {
+			++lineNumber;
+		}
+		return c;
+	}
+
+	private boolean fill() throws IOException {
+		int read = reader.read(buffer, 0, buffer.length);
+		if (read <= 0) {
+			return false;
+		}
+		position = 0;
+		limit = read;
+		return true;
+	}
+
+	/**
+	 * The line the reader is at, counting from 1
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
@@ -0,0 +1,114 @@
+package martin.chess.pgn;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Color;
+import martin.chess.engine.Move;
+import martin.chess.engine.SanCodec;
+
+/**
+ * Writes games as PGN, in export format: the seven tag roster first and lines of at most 80 characters
+ */
+public class PgnWriter implements Closeable, Flushable {
+
+	private static final List<String> SEVEN_TAG_ROSTER = List.of("Event", "Site", "Date", "Round", "White", "Black", "Result");
+	private static final int MAX_LINE_LENGTH = 80;
+	
+	private final Writer writer;
+	private final StringBuilder line = new StringBuilder(MAX_LINE_LENGTH + 16);
+	
+	public PgnWriter(Writer writer) {
+		this.writer = writer;
+	}
+	
+	public synchronized void write(PgnGame game) throws IOException {
+		Map<String, String> tags = game.getTags();
+		for (String name : SEVEN_TAG_ROSTER) {
+			String value = name.equals("Result") ? game.getResult() : tags.getOrDefault(name, "?");
+			writeTag(name, value);
+		}
+		for (var tag : tags.entrySet()) {
+			if (!SEVEN_TAG_ROSTER.contains(tag.getKey())) {
+				writeTag(tag.getKey(), tag.getValue());
+			}
+		}
+		writer.write('\n');
+		
+		Board board = game.createBoard();
+		board.validateMoves(false);
+		line.setLength(0);
+		
+		boolean first = true;
+		for (Move gameMove : game.getMoves()) {
+			Move move = findLegalMove(board, gameMove);
+			if (board.getColorToMove() == Color.WHITE) {
+				append(board.getNumberOfMoves() + ".");
+			} else if (first) {
+				append(board.getNumberOfMoves() + "...");
+			}
+			first = false;
+			
+			String san = SanCodec.format(board, move, false);
+			board.move(move);
+			
+			if (board.getResult() != null && board.getResult().getWinner() != null) {
+				san += "#";
+			} else if (board.isInCheck()) {
+				san += "+";
+			}
+			append(san);
+		}
+		
+		append(game.getResult());
+		writer.write(line.toString());
+		writer.write("\n\n");
+	}
+	
+	/**
+	 * Moves made from coordinates, like "e1g1", don't know whether they are castling 
+	 */
+	private static Move findLegalMove(Board board, Move move) {
+		for (Move legal : board.getAvailableMoves()) {
+			if (legal.getIdxFrom() == move.getIdxFrom() && legal.getIdxTo() == move.getIdxTo() && legal.getQueeningPiece() == move.getQueeningPiece()) {
+				return legal;
+			}
+		}
+		throw new IllegalArgumentException("Illegal move " + move + " in position " + board.getState());
+	}
+	
+	private void writeTag(String name, String value) throws IOException {
+		writer.write('[');
+		writer.write(name);
+		writer.write(" \"");
+		writer.write(value.replace("\\", "\\\\").replace("\"", "\\\""));
+		writer.write("\"]\n");
+	}
+	
+	private void append(String token) throws IOException {
+		if (line.length() > 0 && line.length() + 1 + token.length() > MAX_LINE_LENGTH) {
+			writer.write(line.toString());
+			writer.write('\n');
+			line.setLength(0);
+		}
+		if (line.length() > 0) {
+			line.append(' ');
+		}
+		line.append(token);
+	}
+	
+	@Override
+	public synchronized void flush() throws IOException {
+		writer.flush();
+	}
+	
+	@Override
+	public synchronized void close() throws IOException {
+		writer.close();
+	}
+}
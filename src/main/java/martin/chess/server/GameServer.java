@@ -0,0 +1,133 @@
+package martin.chess.server;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import martin.chess.engine.Board;
+import martin.chess.strategy.IAsyncPlayerStrategy;
+import martin.chess.strategy.IPlayerStrategy;
+
+/**
+ * Hosts many simultaneous games.
+ * 
+ * Engine moves are computed on a bounded pool with one thread per core. Moves are applied to the 
+ * boards on a separate, small game loop pool. Games waiting for a human or remote move hold no thread.
+ * 
+ * Strategy instances are used from pool threads and must not be shared between concurrent games 
+ * unless they are thread safe.
+ */
+public class GameServer {
+
+	private static final String INITIAL_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+	
+	private final ExecutorService engineExecutor;
+	private final ExecutorService loopExecutor;
+	
+	private final Map<Integer, HostedGame> games = new ConcurrentHashMap<>();
+	private final AtomicInteger nextGameId = new AtomicInteger();
+	
+	private final LongAdder gamesFinished = new LongAdder();
+	private final LongAdder gamesFailed = new LongAdder();
+	private final LongAdder movesPlayed = new LongAdder();
+	private final LatencyHistogram moveLatency = new LatencyHistogram();
+	
+	private final long startTime = System.nanoTime();
+	
+	public GameServer() {
+		this(Runtime.getRuntime().availableProcessors(), 1);
+	}
+	
+	public GameServer(int engineThreads, int loopThreads) {
+		engineExecutor = Executors.newFixedThreadPool(engineThreads, daemonThreads("Engine"));
+		loopExecutor = Executors.newFixedThreadPool(loopThreads, daemonThreads("GameLoop"));
+	}
+	
+	private static ThreadFactory daemonThreads(String name) {
+		AtomicInteger counter = new AtomicInteger();
+		return r -> {
+			Thread thread = new Thread(r, name + "-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	public HostedGame startGame(IPlayerStrategy whitePlayer, IPlayerStrategy blackPlayer) {
+		return startGame(INITIAL_POSITION, IAsyncPlayerStrategy.from(whitePlayer), IAsyncPlayerStrategy.from(blackPlayer));
+	}
+	
+	public HostedGame startGame(String fen, IAsyncPlayerStrategy whitePlayer, IAsyncPlayerStrategy blackPlayer) {
+		Board board = new Board(fen);
+		board.setLogging(false);
+		
+		HostedGame game = new HostedGame(nextGameId.incrementAndGet(), board, whitePlayer, blackPlayer, engineExecutor, loopExecutor, this);
+		games.put(game.getId(), game);
+		game.start();
+		return game;
+	}
+	
+	public HostedGame getGame(int id) {
+		return games.get(id);
+	}
+	
+	public int getNumberOfActiveGames() {
+		return games.size();
+	}
+	
+	void onMovePlayed(long latencyNanos) {
+		movesPlayed.increment();
+		moveLatency.record(latencyNanos);
+	}
+	
+	void onGameFinished(HostedGame game, boolean success) {
+		games.remove(game.getId());
+		if (success) {
+			gamesFinished.increment();
+		} else {
+			gamesFailed.increment();
+		}
+	}
+	
+	/**
+	 * The number of games finished per minute since the server was started
+	 */
+	public double getGamesPerMinute() {
+		double minutes = (System.nanoTime() - startTime) / 60e9;
+		return minutes == 0 ? 0 : gamesFinished.sum() / minutes;
+	}
+	
+	public long getGamesFinished() {
+		return gamesFinished.sum();
+	}
+	
+	public long getGamesFailed() {
+		return gamesFailed.sum();
+	}
+	
+	/**
+	 * The given percentile (0-100) of the time taken by engines to produce a move, in milliseconds
+	 */
+	public double getMoveLatencyPercentileMs(double percentile) {
+		return moveLatency.getPercentileMs(percentile);
+	}
+	
+	public String getStatistics() {
+		return String.format("Active games: %d, finished: %d, failed: %d, %.1f games/minute, %d engine moves, latency p50 %.2f ms, p90 %.2f ms, p99 %.2f ms",
+			getNumberOfActiveGames(), getGamesFinished(), getGamesFailed(), getGamesPerMinute(), movesPlayed.sum(),
+			getMoveLatencyPercentileMs(50), getMoveLatencyPercentileMs(90), getMoveLatencyPercentileMs(99));
+	}
+	
+	/**
+	 * Aborts all games and stops the server 
+	 */
+	public void shutdown() {
+		new ArrayList<>(games.values()).forEach(HostedGame::abort);
+		engineExecutor.shutdownNow();
+		loopExecutor.shutdownNow();
+	}
+}
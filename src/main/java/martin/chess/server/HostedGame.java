@@ -0,0 +1,153 @@
+package martin.chess.server;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Color;
+import martin.chess.engine.GameResultData;
+import martin.chess.engine.Move;
+import martin.chess.strategy.AsyncStrategy;
+import martin.chess.strategy.IAsyncPlayerStrategy;
+
+/**
+ * A game hosted by the {@link GameServer}.
+ * 
+ * The game doesn't own a thread. Each move is requested asynchronously and the next request 
+ * is made when the previous move has been played, so a game waiting for a human costs nothing 
+ * but memory.
+ */
+public class HostedGame {
+
+	private final int id;
+	private final Board board;
+	private final IAsyncPlayerStrategy whitePlayer;
+	private final IAsyncPlayerStrategy blackPlayer;
+	
+	private final Executor engineExecutor;
+	private final Executor loopExecutor;
+	private final GameServer server;
+	
+	private final CompletableFuture<GameResultData> result = new CompletableFuture<>();
+	private final AtomicBoolean finished = new AtomicBoolean();
+	
+	private volatile CompletableFuture<Move> pendingMove;
+	
+	HostedGame(int id, Board board, IAsyncPlayerStrategy whitePlayer, IAsyncPlayerStrategy blackPlayer, 
+			Executor engineExecutor, Executor loopExecutor, GameServer server) {
+		this.id = id;
+		this.board = board;
+		this.whitePlayer = whitePlayer;
+		this.blackPlayer = blackPlayer;
+		this.engineExecutor = engineExecutor;
+		this.loopExecutor = loopExecutor;
+		this.server = server;
+	}
+	
+	void start() {
+		loopExecutor.execute(this::requestNextMove);
+	}
+	
+	private void requestNextMove() {
+		if (finished.get()) {
+			return;
+		}
+		
+		IAsyncPlayerStrategy toMove = board.getColorToMove() == Color.WHITE ? whitePlayer : blackPlayer;
+		
+		// Human moves are not included in the latency statistics
+		boolean isEngine = !(toMove instanceof AsyncStrategy);
+		long start = System.nanoTime();
+		
+		CompletableFuture<Move> request;
+		try {
+			request = toMove.requestMove(board, engineExecutor);
+		} catch (RuntimeException e) {
+			finish(null, e);
+			return;
+		}
+		
+		pendingMove = request;
+		request.whenCompleteAsync((move, e) -> onMove(move, e, isEngine ? System.nanoTime() - start : -1), loopExecutor);
+		
+		if (finished.get()) {
+			// Aborted while requesting
+			request.cancel(true);
+		}
+	}
+
+	private void onMove(Move move, Throwable e, long latencyNanos) {
+		if (finished.get()) {
+			return;
+		}
+		
+		if (e != null) {
+			finish(null, e);
+			return;
+		}
+		
+		if (latencyNanos >= 0) {
+			server.onMovePlayed(latencyNanos);
+		}
+		
+		try {
+			board.move(move);
+		} catch (RuntimeException ex) {
+			finish(null, ex);
+			return;
+		}
+		
+		if (board.getResult() != null) {
+			finish(board.getResult(), null);
+		} else {
+			requestNextMove();
+		}
+	}
+	
+	private void finish(GameResultData gameResult, Throwable e) {
+		// Update the server statistics before anyone waiting for the result is notified
+		if (finished.compareAndSet(false, true)) {
+			server.onGameFinished(this, e == null);
+			if (e == null) {
+				result.complete(gameResult);
+			} else {
+				result.completeExceptionally(e);
+			}
+		}
+	}
+	
+	/**
+	 * Aborts the game, cancelling any ongoing move computation 
+	 */
+	public void abort() {
+		if (finished.compareAndSet(false, true)) {
+			server.onGameFinished(this, false);
+			result.cancel(false);
+		}
+		
+		CompletableFuture<Move> request = pendingMove;
+		if (request != null) {
+			request.cancel(true);
+		}
+	}
+	
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Completes when the game has ended. It is cancelled if the game is aborted and completes 
+	 * exceptionally if a player fails.
+	 */
+	public CompletableFuture<GameResultData> getResult() {
+		return result;
+	}
+	
+	/**
+	 * The current position in FEN notation
+	 */
+	public String getState() {
+		return board.getState();
+	}
+}
@@ -0,0 +1,83 @@
+package martin.chess.server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of latencies with logarithmic buckets.
+ * 
+ * Each power of two is split into {@link #SUB_BUCKETS} linear sub buckets, so a reported 
+ * percentile is at most 1/SUB_BUCKETS (12.5%) above the real value. 
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	
+	// Microsecond values up to 2^40 (about 12 days) 
+	private static final int MAX_EXPONENT = 40;
+	
+	private static final int NUM_BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+	
+	private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+	
+	public void record(long nanos) {
+		long micros = Math.max(0, nanos / 1000);
+		counts.incrementAndGet(getBucket(micros));
+	}
+	
+	public long getCount() {
+		long count = 0;
+		for (int i = 0; i < NUM_BUCKETS; ++i) {
+			count += counts.get(i);
+		}
+		return count;
+	}
+	
+	/**
+	 * Returns the given percentile (0-100) in milliseconds, or 0 if nothing has been recorded 
+	 */
+	public double getPercentileMs(double percentile) {
+		long total = getCount();
+		if (total == 0) {
+			return 0;
+		}
+		
+		long wanted = (long) Math.ceil(total * percentile / 100);
+		long seen = 0;
+		for (int i = 0; i < NUM_BUCKETS; ++i) {
+			seen += counts.get(i);
+			if (seen >= Math.max(1, wanted)) {
+				return getUpperBound(i) / 1000d;
+			}
+		}
+		return getUpperBound(NUM_BUCKETS - 1) / 1000d;
+	}
+
+	private static int getBucket(long micros) {
+		if (micros < SUB_BUCKETS) {
+			return (int) micros;
+		}
+		
+		int exponent = 63 - Long.numberOfLeadingZeros(micros);
+		if (exponent > MAX_EXPONENT) {
+			return NUM_BUCKETS - 1;
+		}
+		
+		int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+	
+	/**
+	 * The highest microsecond value that falls in the bucket
+	 */
+	private static long getUpperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		int subBucket = bucket % SUB_BUCKETS;
+		long bucketSize = 1L << (exponent - SUB_BUCKET_BITS);
+		return (1L << exponent) + (subBucket + 1) * bucketSize - 1;
+	}
+}
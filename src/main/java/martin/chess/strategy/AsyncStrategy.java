@@ -1,22 +1,74 @@
 package martin.chess.strategy;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
 import martin.chess.engine.Board;
 import martin.chess.engine.Move;
 
-public class AsyncStrategy implements IPlayerStrategy {
+/**
+ * A strategy whose moves are supplied from the outside, e.g. by a human or a remote opponent.
+ * 
+ * The hand-off is lock free: a pending request is a future that {@link #setMove(Move)} completes. 
+ * A move supplied before it has been requested is kept until the next request.
+ */
+public class AsyncStrategy implements IPlayerStrategy, IAsyncPlayerStrategy {
 
-	Move move;
+	// Either a pending request or a move waiting to be requested
+	private final AtomicReference<CompletableFuture<Move>> slot = new AtomicReference<>();
+	
+	@Override
+	public CompletableFuture<Move> requestMove(Board board, Executor executor) {
+		while (true) {
+			CompletableFuture<Move> current = slot.get();
+			
+			if (current != null && current.isDone() && !current.isCancelled()) {
+				// The move was supplied before it was requested
+				if (slot.compareAndSet(current, null)) {
+					return current;
+				}
+				continue;
+			}
+			
+			CompletableFuture<Move> request = new CompletableFuture<>();
+			if (slot.compareAndSet(current, request)) {
+				if (current != null) {
+					// Only one request can be pending
+					current.cancel(false);
+				}
+				return request;
+			}
+		}
+	}
 	
 	@Override
-	public synchronized Move getMove(Board board) throws InterruptedException {
-		while (move == null) {
-			wait();
+	public Move getMove(Board board) throws InterruptedException {
+		CompletableFuture<Move> request = requestMove(board, Runnable::run);
+		try {
+			return request.get();
+		} catch (InterruptedException e) {
+			request.cancel(false);
+			throw e;
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
 		}
-		return move;
 	}
 	
-	public synchronized void setMove(Move move) {
-		this.move = move;
-		notifyAll();
+	public void setMove(Move move) {
+		while (true) {
+			CompletableFuture<Move> current = slot.get();
+			
+			if (current == null || current.isDone()) {
+				// Nobody is waiting, keep the move for the next request
+				if (slot.compareAndSet(current, CompletableFuture.completedFuture(move))) {
+					return;
+				}
+			} else if (slot.compareAndSet(current, null)) {
+				current.complete(move);
+				return;
+			}
+		}
 	}
 }
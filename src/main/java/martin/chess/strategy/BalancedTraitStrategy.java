@@ -1,5 +1,7 @@
 package martin.chess.strategy;
 
+import java.util.concurrent.ExecutorService;
+
 import martin.chess.strategy.traits.AvoidCheckMateTrait;
 import martin.chess.strategy.traits.AvoidPieceExposureTrait;
 import martin.chess.strategy.traits.CapturePieceTrait;
@@ -11,7 +13,11 @@ import martin.chess.strategy.traits.ProtectAttackedPieceTrait;
 public class BalancedTraitStrategy extends TraitStrategy {
 
 	public BalancedTraitStrategy() {
-		super(3);
+		this(null);
+	}
+	
+	public BalancedTraitStrategy(ExecutorService executorService) {
+		super(3, executorService);
 		addTrait(new AvoidCheckMateTrait(), 1);
 		addTrait(new PerformCheckMateTrait(), 1);
 		addTrait(new DontPlacePieceInExposureTrait(), 0.7);
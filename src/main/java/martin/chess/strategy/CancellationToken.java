@@ -0,0 +1,38 @@
+package martin.chess.strategy;
+
+/**
+ * Cooperative cancellation of a move computation.
+ * 
+ * Strategies, traits and searches poll {@link #isCancelled()} at regular intervals and stop 
+ * as soon as possible once it returns true, returning the best move found so far.
+ */
+public class CancellationToken {
+
+	private volatile boolean cancelled;
+	
+	// If set, an interrupt of this thread also cancels the token
+	private Thread owner;
+	
+	public CancellationToken() {
+	}
+	
+	private CancellationToken(Thread owner) {
+		this.owner = owner;
+	}
+	
+	/**
+	 * Creates a token that is cancelled when the current thread is interrupted. It can be polled
+	 * from other threads, e.g. by workers computing on behalf of the current thread.
+	 */
+	public static CancellationToken forCurrentThread() {
+		return new CancellationToken(Thread.currentThread());
+	}
+	
+	public void cancel() {
+		cancelled = true;
+	}
+	
+	public boolean isCancelled() {
+		return cancelled || (owner != null && owner.isInterrupted());
+	}
+}
@@ -0,0 +1,31 @@
+package martin.chess.strategy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Move;
+
+/**
+ * A strategy that delivers its move asynchronously, without blocking the calling thread.
+ */
+public interface IAsyncPlayerStrategy {
+	
+	/**
+	 * Requests a move for the current position. Any computation is performed on the supplied executor.
+	 * 
+	 * The board must not be modified until the returned future has completed. Cancelling the future 
+	 * cancels the computation.
+	 */
+	CompletableFuture<Move> requestMove(Board board, Executor executor);
+	
+	/**
+	 * Adapts a synchronous strategy to the asynchronous interface
+	 */
+	static IAsyncPlayerStrategy from(IPlayerStrategy strategy) {
+		if (strategy instanceof IAsyncPlayerStrategy) {
+			return (IAsyncPlayerStrategy) strategy;
+		}
+		return new SyncStrategyAdapter(strategy);
+	}
+}
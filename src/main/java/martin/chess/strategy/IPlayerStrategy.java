@@ -5,4 +5,19 @@ import martin.chess.engine.Move;
 
 public interface IPlayerStrategy {
 	Move getMove(Board board) throws InterruptedException;
+	
+	/**
+	 * Gets a move, stopping as soon as possible once the token is cancelled. Strategies that 
+	 * support cancellation then return the best move found so far.
+	 */
+	default Move getMove(Board board, CancellationToken token) throws InterruptedException {
+		return getMove(board);
+	}
+	
+	/**
+	 * Sets a listener that receives progress while a move is computed. Strategies that don't 
+	 * report progress ignore it.
+	 */
+	default void setThinkingListener(ThinkingListener listener) {
+	}
 }
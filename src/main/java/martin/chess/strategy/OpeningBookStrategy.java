@@ -0,0 +1,62 @@
+package martin.chess.strategy;
+
+import java.util.Random;
+
+import martin.chess.book.PolyglotBook;
+import martin.chess.engine.Board;
+import martin.chess.engine.Move;
+
+/**
+ * Plays from an opening book while the position is in it, and lets the wrapped strategy 
+ * decide otherwise
+ */
+public class OpeningBookStrategy implements IPlayerStrategy {
+
+	private IPlayerStrategy strategy;
+	private PolyglotBook book;
+	private Random random;
+	
+	private int bookMoves;
+	
+	public OpeningBookStrategy(IPlayerStrategy strategy, PolyglotBook book) {
+		this(strategy, book, new Random());
+	}
+	
+	public OpeningBookStrategy(IPlayerStrategy strategy, PolyglotBook book, Random random) {
+		this.strategy = strategy;
+		this.book = book;
+		this.random = random;
+	}
+	
+	@Override
+	public Move getMove(Board board) throws InterruptedException {
+		return getMove(board, CancellationToken.forCurrentThread());
+	}
+	
+	@Override
+	public Move getMove(Board board, CancellationToken token) throws InterruptedException {
+		Move move = book.getMove(board, random);
+		if (move != null) {
+			bookMoves++;
+			return move;
+		}
+		return strategy.getMove(board, token);
+	}
+	
+	@Override
+	public void setThinkingListener(ThinkingListener listener) {
+		strategy.setThinkingListener(listener);
+	}
+	
+	/**
+	 * The number of moves taken from the book
+	 */
+	public int getBookMoves() {
+		return bookMoves;
+	}
+	
+	@Override
+	public String toString() {
+		return "Book " + strategy;
+	}
+}
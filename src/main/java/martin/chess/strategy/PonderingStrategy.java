@@ -0,0 +1,195 @@
+package martin.chess.strategy;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Move;
+
+/**
+ * Wraps a strategy and thinks on the opponent's time.
+ *
+ * After a move has been selected, the expected reply is predicted (by asking the wrapped
+ * strategy what it would play in the opponent's shoes) and our answer to that reply is
+ * computed on a background thread. If the opponent plays the predicted move (a ponder hit)
+ * the already computed answer is used, otherwise (a ponder miss) the background search
+ * is cancelled and a normal search is started.
+ */
+public class PonderingStrategy implements IPlayerStrategy {
+
+	// How often the caller's token is checked while waiting for the pondered move
+	private static final long CANCELLATION_POLL_MS = 10;
+
+	private IPlayerStrategy strategy;
+	private ExecutorService executorService;
+
+	// Guards the wrapped strategy, which is not safe to use from two threads at once
+	private final Object strategyLock = new Object();
+
+	private Future<Move> ponderResult;
+	private CancellationToken ponderToken;
+	private String ponderState;
+
+	private int ponderHits;
+	private int ponderMisses;
+
+	public PonderingStrategy(IPlayerStrategy strategy) {
+		this(strategy, Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "Ponder");
+			thread.setDaemon(true);
+			return thread;
+		}));
+	}
+
+	public PonderingStrategy(IPlayerStrategy strategy, ExecutorService executorService) {
+		this.strategy = strategy;
+		this.executorService = executorService;
+	}
+
+	@Override
+	public Move getMove(Board board) throws InterruptedException {
+		return getMove(board, CancellationToken.forCurrentThread());
+	}
+
+	@Override
+	public Move getMove(Board board, CancellationToken token) throws InterruptedException {
+		Move move = getPonderedMove(board, token);
+
+		if (move == null) {
+			synchronized (strategyLock) {
+				move = strategy.getMove(board, token);
+			}
+		}
+
+		// An aborted game has no next move to ponder on
+		if (!token.isCancelled()) {
+			startPondering(board, move);
+		}
+		return move;
+	}
+
+	/**
+	 * Returns the move computed while pondering if the opponent played the expected move,
+	 * otherwise cancels the pondering and returns null. Waiting for the pondered move stops, and
+	 * cancels the pondering, as soon as the caller's token is cancelled.
+	 */
+	private Move getPonderedMove(Board board, CancellationToken token) throws InterruptedException {
+		Future<Move> result;
+		CancellationToken resultToken;
+
+		// The wait below is outside the lock, so stopPondering() isn't blocked by it
+		synchronized (this) {
+			if (ponderResult == null) {
+				return null;
+			}
+
+			if (!board.getState().equals(ponderState)) {
+				ponderMisses++;
+				stopPondering();
+				return null;
+			}
+
+			result = ponderResult;
+			resultToken = ponderToken;
+			ponderResult = null;
+			ponderToken = null;
+			ponderState = null;
+		}
+
+		try {
+			while (true) {
+				try {
+					Move move = result.get(CANCELLATION_POLL_MS, TimeUnit.MILLISECONDS);
+					if (move != null) {
+						synchronized (this) {
+							ponderHits++;
+						}
+					}
+					return move;
+				} catch (TimeoutException e) {
+					if (token.isCancelled()) {
+						resultToken.cancel();
+						result.cancel(true);
+						return null;
+					}
+				}
+			}
+		} catch (ExecutionException e) {
+			// Pondering failed, fall back to a normal search
+			return null;
+		}
+	}
+
+	private synchronized void startPondering(Board board, Move ourMove) {
+		Board ponderBoard = new Board(board);
+		ponderBoard.setLogging(false);
+		ponderBoard.validateMoves(false);
+		ponderBoard.move(ourMove);
+
+		if (ponderBoard.getResult() != null) {
+			return;
+		}
+
+		CancellationToken token = new CancellationToken();
+		
+		// The state is filled in once the expected reply is known
+		ponderState = null;
+		ponderToken = token;
+		ponderResult = executorService.submit(() -> ponder(ponderBoard, token));
+	}
+
+	private Move ponder(Board ponderBoard, CancellationToken token) throws InterruptedException {
+		synchronized (strategyLock) {
+			Move expectedReply = strategy.getMove(ponderBoard, token);
+
+			ponderBoard.move(expectedReply);
+			if (ponderBoard.getResult() != null || token.isCancelled()) {
+				return null;
+			}
+
+			synchronized (this) {
+				if (token.isCancelled()) {
+					return null;
+				}
+				ponderState = ponderBoard.getState();
+			}
+
+			return strategy.getMove(ponderBoard, token);
+		}
+	}
+
+	/**
+	 * Cancels any ongoing pondering, e.g. when the game is aborted
+	 */
+	public synchronized void stopPondering() {
+		if (ponderResult != null) {
+			ponderToken.cancel();
+			ponderResult.cancel(true);
+			ponderResult = null;
+			ponderToken = null;
+			ponderState = null;
+		}
+	}
+
+	@Override
+	public void setThinkingListener(ThinkingListener listener) {
+		strategy.setThinkingListener(listener);
+	}
+
+	public synchronized int getPonderHits() {
+		return ponderHits;
+	}
+
+	public synchronized int getPonderMisses() {
+		return ponderMisses;
+	}
+
+	@Override
+	public String toString() {
+		return "Pondering " + strategy;
+	}
+}
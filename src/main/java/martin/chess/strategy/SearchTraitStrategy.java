@@ -0,0 +1,204 @@
+package martin.chess.strategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Color;
+import martin.chess.engine.GameResultData;
+import martin.chess.engine.Move;
+import martin.chess.engine.Piece;
+
+/**
+ * Searches a few plies ahead with alpha-beta and uses the weighted traits as evaluation of the
+ * positions at the end of the search.
+ *
+ * The weights and the exponent mean the same as in TraitStrategy, so a tuned TraitStrategy can be
+ * searched with as is: every trait evaluates the position for both sides, and the difference is
+ * weighted and raised to the exponent, keeping its sign. Mates and draws are scored by the search.
+ *
+ * Evaluations are kept in a fixed size table keyed by the Zobrist key of the position, since the same
+ * positions are reached through different move orders and again in the next iteration. A strategy
+ * must not be used from several threads at once.
+ */
+public class SearchTraitStrategy extends TraitStrategy {
+
+	public static final int DEFAULT_TABLE_SIZE = 1 << 16;
+
+	private static final double MATE_SCORE = 1e12;
+
+	private final int depth;
+	private final Random random = new Random();
+
+	private final int mask;
+	private final long[] keys;
+	private final double[] evaluations;
+
+	private ThinkingListener thinkingListener;
+	private long nodes;
+
+	public SearchTraitStrategy(double exp, int depth) {
+		this(exp, depth, DEFAULT_TABLE_SIZE);
+	}
+
+	/**
+	 * @param depth the number of plies to search
+	 * @param tableSize the number of cached evaluations, rounded up to a power of two
+	 */
+	public SearchTraitStrategy(double exp, int depth, int tableSize) {
+		super(exp);
+		if (depth < 1) {
+			throw new IllegalArgumentException("Depth must be at least 1");
+		}
+		this.depth = depth;
+
+		int size = Integer.highestOneBit(Math.max(2, tableSize - 1)) << 1;
+		mask = size - 1;
+		keys = new long[size];
+		evaluations = new double[size];
+	}
+
+	/**
+	 * Searches with the traits, weights and exponent of the given strategy
+	 */
+	public SearchTraitStrategy(TraitStrategy strategy, int depth) {
+		this(strategy.getExponent(), depth);
+		strategy.getTraits().forEach(t -> addTrait(t.first, t.second));
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	@Override
+	public void setThinkingListener(ThinkingListener thinkingListener) {
+		this.thinkingListener = thinkingListener;
+	}
+
+	/**
+	 * Searches one ply deeper at a time, so the best move of the last complete iteration can be
+	 * returned when cancelled
+	 */
+	@Override
+	public Move getMove(Board board, CancellationToken token) throws InterruptedException {
+		Board b = new Board(board);
+		b.validateMoves(false);
+		b.setLogging(false);
+
+		// Equal moves are picked at random
+		List<Move> moves = new ArrayList<>(board.getAvailableMoves());
+		Collections.shuffle(moves, random);
+
+		long start = System.nanoTime();
+		nodes = 0;
+		Move best = moves.get(0);
+
+		for (int d = 1; d <= depth; ++d) {
+			double alpha = -Double.MAX_VALUE;
+			Move iterationBest = null;
+
+			for (Move move : moves) {
+				b.move(move);
+				double value = -search(b, d - 1, 1, -Double.MAX_VALUE, -alpha, token);
+				b.undoLastMove();
+
+				if (token.isCancelled()) {
+					return best;
+				}
+				if (iterationBest == null || value > alpha) {
+					alpha = value;
+					iterationBest = move;
+				}
+			}
+
+			best = iterationBest;
+
+			// Search the best move first in the next iteration
+			moves.remove(best);
+			moves.add(0, best);
+
+			if (thinkingListener != null) {
+				thinkingListener.onThinking(new ThinkingInfo(d, nodes, System.nanoTime() - start, best));
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * Negamax with alpha-beta, the value is for the side to move
+	 */
+	private double search(Board board, int depthLeft, int ply, double alpha, double beta, CancellationToken token) {
+		nodes++;
+
+		GameResultData result = board.getResult();
+		if (result != null) {
+			// The side to move can't have won, prefer the shortest mate
+			return result.getWinner() == null ? 0 : -MATE_SCORE + ply;
+		}
+		if (depthLeft == 0 || token.isCancelled()) {
+			return evaluate(board);
+		}
+
+		List<Move> moves = board.getAvailableMoves();
+		byte[] squares = board.getSquares();
+
+		// Captures first, they are the most likely to cause a cutoff
+		for (int pass = 0; pass < 2; ++pass) {
+			for (int i = 0; i < moves.size(); ++i) {
+				Move move = moves.get(i);
+				boolean capture = squares[move.getIdxTo()] != Piece.EMPTY;
+				if (capture != (pass == 0)) {
+					continue;
+				}
+
+				board.move(move);
+				double value = -search(board, depthLeft - 1, ply + 1, -beta, -alpha, token);
+				board.undoLastMove();
+
+				if (value > alpha) {
+					alpha = value;
+					if (alpha >= beta) {
+						return alpha;
+					}
+				}
+			}
+		}
+		return alpha;
+	}
+
+	/**
+	 * The weighted trait evaluation for the side to move
+	 */
+	private double evaluate(Board board) {
+		long key = board.getZobristKey();
+		int idx = (int) key & mask;
+		if (keys[idx] == key && key != 0) {
+			return evaluations[idx];
+		}
+
+		Color us = board.getColorToMove();
+		Color them = us.getOpposite();
+		double exp = getExponent();
+		double value = 0;
+
+		for (var trait : getTraits()) {
+			double diff = trait.first.evaluate(board, us) - trait.first.evaluate(board, them);
+			if (diff != 0) {
+				double weighted = Math.pow(trait.second * Math.abs(diff), exp);
+				value += diff < 0 ? -weighted : weighted;
+			}
+		}
+
+		keys[idx] = key;
+		evaluations[idx] = value;
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Depth = %d, %s", depth, super.toString());
+	}
+}
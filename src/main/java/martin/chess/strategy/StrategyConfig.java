@@ -0,0 +1,126 @@
+package martin.chess.strategy;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import martin.chess.strategy.traits.AvoidCheckMateTrait;
+import martin.chess.strategy.traits.AvoidPieceExposureTrait;
+import martin.chess.strategy.traits.CapturePieceTrait;
+import martin.chess.strategy.traits.DevelopPiecesTrait;
+import martin.chess.strategy.traits.DontPlacePieceInExposureTrait;
+import martin.chess.strategy.traits.PerformCheckMateTrait;
+import martin.chess.strategy.traits.ProtectAttackedPieceTrait;
+import martin.chess.strategy.traits.Trait;
+
+/**
+ * Creates strategies from a one line description, so they can be configured on the command line
+ * or sent to another process. The first word is the kind of strategy:
+ *
+ *   random
+ *   balanced
+ *   traits exp=3 CapturePiece=1 AvoidPieceExposure=0.8
+ *   search depth=2 exp=1 CapturePiece=1
+ *
+ * Traits are named like Trait.toString(), and exp defaults to 3 and depth to 2.
+ */
+public final class StrategyConfig {
+
+	private static final Map<String, Supplier<Trait>> TRAITS = new LinkedHashMap<>();
+
+	static {
+		register(AvoidCheckMateTrait::new);
+		register(PerformCheckMateTrait::new);
+		register(DontPlacePieceInExposureTrait::new);
+		register(CapturePieceTrait::new);
+		register(AvoidPieceExposureTrait::new);
+		register(DevelopPiecesTrait::new);
+		register(ProtectAttackedPieceTrait::new);
+	}
+
+	private StrategyConfig() {
+	}
+
+	private static void register(Supplier<Trait> supplier) {
+		TRAITS.put(supplier.get().toString(), supplier);
+	}
+
+	/**
+	 * A new strategy as described, throws IllegalArgumentException if the description is invalid
+	 */
+	public static IPlayerStrategy create(String config) {
+		String[] words = config.trim().split("\\s+");
+		switch (words[0]) {
+		case "random":
+			return new RandomStrategy();
+		case "balanced":
+			return new BalancedTraitStrategy();
+		case "traits":
+		case "search":
+			return createTraitStrategy(words);
+		default:
+			throw new IllegalArgumentException("Unknown strategy: " + config);
+		}
+	}
+
+	private static TraitStrategy createTraitStrategy(String[] words) {
+		double exp = 3;
+		int depth = 2;
+		Map<String, Double> weights = new LinkedHashMap<>();
+
+		for (int i = 1; i < words.length; ++i) {
+			int eq = words[i].indexOf('=');
+			if (eq == -1) {
+				throw new IllegalArgumentException("Expected name=value: " + words[i]);
+			}
+			String name = words[i].substring(0, eq);
+			String value = words[i].substring(eq + 1);
+			try {
+				if (name.equals("exp")) {
+					exp = Double.parseDouble(value);
+				} else if (name.equals("depth")) {
+					depth = Integer.parseInt(value);
+				} else if (TRAITS.containsKey(name)) {
+					weights.put(name, Double.parseDouble(value));
+				} else {
+					throw new IllegalArgumentException("Unknown trait: " + name);
+				}
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Not a number: " + words[i], e);
+			}
+		}
+
+		TraitStrategy strategy = words[0].equals("search") ? new SearchTraitStrategy(exp, depth) : new TraitStrategy(exp);
+		weights.forEach((name, weight) -> strategy.addTrait(TRAITS.get(name).get(), weight));
+		return strategy;
+	}
+
+	/**
+	 * The description of the strategy, which creates an equal strategy with new traits
+	 */
+	public static String describe(TraitStrategy strategy) {
+		String kind = strategy instanceof SearchTraitStrategy ? "search depth=" + ((SearchTraitStrategy) strategy).getDepth() : "traits";
+		List<String> names = new ArrayList<>();
+		double[] weights = new double[strategy.getTraits().size()];
+		for (var trait : strategy.getTraits()) {
+			weights[names.size()] = trait.second;
+			names.add(trait.first.toString());
+		}
+		return describe(kind, strategy.getExponent(), names, weights);
+	}
+
+	/**
+	 * The description of a trait strategy, kind being for example "traits" or "search depth=1". 
+	 * Everything that describes strategies goes through here, so the descriptions always parse.
+	 */
+	public static String describe(String kind, double exp, List<String> names, double[] weights) {
+		StringBuilder sb = new StringBuilder(kind);
+		sb.append(" exp=").append(exp);
+		for (int t = 0; t < names.size(); ++t) {
+			sb.append(' ').append(names.get(t)).append('=').append(weights[t]);
+		}
+		return sb.toString();
+	}
+}
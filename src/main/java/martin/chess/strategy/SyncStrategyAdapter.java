@@ -0,0 +1,52 @@
+package martin.chess.strategy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Move;
+
+/**
+ * Runs a synchronous strategy on an executor. Cancelling the returned future cancels the 
+ * strategy's computation through its {@link CancellationToken}.
+ */
+public class SyncStrategyAdapter implements IAsyncPlayerStrategy {
+
+	private IPlayerStrategy strategy;
+
+	public SyncStrategyAdapter(IPlayerStrategy strategy) {
+		this.strategy = strategy;
+	}
+	
+	@Override
+	public CompletableFuture<Move> requestMove(Board board, Executor executor) {
+		CancellationToken token = new CancellationToken();
+		
+		CompletableFuture<Move> result = new CompletableFuture<>();
+		
+		// Stops the computation if the caller cancels, harmless if it has already finished
+		result.whenComplete((move, e) -> token.cancel());
+		
+		executor.execute(() -> {
+			if (result.isDone()) {
+				return;
+			}
+			try {
+				result.complete(strategy.getMove(board, token));
+			} catch (Throwable e) {
+				result.completeExceptionally(e);
+			}
+		});
+		
+		return result;
+	}
+	
+	public IPlayerStrategy getStrategy() {
+		return strategy;
+	}
+	
+	@Override
+	public String toString() {
+		return strategy.toString();
+	}
+}
@@ -0,0 +1,48 @@
+package martin.chess.strategy;
+
+import martin.chess.engine.Move;
+
+/**
+ * Progress of a strategy that is computing a move
+ */
+public class ThinkingInfo {
+	private int depth;
+	private long nodes;
+	private long elapsedNanos;
+	private Move bestMove;
+	
+	public ThinkingInfo(int depth, long nodes, long elapsedNanos, Move bestMove) {
+		this.depth = depth;
+		this.nodes = nodes;
+		this.elapsedNanos = elapsedNanos;
+		this.bestMove = bestMove;
+	}
+	
+	public int getDepth() {
+		return depth;
+	}
+	
+	public long getNodes() {
+		return nodes;
+	}
+	
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+	
+	public long getNodesPerSecond() {
+		return elapsedNanos == 0 ? 0 : (long) (nodes * 1e9 / elapsedNanos);
+	}
+	
+	/**
+	 * The best move found so far, may be null
+	 */
+	public Move getBestMove() {
+		return bestMove;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("Depth %d, %d nodes, %d nodes/s, best %s", depth, nodes, getNodesPerSecond(), bestMove == null ? "-" : bestMove);
+	}
+}
@@ -0,0 +1,8 @@
+package martin.chess.strategy;
+
+/**
+ * Receives progress from a strategy while it computes a move. Called on the computing thread.
+ */
+public interface ThinkingListener {
+	void onThinking(ThinkingInfo info);
+}
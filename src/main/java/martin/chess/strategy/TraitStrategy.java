@@ -6,12 +6,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
 
 import martin.chess.engine.Board;
 import martin.chess.engine.Color;
 import martin.chess.engine.Move;
-import martin.chess.fen.FENNotation;
+import martin.chess.engine.PositionAnalysis;
 import martin.chess.strategy.traits.Trait;
 
 public class TraitStrategy implements IPlayerStrategy {
@@ -28,11 +30,16 @@ public class TraitStrategy implements IPlayerStrategy {
 
 	private ExecutorService executorService;
 	
+	private ThinkingListener thinkingListener;
+	
 	public TraitStrategy(double exp) {
 		this.exp = exp;
 		random = new Random();
 	}
 	
+	/**
+	 * Evaluates the moves on the executor service, so the traits' votes must be thread-safe, see Trait.vote
+	 */
 	public TraitStrategy(double exp, ExecutorService executorService) {
 		this(exp);
 		this.executorService = executorService;
@@ -46,6 +53,11 @@ public class TraitStrategy implements IPlayerStrategy {
 		return traits;
 	}
 	
+	@Override
+	public void setThinkingListener(ThinkingListener thinkingListener) {
+		this.thinkingListener = thinkingListener;
+	}
+	
 	public void addTrait(Trait trait, double weight) {
 		trait.setExecutorService(executorService);
 		
@@ -54,94 +66,218 @@ public class TraitStrategy implements IPlayerStrategy {
 	
 	@Override
 	public Move getMove(Board board) throws InterruptedException {
-		Color ourColor = board.getColorToMove();
+		return getMove(board, CancellationToken.forCurrentThread());
+	}
+	
+	@Override
+	public Move getMove(Board board, CancellationToken token) throws InterruptedException {
+		List<Move> moves = board.getAvailableMoves();
 		
-		Board clonedBoard = new Board(FENNotation.toString(board));
-		clonedBoard.validateMoves(false);
-		clonedBoard.setLogging(false);
+		// Shared by all traits
+		PositionAnalysis analysis = new PositionAnalysis(board);
+		
+		traits.forEach(t -> t.first.initialize(board, analysis, token));
+		
+		// votes[move][trait]
+		double[][] votes = new double[moves.size()][traits.size()];
+		double[] moveValues = new double[moves.size()];
+		boolean[] evaluated = new boolean[moves.size()];
+		
+		Progress progress = thinkingListener == null ? null : new Progress(moveValues);
+		
+		evaluateMoves(board, moves, votes, moveValues, evaluated, token, progress);
 		
 		double minMoveValue = Double.MAX_VALUE;
 		double totalMoveValue = 0;
+		int numEvaluated = 0;
 		
-		List<MoveAndValue> moveValues = new ArrayList<>();
+		for (int i = 0; i < moves.size(); ++i) {
+			if (!evaluated[i]) {
+				continue;
+			}
+			numEvaluated++;
+			minMoveValue = Math.min(minMoveValue, moveValues[i]);
+			totalMoveValue += moveValues[i];
+		}
 		
-		List<Move> moves = board.getAvailableMoves();
+		if (numEvaluated == 0) {
+			// Cancelled before any move was evaluated
+			return moves.get(random.nextInt(moves.size()));
+		}
 		
-		traits.forEach(t -> t.first.initialize(board));
+		// Adjust so that we have no moves with value < MIN_MOVE_VALUE
+		if (minMoveValue < MIN_MOVE_VALUE) {
+			double adjustment = MIN_MOVE_VALUE - minMoveValue;
+			// Every evaluated move is shifted, so the total grows by the shift for each of them
+			totalMoveValue += adjustment * numEvaluated;
+			for (int i = 0; i < moves.size(); ++i) {
+				moveValues[i] += adjustment;
+			}
+		}
 		
-		for (var move : moves) {
-			clonedBoard.move(move);
+		if (DEBUG) {
+			printDebugInfo(moves, votes, moveValues, evaluated);
+		}
+		return selectMove(moves, moveValues, evaluated, totalMoveValue);
+	}
+	
+	/**
+	 * Evaluates all moves, split into one partition per worker. Each worker plays the moves on its own
+	 * copy of the board. The calling thread evaluates the first partition itself, and any partition that
+	 * no pool thread has started yet, so this can't deadlock when called from the pool.
+	 */
+	private void evaluateMoves(Board board, List<Move> moves, double[][] votes, double[] moveValues, boolean[] evaluated, 
+			CancellationToken token, Progress progress) throws InterruptedException {
+		
+		int numWorkers = executorService == null ? 1 : Math.min(moves.size(), Runtime.getRuntime().availableProcessors());
+		
+		List<FutureTask<Void>> tasks = new ArrayList<>(numWorkers);
+		for (int worker = 1; worker < numWorkers; ++worker) {
+			int partition = worker;
+			FutureTask<Void> task = new FutureTask<>(() -> {
+				evaluatePartition(board, moves, partition, numWorkers, votes, moveValues, evaluated, token, progress);
+				return null;
+			});
+			tasks.add(task);
+			executorService.execute(task);
+		}
+		
+		evaluatePartition(board, moves, 0, numWorkers, votes, moveValues, evaluated, token, progress);
+		
+		for (var task : tasks) {
+			// Does nothing if a pool thread has already started the task
+			task.run();
+			try {
+				task.get();
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+	}
+
+	private void evaluatePartition(Board board, List<Move> moves, int partition, int numPartitions, double[][] votes, double[] moveValues, 
+			boolean[] evaluated, CancellationToken token, Progress progress) {
+		
+		Color ourColor = board.getColorToMove();
+		
+		Board clonedBoard = new Board(board);
+		clonedBoard.validateMoves(false);
+		clonedBoard.setLogging(false);
+		
+		for (int i = partition; i < moves.size(); i += numPartitions) {
+			if (token.isCancelled()) {
+				// Go with the moves evaluated so far
+				return;
+			}
 			
-			MoveAndValue moveAndValue = new MoveAndValue(move);
-			moveValues.add(moveAndValue);
+			Move move = moves.get(i);
+			clonedBoard.move(move);
 			
-			moveAndValue.value = MIN_MOVE_VALUE;
+			double value = MIN_MOVE_VALUE;
 			
-			for (var trait : traits) {
+			for (int t = 0; t < traits.size(); ++t) {
+				var trait = traits.get(t);
 				double traitVoteBase = trait.first.vote(ourColor, board, clonedBoard, move);
-				boolean isNegative = traitVoteBase < 0;
-				
-				if (isNegative) traitVoteBase = -traitVoteBase;
 				
-				double traitVote = Math.pow(trait.second * traitVoteBase, exp);
-				
-				if (isNegative) traitVote = -traitVote;
+				double traitVote = 0;
+				if (traitVoteBase != 0) {
+					boolean isNegative = traitVoteBase < 0;
+					
+					if (isNegative) traitVoteBase = -traitVoteBase;
+					
+					traitVote = Math.pow(trait.second * traitVoteBase, exp);
+					
+					if (isNegative) traitVote = -traitVote;
+				}
 				
-				moveAndValue.votes.put(trait.first.toString(), traitVote);
-				moveAndValue.value += traitVote;
+				votes[i][t] = traitVote;
+				value += traitVote;
 			}
 			
 			clonedBoard.undoLastMove();
-					
-			if (moveAndValue.value < minMoveValue) {
-				minMoveValue = moveAndValue.value;
-			}
 			
-			totalMoveValue += moveAndValue.value;
+			moveValues[i] = value;
+			evaluated[i] = true;
+			
+			if (progress != null) {
+				progress.onMoveEvaluated(i, moves);
+			}
 		}
+	}
+	
+	/**
+	 * Reports the progress to the thinking listener 
+	 */
+	private class Progress {
+		private long start = System.nanoTime();
+		private double[] moveValues;
+		private int numEvaluated;
+		private int bestIdx = -1;
 		
-		// Adjust so that we have no moves with value < MIN_MOVE_VALUE
-		if (minMoveValue < MIN_MOVE_VALUE) {
-			double adjustment = MIN_MOVE_VALUE - minMoveValue;
-			totalMoveValue += adjustment;
-			moveValues.forEach(mv -> mv.value += adjustment);
+		Progress(double[] moveValues) {
+			this.moveValues = moveValues;
 		}
 		
-		if (DEBUG) {
-			Collections.sort(moveValues);
-			StringBuilder sb = new StringBuilder();
-			int numMoves = Math.min(moveValues.size(), MOVES_TO_DEBUG);
-			sb.append("Top ").append(numMoves).append(" moves: \n");
-			
-			for (int i = 0; i < numMoves; ++i) {
-				sb.append(" ").append(moveValues.get(i)).append("\n");
+		synchronized void onMoveEvaluated(int idx, List<Move> moves) {
+			numEvaluated++;
+			if (bestIdx == -1 || moveValues[idx] > moveValues[bestIdx]) {
+				bestIdx = idx;
 			}
-			
-			sb.append("\nBottom ").append(numMoves).append(" moves: \n");
-			
-			for (int i = 0; i < numMoves; ++i) {
-				sb.append(" ").append(moveValues.get(moveValues.size() - 1 - i)).append("\n");
+			thinkingListener.onThinking(new ThinkingInfo(1, numEvaluated, System.nanoTime() - start, moves.get(bestIdx)));
+		}
+	}
+	
+	private void printDebugInfo(List<Move> moves, double[][] votes, double[] moveValues, boolean[] evaluated) {
+		List<MoveAndValue> debugValues = new ArrayList<>();
+		for (int i = 0; i < moves.size(); ++i) {
+			if (!evaluated[i]) {
+				continue;
 			}
-			
-			System.out.println(sb.toString());
+			MoveAndValue moveAndValue = new MoveAndValue(moves.get(i));
+			moveAndValue.value = moveValues[i];
+			for (int t = 0; t < traits.size(); ++t) {
+				moveAndValue.votes.put(traits.get(t).first.toString(), votes[i][t]);
+			}
+			debugValues.add(moveAndValue);
 		}
-		return selectMove(moveValues, totalMoveValue);
+		
+		Collections.sort(debugValues);
+		StringBuilder sb = new StringBuilder();
+		int numMoves = Math.min(debugValues.size(), MOVES_TO_DEBUG);
+		sb.append("Top ").append(numMoves).append(" moves: \n");
+		
+		for (int i = 0; i < numMoves; ++i) {
+			sb.append(" ").append(debugValues.get(i)).append("\n");
+		}
+		
+		sb.append("\nBottom ").append(numMoves).append(" moves: \n");
+		
+		for (int i = 0; i < numMoves; ++i) {
+			sb.append(" ").append(debugValues.get(debugValues.size() - 1 - i)).append("\n");
+		}
+		
+		System.out.println(sb.toString());
 	}
 	
-	private Move selectMove(List<MoveAndValue> moveValues, double totalMoveValue) {
+	private Move selectMove(List<Move> moves, double[] moveValues, boolean[] evaluated, double totalMoveValue) {
 		double randVal = random.nextDouble() * totalMoveValue;
 		double cumulative = 0;
-		for (var moveValue : moveValues) {
-			cumulative += moveValue.value;
+		int lastEvaluated = -1;
+		for (int i = 0; i < moves.size(); ++i) {
+			if (!evaluated[i]) {
+				continue;
+			}
+			lastEvaluated = i;
+			cumulative += moveValues[i];
 			if (cumulative >= randVal) {
 				if (DEBUG) {
-					System.out.println("Selected " + moveValue);
+					System.out.println("Selected " + moves.get(i) + ": " + moveValues[i]);
 				}
-				return moveValue.move;
+				return moves.get(i);
 			}
 		}
 		System.err.println("Didn't find a move with random process!");
-		return moveValues.get(0).move;
+		return moves.get(lastEvaluated);
 	}
 
 	private static class MoveAndValue implements Comparable<MoveAndValue> {
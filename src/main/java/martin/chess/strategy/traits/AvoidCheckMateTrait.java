@@ -1,119 +1,129 @@
 package martin.chess.strategy.traits;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import martin.chess.engine.Board;
 import martin.chess.engine.Color;
+import martin.chess.engine.MateThreatDetector;
 import martin.chess.engine.Move;
+import martin.chess.engine.PositionAnalysis;
+import martin.chess.strategy.CancellationToken;
 
 /**
- * Checks if there is a move
+ * Avoids moves after which the opponent can force mate.
+ * 
+ * With an executor service the moves are split into one partition per core. Each partition has its 
+ * own detector, since the detector's cache is not thread-safe, and keeps it between decisions.
  */
 public class AvoidCheckMateTrait extends Trait {
 
+	private final int mateDepth;
+	private MateThreatDetector[] detectors = { new MateThreatDetector() };
+
 	private Map<Move, Double> moveValues;
-	
+
+	public AvoidCheckMateTrait() {
+		this(1);
+	}
+
+	/**
+	 * @param mateDepth the length in moves of the mates to look for
+	 */
+	public AvoidCheckMateTrait(int mateDepth) {
+		this.mateDepth = mateDepth;
+	}
+
 	@Override
-	public void initialize(Board board) {
-		Color ourColor = board.getColorToMove();
-		
-		Set<Move> movesInWhichCheckMateArePossible = new HashSet<>();
-		
-		if (executorService == null) {
-			movesInWhichCheckMateArePossible = new Runner(board, ourColor, 0, 1).call();
-		} else {
-			
-			final int numThreads = 6;
-			
-			List<Future<Set<Move>>> futures = new ArrayList<>();
-			
-			for (int i = 0; i < numThreads; ++i) {
-				Runner runner = new Runner(board, ourColor, i, numThreads);
-				futures.add(executorService.submit(runner));
+	public void initialize(Board board, PositionAnalysis analysis, CancellationToken token) {
+		moveValues = null;
+
+		List<Move> moves = board.getAvailableMoves();
+		int numPartitions = executorService == null ? 1 : Math.max(1, Math.min(moves.size(), Runtime.getRuntime().availableProcessors()));
+		if (detectors.length < numPartitions) {
+			int oldLength = detectors.length;
+			detectors = Arrays.copyOf(detectors, numPartitions);
+			for (int i = oldLength; i < numPartitions; ++i) {
+				detectors[i] = new MateThreatDetector();
 			}
-			
-			for (var future : futures) {
-				try {
-					movesInWhichCheckMateArePossible.addAll(future.get());
-				} catch (Exception e) {
-					throw new RuntimeException(e);
-				}
+		}
+
+		Set<Move> movesInWhichCheckMateArePossible = ConcurrentHashMap.newKeySet();
+
+		List<FutureTask<Boolean>> tasks = new ArrayList<>(numPartitions);
+		for (int partition = 1; partition < numPartitions; ++partition) {
+			int p = partition;
+			MateThreatDetector detector = detectors[p];
+			FutureTask<Boolean> task = new FutureTask<>(() -> 
+					findMates(board, moves, p, numPartitions, detector, movesInWhichCheckMateArePossible, token));
+			tasks.add(task);
+			executorService.execute(task);
+		}
+
+		boolean complete = findMates(board, moves, 0, numPartitions, detectors[0], movesInWhichCheckMateArePossible, token);
+
+		for (var task : tasks) {
+			// Does nothing if a pool thread has already started the task
+			task.run();
+			try {
+				complete &= task.get();
+			} catch (InterruptedException e) {
+				// Tasks may still be running, the next decision must not share their detectors
+				detectors = new MateThreatDetector[] { new MateThreatDetector() };
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
 			}
 		}
 
-		if (movesInWhichCheckMateArePossible.isEmpty()) {
-			moveValues = null;
-		} else {
+		if (!complete) {
+			// We don't know which moves are safe
+			return;
+		}
+
+		if (!movesInWhichCheckMateArePossible.isEmpty()) {
 			moveValues = new HashMap<>();
-			for (var move : board.getAvailableMoves()) {
+			for (var move : moves) {
 				moveValues.put(move, movesInWhichCheckMateArePossible.contains(move) ? -500d : 500d);
 			}
 		}
-		
 	}
-	private static class Runner implements Callable<Set<Move>> {
 
-		private Board board;
-		private Color ourColor;
-		private int myIdx;
-		private int totalNumRunners;
-		
-		public Runner(Board board, Color ourColor, int myIdx, int totalNumRunners) {
-			this.board = board;
-			this.ourColor = ourColor;
-			this.myIdx = myIdx;
-			this.totalNumRunners = totalNumRunners;
-			
-		}
+	/**
+	 * Looks for mates after every numPartitions-th move, starting at the partition
+	 * 
+	 * @return false if cancelled before all moves were checked
+	 */
+	private boolean findMates(Board board, List<Move> moves, int partition, int numPartitions, MateThreatDetector detector, 
+			Set<Move> found, CancellationToken token) {
 		
-		@Override
-		public Set<Move> call() {
-			Set<Move> movesInWhichCheckMateArePossible = new HashSet<>();
-			Board b = new Board(board);
-			b.validateMoves(false);
-			b.setLogging(false);
-			
-			List<Move> moves = b.getAvailableMoves();
-			
-			for (int i = 0; i < moves.size(); ++i) {
-				if (i % totalNumRunners != myIdx) {
-					continue;
-				}
-				
-				var myMove = moves.get(i);
-				b.move(myMove);
-				
-				if (b.getResult() == null) {
-					for (var theirMove : b.getAvailableMoves()) {
-						b.move(theirMove);
-	
-						if (b.getResult() != null && 
-							b.getResult().getWinner() != null && 
-							b.getResult().getWinner() != ourColor) {
-							
-							movesInWhichCheckMateArePossible.add(myMove);
-						}
-						
-						b.undoLastMove();
-					}
-				}
-				
-				b.undoLastMove();
+		Board b = new Board(board);
+		b.validateMoves(false);
+		b.setLogging(false);
+
+		for (int i = partition; i < moves.size(); i += numPartitions) {
+			if (token.isCancelled()) {
+				return false;
+			}
+
+			Move myMove = moves.get(i);
+			b.move(myMove);
+			if (b.getResult() == null && detector.hasMate(b, mateDepth)) {
+				found.add(myMove);
 			}
-			
-			
-			return movesInWhichCheckMateArePossible;
+			b.undoLastMove();
 		}
-		
+		return true;
 	}
-	
+
 	@Override
 	public double vote(Color ourColor, Board boardBefore, Board boardAfter, Move m) {
 		return moveValues == null ? 0 : moveValues.get(m);
@@ -1,38 +1,40 @@
 package martin.chess.strategy.traits;
 
-import java.util.HashSet;
-import java.util.Set;
-
 import martin.chess.engine.Board;
 import martin.chess.engine.Color;
 import martin.chess.engine.Move;
 import martin.chess.engine.Piece;
+import martin.chess.engine.PositionAnalysis;
+import martin.chess.strategy.CancellationToken;
 
 /**
  * If a piece is exposed, try to remove it 
  */
 public class AvoidPieceExposureTrait extends Trait {
 	
-	private Set<Integer> attackedIndexes;
+	private long attackedSquares;
 	
 	@Override
-	public void initialize(Board boardBefore) {
-		Board b = new Board(boardBefore);
-		b.setColorToMove(b.getColorToMove().getOpposite());
-		
-		attackedIndexes = new HashSet<>();
-		for (var move : b.getAvailableMoves()) {
-			attackedIndexes.add(move.getIdxTo());
-		}
+	public void initialize(Board boardBefore, PositionAnalysis analysis, CancellationToken token) {
+		attackedSquares = analysis.getAttacks(analysis.getColorToMove().getOpposite());
 	}
 	
 	@Override
 	public double vote(Color ourColor, Board boardBefore, Board boardAfter, Move m) {
-		if (attackedIndexes.contains(m.getIdxFrom()) && !attackedIndexes.contains(m.getIdxTo())) {
+		if (isAttacked(m.getIdxFrom()) && !isAttacked(m.getIdxTo())) {
 			Piece piece = boardBefore.pieceAt(m.getIdxFrom());
 			return piece.getType().getValue();
 		}
 		
 		return 0;
 	}
+	
+	@Override
+	public double evaluate(Board board, Color ourColor) {
+		return -getExposedValue(board, ourColor);
+	}
+	
+	private boolean isAttacked(int idx) {
+		return (attackedSquares & (1L << idx)) != 0;
+	}
 }
@@ -13,5 +13,10 @@ public class CapturePieceTrait extends Trait {
 	public double vote(Color ourColor, Board boardBefore, Board boardAfter, Move m) {
 		return boardBefore.getPieceValue(ourColor.getOpposite()) - boardAfter.getPieceValue(ourColor.getOpposite());
 	}
+	
+	@Override
+	public double evaluate(Board board, Color ourColor) {
+		return -board.getPieceValue(ourColor.getOpposite());
+	}
 
 }
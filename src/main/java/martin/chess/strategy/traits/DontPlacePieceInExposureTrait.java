@@ -13,22 +13,22 @@ public class DontPlacePieceInExposureTrait extends Trait {
 	@Override
 	public double vote(Color ourColor, Board boardBefore, Board boardAfter, Move m) {
 		
-		// See if any available moves are directed towards the square my piece moved to
+		// See if the opponent attacks the square my piece moved to. The board has already computed this. 
 		Piece piece = boardBefore.pieceAt(m.getIdxFrom());
 		
-		long piecesAttackingMyPiece = 0;
-		for (var move : boardAfter.getAvailableMoves()) {
-			if (move.getIdxTo() == m.getIdxTo()) {
-				//System.out.println(move + " would attack my " + piece.toString() + " move " + m);
-				piecesAttackingMyPiece++;
-			}
-		}
-		
-		if (piecesAttackingMyPiece == 0) {
+		if (!boardAfter.isAttacked(m.getIdxTo(), ourColor.getOpposite())) {
 			return 0;
 		}
 		
 		return -piece.getType().getValue();
 	}
+	
+	/**
+	 * Only the pieces that are left undefended, since AvoidPieceExposure already counts every attacked piece
+	 */
+	@Override
+	public double evaluate(Board board, Color ourColor) {
+		return -getHangingValue(board, ourColor);
+	}
 
 }
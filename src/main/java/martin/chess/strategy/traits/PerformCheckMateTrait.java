@@ -2,6 +2,7 @@ package martin.chess.strategy.traits;
 
 import martin.chess.engine.Board;
 import martin.chess.engine.Color;
+import martin.chess.engine.GameResultData;
 import martin.chess.engine.Move;
 
 /**
@@ -18,4 +19,10 @@ public class PerformCheckMateTrait extends Trait{
 		}
 		return 0;
 	}
+	
+	@Override
+	public double evaluate(Board board, Color ourColor) {
+		GameResultData result = board.getResult();
+		return result != null && result.getWinner() == ourColor ? 10000 : 0;
+	}
 }
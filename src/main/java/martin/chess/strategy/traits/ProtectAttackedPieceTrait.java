@@ -1,28 +1,21 @@
 package martin.chess.strategy.traits;
 
-import java.util.HashSet;
-import java.util.Set;
-
 import martin.chess.engine.Board;
 import martin.chess.engine.Color;
 import martin.chess.engine.Move;
+import martin.chess.engine.PositionAnalysis;
+import martin.chess.strategy.CancellationToken;
 
 /**
  * Prefers a move that would protect our own undefended piece
  */
 public class ProtectAttackedPieceTrait extends Trait {
 
-	private Set<Integer> attackedIndexes;
+	private long attackedSquares;
 	
 	@Override
-	public void initialize(Board boardBefore) {
-		Board b = new Board(boardBefore);
-		b.setColorToMove(b.getColorToMove().getOpposite());
-		
-		attackedIndexes = new HashSet<>();
-		for (var move : b.getAvailableMoves()) {
-			attackedIndexes.add(move.getIdxTo());
-		}
+	public void initialize(Board boardBefore, PositionAnalysis analysis, CancellationToken token) {
+		attackedSquares = analysis.getAttacks(analysis.getColorToMove().getOpposite());
 	}
 
 	@Override
@@ -5,6 +5,10 @@ import java.util.concurrent.ExecutorService;
 import martin.chess.engine.Board;
 import martin.chess.engine.Color;
 import martin.chess.engine.Move;
+import martin.chess.engine.Piece;
+import martin.chess.engine.PieceType;
+import martin.chess.engine.PositionAnalysis;
+import martin.chess.strategy.CancellationToken;
 
 public abstract class Trait {
 	
@@ -14,10 +18,67 @@ public abstract class Trait {
 		this.executorService = executorService;
 	}
 
-	public void initialize(Board boardBefore) {
+	/**
+	 * Initializes the trait for a new decision, analyzing the position itself 
+	 */
+	public final void initialize(Board boardBefore) {
+		initialize(boardBefore, new PositionAnalysis(boardBefore), CancellationToken.forCurrentThread());
 	}
 	
+	/**
+	 * Initializes the trait for a new decision. The analysis is shared by all traits. 
+	 * Gives up as soon as possible once the token is cancelled.
+	 */
+	public void initialize(Board boardBefore, PositionAnalysis analysis, CancellationToken token) {
+	}
+	
+	/**
+	 * The trait's opinion of a move, positive for good moves.
+	 * 
+	 * Once initialize has returned, TraitStrategy calls this from several threads at once, each with 
+	 * its own boardAfter. It may read what initialize computed, but must not change the trait's state.
+	 */
 	public abstract double vote(Color ourColor, Board boardBefore, Board boardAfter, Move m);
+	
+	/**
+	 * Evaluates a position for the given color, without looking at the move that led to it. A vote is 
+	 * roughly the evaluation after the move minus the evaluation before it.
+	 * 
+	 * Used as leaf evaluation in searches, so it must not allocate and may only read what the board 
+	 * already keeps up to date. Traits that can't judge a single position return 0.
+	 */
+	public double evaluate(Board board, Color ourColor) {
+		return 0;
+	}
+	
+	/**
+	 * The summed value of the pieces of the color, except the king, that the opponent attacks
+	 */
+	protected static int getExposedValue(Board board, Color color) {
+		return getValueOn(board, color, board.getCurrentState().getSideData(color.getOpposite()).attackedSquares);
+	}
+	
+	/**
+	 * The summed value of the pieces of the color, except the king, that the opponent attacks and 
+	 * that no piece of the color defends
+	 */
+	protected static int getHangingValue(Board board, Color color) {
+		long attacked = board.getCurrentState().getSideData(color.getOpposite()).attackedSquares;
+		long defended = board.getCurrentState().getSideData(color).attackedSquares;
+		return getValueOn(board, color, attacked & ~defended);
+	}
+	
+	private static int getValueOn(Board board, Color color, long mask) {
+		byte[] squares = board.getSquares();
+		int value = 0;
+		for (long left = mask; left != 0; left &= left - 1) {
+			Piece piece = Piece.fromCode(squares[Long.numberOfTrailingZeros(left)]);
+			if (piece != null && piece.getColor() == color && piece.getType() != PieceType.KING) {
+				value += piece.getType().getValue();
+			}
+		}
+		return value;
+	}
 
 	@Override
 	public String toString() {
@@ -0,0 +1,305 @@
+package martin.chess.tournament;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import martin.chess.strategy.StrategyConfig;
+
+/**
+ * Runs a match on Worker processes. Workers connect over a local socket and are handed one game pair
+ * at a time, see Protocol. If a worker dies, or takes longer than the pair timeout, its pair is put
+ * back in the queue for another worker, and a pair is only counted once however often it was sent.
+ * A pair that fails on too many workers, for example because it crashes them, fails the match.
+ *
+ * Strategies are sent as StrategyConfig descriptions, since workers create their own instances.
+ */
+public class Coordinator {
+
+	private static final long POLL_MILLIS = 100;
+
+	private final Player candidate;
+	private final String candidateConfig;
+	private final Player baseline;
+	private final String baselineConfig;
+	private final int pairs;
+
+	private OpeningSuite openings = OpeningSuite.INITIAL;
+	private int pairTimeoutMillis = 0;
+	private int maxAttempts = 3;
+	private Writer pgnOutput;
+	private Sprt sprt;
+
+	private final BlockingQueue<Integer> queue = new LinkedBlockingQueue<>();
+	private final Set<Integer> finished = ConcurrentHashMap.newKeySet();
+	private final Map<Integer, Integer> failures = new ConcurrentHashMap<>();
+	private final AtomicInteger connections = new AtomicInteger();
+	private final CountDownLatch done = new CountDownLatch(1);
+	private volatile String error;
+
+	private PlayerStats stats;
+	private Pentanomial pentanomial;
+	private ServerSocket serverSocket;
+	private long start;
+
+	public Coordinator(String candidateName, String candidateConfig, String baselineName, String baselineConfig, int pairs) {
+		this.candidate = new Player(candidateName, () -> StrategyConfig.create(candidateConfig));
+		this.candidateConfig = candidateConfig;
+		this.baseline = new Player(baselineName, () -> StrategyConfig.create(baselineConfig));
+		this.baselineConfig = baselineConfig;
+		this.pairs = pairs;
+
+		// Fail early on typos, rather than in every worker
+		StrategyConfig.create(candidateConfig);
+		StrategyConfig.create(baselineConfig);
+	}
+
+	/**
+	 * The starting positions, used in turn by the pairs
+	 */
+	public void setOpenings(List<String> openings) {
+		this.openings = OpeningSuite.of(openings);
+	}
+
+	public void setOpenings(OpeningSuite openings) {
+		this.openings = openings;
+	}
+
+	/**
+	 * A worker that hasn't returned a pair after this long is given up on, 0 to wait forever
+	 */
+	public void setPairTimeoutMillis(int pairTimeoutMillis) {
+		this.pairTimeoutMillis = pairTimeoutMillis;
+	}
+
+	/**
+	 * The number of workers a pair may fail on, by dying or timing out, before the match fails
+	 */
+	public void setMaxAttempts(int maxAttempts) {
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * The games are written here as PGN, in the order they are received
+	 */
+	public void setPgnOutput(Writer pgnOutput) {
+		this.pgnOutput = pgnOutput;
+	}
+
+	public void setSprt(Sprt sprt) {
+		this.sprt = sprt;
+	}
+
+	/**
+	 * Starts accepting workers on the loopback interface and returns the port to connect to
+	 */
+	public int start() throws IOException {
+		stats = new PlayerStats(candidate);
+		pentanomial = new Pentanomial();
+		for (int id = 0; id < pairs; ++id) {
+			queue.add(id);
+		}
+
+		serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		start = System.nanoTime();
+
+		Thread acceptor = new Thread(this::acceptWorkers, "Coordinator-Accept");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Starts worker processes on this machine, with the same Java and class path as this process
+	 */
+	public List<Process> launchLocalWorkers(int count) throws IOException {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		List<Process> processes = new ArrayList<>(count);
+		for (int i = 0; i < count; ++i) {
+			processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), Worker.class.getName(),
+					String.valueOf(serverSocket.getLocalPort()))
+					.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+					.redirectError(ProcessBuilder.Redirect.INHERIT)
+					.start());
+		}
+		return processes;
+	}
+
+	/**
+	 * Waits until all pairs are played or the SPRT is decided, then tells the workers to stop
+	 *
+	 * @throws IOException if a pair failed on too many workers
+	 */
+	public MatchResult awaitResult() throws InterruptedException, IOException {
+		done.await();
+		return finish();
+	}
+
+	/**
+	 * Like awaitResult(), but gives up on the match after the timeout, for example when all workers
+	 * have died with pairs left
+	 */
+	public MatchResult awaitResult(long timeout, TimeUnit unit) throws InterruptedException, IOException, TimeoutException {
+		if (!done.await(timeout, unit)) {
+			String message = "Timed out with " + finished.size() + " of " + pairs + " pairs played";
+			// The match may have ended just now
+			if (fail(message)) {
+				closeServerSocket();
+				throw new TimeoutException(message);
+			}
+		}
+		return finish();
+	}
+
+	private MatchResult finish() throws IOException {
+		closeServerSocket();
+		if (error != null) {
+			throw new IOException(error);
+		}
+		return new MatchResult(stats, pentanomial, sprt, System.nanoTime() - start);
+	}
+
+	private void closeServerSocket() {
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			// Already closed
+		}
+	}
+
+	/**
+	 * The number of workers that have connected so far
+	 */
+	public int getConnections() {
+		return connections.get();
+	}
+
+	private void acceptWorkers() {
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				connections.incrementAndGet();
+				Thread handler = new Thread(() -> serve(socket), "Coordinator-Worker-" + connections.get());
+				handler.setDaemon(true);
+				handler.start();
+			} catch (IOException e) {
+				// Closed when done
+			}
+		}
+	}
+
+	/**
+	 * Hands out pairs to one worker until all are done or the worker fails
+	 */
+	private void serve(Socket socket) {
+		Integer id = null;
+		try (socket) {
+			socket.setSoTimeout(pairTimeoutMillis);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+			while (done.getCount() > 0) {
+				id = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+				if (id == null || finished.contains(id)) {
+					id = null;
+					continue;
+				}
+
+				out.writeByte(Protocol.PAIR);
+				out.writeInt(id);
+				Protocol.writeString(out, openings.get(id));
+				Protocol.writeString(out, candidate.getName());
+				Protocol.writeString(out, candidateConfig);
+				Protocol.writeString(out, baseline.getName());
+				Protocol.writeString(out, baselineConfig);
+				out.flush();
+
+				if (in.readByte() != Protocol.RESULT || in.readInt() != id) {
+					throw new IOException("Unexpected reply");
+				}
+				double first = in.readDouble();
+				double second = in.readDouble();
+				String pgn1 = Protocol.readString(in);
+				String pgn2 = Protocol.readString(in);
+				onPairFinished(id, first, second, pgn1, pgn2);
+				id = null;
+			}
+
+			out.writeByte(Protocol.STOP);
+			out.flush();
+		} catch (IOException e) {
+			// The worker died or timed out, someone else gets its pair
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			if (id != null && !finished.contains(id)) {
+				int attempts = failures.merge(id, 1, Integer::sum);
+				if (attempts < maxAttempts) {
+					queue.add(id);
+				} else {
+					fail("Pair " + id + " failed on " + attempts + " workers");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Ends the match without a result, unless it has already ended
+	 *
+	 * @return whether the match was failed
+	 */
+	private synchronized boolean fail(String message) {
+		if (done.getCount() == 0) {
+			return false;
+		}
+		error = message;
+		done.countDown();
+		return true;
+	}
+
+	/**
+	 * Synchronized so the counts, the PGN and the decision always agree, results are rare enough
+	 */
+	private synchronized void onPairFinished(int id, double first, double second, String pgn1, String pgn2) {
+		if (!finished.add(id) || done.getCount() == 0) {
+			// Played twice after a timeout, or too late
+			return;
+		}
+		stats.add(first);
+		stats.add(second);
+		pentanomial.add(first, second);
+
+		if (pgnOutput != null) {
+			try {
+				pgnOutput.write(pgn1);
+				pgnOutput.write(pgn2);
+				pgnOutput.flush();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		if (finished.size() == pairs || (sprt != null && sprt.getDecision(pentanomial) != Sprt.Decision.UNDECIDED)) {
+			done.countDown();
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package martin.chess.tournament;
+
+/**
+ * Elo differences estimated from game results, using the logistic model where a score fraction p
+ * corresponds to an Elo difference of -400 * log10(1 / p - 1).
+ */
+public final class Elo {
+
+	// Two-sided 95% confidence
+	private static final double Z_95 = 1.959964;
+
+	private Elo() {
+	}
+
+	/**
+	 * The Elo difference that gives the expected score fraction, infinite for 0 and 1
+	 */
+	public static double fromScore(double score) {
+		return -400 * Math.log10(1 / score - 1);
+	}
+
+	/**
+	 * The expected score fraction for the Elo difference
+	 */
+	public static double toScore(double elo) {
+		return 1 / (1 + Math.pow(10, -elo / 400));
+	}
+
+	/**
+	 * Estimates the Elo difference from the wins, draws and losses of one side, with a 95% confidence interval
+	 */
+	public static Estimate estimate(long wins, long draws, long losses) {
+		long games = wins + draws + losses;
+		if (games == 0) {
+			return new Estimate(0, 0, Double.NaN, Double.NaN);
+		}
+
+		double score = (wins + draws / 2d) / games;
+
+		// The standard error of the mean score per game
+		double variance = (wins * sq(1 - score) + draws * sq(0.5 - score) + losses * sq(score)) / games;
+		double error = Math.sqrt(variance / games);
+
+		double low = Math.max(0, score - Z_95 * error);
+		double high = Math.min(1, score + Z_95 * error);
+		return new Estimate(games, fromScore(score), fromScore(low), fromScore(high));
+	}
+
+	private static double sq(double value) {
+		return value * value;
+	}
+
+	public static class Estimate {
+		private final long games;
+		private final double elo;
+		private final double low;
+		private final double high;
+
+		Estimate(long games, double elo, double low, double high) {
+			this.games = games;
+			this.elo = elo;
+			this.low = low;
+			this.high = high;
+		}
+
+		public long getGames() {
+			return games;
+		}
+
+		public double getElo() {
+			return elo;
+		}
+
+		/**
+		 * The lower bound of the 95% confidence interval
+		 */
+		public double getLow() {
+			return low;
+		}
+
+		/**
+		 * The upper bound of the 95% confidence interval
+		 */
+		public double getHigh() {
+			return high;
+		}
+
+		/**
+		 * Half the width of the confidence interval, not a number if all games were won or lost
+		 */
+		public double getError() {
+			return (high - low) / 2;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%.1f +/- %.1f", elo, getError());
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package martin.chess.tournament;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Color;
+import martin.chess.engine.GameResultData;
+import martin.chess.pgn.PgnGame;
+import martin.chess.pgn.PgnWriter;
+import martin.chess.strategy.IPlayerStrategy;
+
+/**
+ * Plays a game between two strategies on the calling thread
+ */
+public final class GameRunner {
+
+	private GameRunner() {
+	}
+
+	/**
+	 * Plays from the given position until the game is over, and returns the board with the moves and the result
+	 */
+	public static Board play(IPlayerStrategy white, IPlayerStrategy black, String fen) throws InterruptedException {
+		Board board = new Board(fen);
+		board.setLogging(false);
+
+		while (board.getResult() == null) {
+			IPlayerStrategy toMove = board.getColorToMove() == Color.WHITE ? white : black;
+			board.move(toMove.getMove(board));
+		}
+		return board;
+	}
+
+	/**
+	 * The points white got in the finished game: 1, 0.5 or 0
+	 */
+	public static double getWhiteScore(Board board) {
+		GameResultData result = board.getResult();
+		if (result.getWinner() == null) {
+			return 0.5;
+		}
+		return result.getWinner() == Color.WHITE ? 1 : 0;
+	}
+
+	static void write(PgnWriter pgnWriter, Board board, Player white, Player black) {
+		PgnGame game = PgnGame.fromBoard(board);
+		game.setTag("White", white.getName());
+		game.setTag("Black", black.getName());
+		try {
+			pgnWriter.write(game);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
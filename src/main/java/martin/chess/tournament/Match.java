@@ -0,0 +1,118 @@
+package martin.chess.tournament;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import martin.chess.engine.Board;
+import martin.chess.pgn.PgnWriter;
+
+/**
+ * A match between a candidate and a baseline, played as game pairs with the colors reversed.
+ *
+ * Without an SPRT all pairs are played. With one, the match stops as soon as the test is decided
+ * after a finished pair; the pairs in progress are still completed and counted, but no new pairs
+ * are started.
+ */
+public class Match {
+
+	private final Player candidate;
+	private final Player baseline;
+	private final int maxPairs;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private OpeningSuite openings = OpeningSuite.INITIAL;
+	private PgnWriter pgnWriter;
+	private Sprt sprt;
+
+	/**
+	 * @param maxPairs the number of game pairs to play, with an SPRT the most to play
+	 */
+	public Match(Player candidate, Player baseline, int maxPairs) {
+		this.candidate = candidate;
+		this.baseline = baseline;
+		this.maxPairs = maxPairs;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public void setStartingPosition(String fen) {
+		this.openings = OpeningSuite.of(List.of(fen));
+	}
+
+	/**
+	 * The openings are used in turn, each by one game pair
+	 */
+	public void setOpenings(OpeningSuite openings) {
+		this.openings = openings;
+	}
+
+	public void setPgnWriter(PgnWriter pgnWriter) {
+		this.pgnWriter = pgnWriter;
+	}
+
+	/**
+	 * Stops the match once the test is decided
+	 */
+	public void setSprt(Sprt sprt) {
+		this.sprt = sprt;
+	}
+
+	public MatchResult run() throws InterruptedException {
+		PlayerStats stats = new PlayerStats(candidate);
+		Pentanomial pentanomial = new Pentanomial();
+		AtomicLong pairsStarted = new AtomicLong();
+		AtomicBoolean decided = new AtomicBoolean();
+
+		long start = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(threads, Tournament.daemonThreads("Match"));
+		try {
+			List<Future<?>> futures = new ArrayList<>(threads);
+			for (int i = 0; i < threads; ++i) {
+				futures.add(executor.submit(() -> {
+					long pair;
+					while (!decided.get() && (pair = pairsStarted.getAndIncrement()) < maxPairs) {
+						String fen = openings.get(pair);
+						double first = playGame(candidate, baseline, fen);
+						double second = 1 - playGame(baseline, candidate, fen);
+						stats.add(first);
+						stats.add(second);
+						pentanomial.add(first, second);
+
+						if (sprt != null && sprt.getDecision(pentanomial) != Sprt.Decision.UNDECIDED) {
+							decided.set(true);
+						}
+					}
+					return null;
+				}));
+			}
+
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return new MatchResult(stats, pentanomial, sprt, System.nanoTime() - start);
+	}
+
+	/**
+	 * Plays a game and returns the points white got
+	 */
+	private double playGame(Player white, Player black, String fen) throws InterruptedException {
+		Board board = GameRunner.play(white.newStrategy(), black.newStrategy(), fen);
+		if (pgnWriter != null) {
+			GameRunner.write(pgnWriter, board, white, black);
+		}
+		return GameRunner.getWhiteScore(board);
+	}
+}
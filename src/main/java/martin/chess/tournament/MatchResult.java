@@ -0,0 +1,55 @@
+package martin.chess.tournament;
+
+/**
+ * The results of a match, seen from the candidate
+ */
+public class MatchResult {
+
+	private final PlayerStats stats;
+	private final Pentanomial pentanomial;
+	private final Sprt sprt;
+	private final long elapsedNanos;
+
+	MatchResult(PlayerStats stats, Pentanomial pentanomial, Sprt sprt, long elapsedNanos) {
+		this.stats = stats;
+		this.pentanomial = pentanomial;
+		this.sprt = sprt;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	public PlayerStats getStats() {
+		return stats;
+	}
+
+	public Pentanomial getPentanomial() {
+		return pentanomial;
+	}
+
+	/**
+	 * The decision of the SPRT, UNDECIDED if there was none or it ran out of pairs
+	 */
+	public Sprt.Decision getDecision() {
+		return sprt == null ? Sprt.Decision.UNDECIDED : sprt.getDecision(pentanomial);
+	}
+
+	/**
+	 * The log-likelihood ratio of the SPRT, 0 if there was none
+	 */
+	public double getLLR() {
+		return sprt == null ? 0 : sprt.getLLR(pentanomial);
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%s in %.1f seconds, pairs %s", stats, elapsedNanos / 1e9, pentanomial));
+		if (sprt != null) {
+			sb.append(String.format(", LLR %.2f (%.2f, %.2f): %s", getLLR(), sprt.getLowerBound(), sprt.getUpperBound(), getDecision()));
+		}
+		return sb.toString();
+	}
+}
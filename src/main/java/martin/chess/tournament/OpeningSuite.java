@@ -0,0 +1,116 @@
+package martin.chess.tournament;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import martin.chess.engine.Board;
+
+/**
+ * Starting positions for matches, so that strategies that play the same moves from the same position
+ * still give different games. Each opening is played as a game pair with the colors reversed.
+ *
+ * A suite is loaded once and never changes, so all game threads share it without locking.
+ */
+public final class OpeningSuite {
+
+	public static final OpeningSuite INITIAL = new OpeningSuite(List.of(Board.INITIAL_STATE));
+
+	private final List<String> fens;
+
+	private OpeningSuite(List<String> fens) {
+		if (fens.isEmpty()) {
+			throw new IllegalArgumentException("No openings");
+		}
+		this.fens = List.copyOf(fens);
+	}
+
+	public static OpeningSuite of(List<String> fens) {
+		return new OpeningSuite(fens);
+	}
+
+	/**
+	 * Reads one position per line, as FEN or EPD. Blank lines and lines starting with # are skipped.
+	 */
+	public static OpeningSuite load(Path path) throws IOException {
+		try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			return load(reader);
+		}
+	}
+
+	public static OpeningSuite load(Reader reader) throws IOException {
+		BufferedReader lines = new BufferedReader(reader);
+		List<String> fens = new ArrayList<>();
+		String line;
+		int lineNumber = 0;
+		while ((line = lines.readLine()) != null) {
+			++lineNumber;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			try {
+				String fen = toFen(line);
+				// Fail on a bad position now, rather than in a game thread
+				new Board(fen);
+				fens.add(fen);
+			} catch (RuntimeException e) {
+				throw new IOException("Bad position on line " + lineNumber + ": " + line, e);
+			}
+		}
+		return new OpeningSuite(fens);
+	}
+
+	/**
+	 * EPD has the first four FEN fields followed by operations, of which hmvc and fmvn give the move
+	 * counters. A FEN is returned as it is.
+	 */
+	static String toFen(String line) {
+		String[] fields = line.split("\\s+", 5);
+		if (fields.length < 4) {
+			throw new IllegalArgumentException("Expected at least four fields");
+		}
+		String position = fields[0] + " " + fields[1] + " " + fields[2] + " " + fields[3];
+		if (fields.length == 4) {
+			return position + " 0 1";
+		}
+
+		String rest = fields[4];
+		if (rest.matches("\\d+\\s+\\d+.*")) {
+			String[] counters = rest.split("\\s+", 3);
+			return position + " " + counters[0] + " " + counters[1];
+		}
+
+		String halfMoveClock = "0";
+		String moveNumber = "1";
+		for (String operation : rest.split(";")) {
+			String[] words = operation.trim().split("\\s+", 2);
+			if (words.length == 2 && words[0].equals("hmvc")) {
+				halfMoveClock = words[1].trim();
+			} else if (words.length == 2 && words[0].equals("fmvn")) {
+				moveNumber = words[1].trim();
+			}
+		}
+		return position + " " + halfMoveClock + " " + moveNumber;
+	}
+
+	public int size() {
+		return fens.size();
+	}
+
+	/**
+	 * The opening for the given game pair, the suite is used in turn
+	 */
+	public String get(long pair) {
+		return fens.get((int) (pair % fens.size()));
+	}
+
+	public List<String> getFens() {
+		return fens;
+	}
+}
@@ -0,0 +1,54 @@
+package martin.chess.tournament;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts game pairs by the points one player got in them: 0, 0.5, 1, 1.5 or 2.
+ *
+ * The two games of a pair are played from the same position with the colors reversed, so their
+ * results are correlated. Treating the pair as one sample takes that into account, where counting
+ * wins, draws and losses would overstate the variance. Pairs are added without locking.
+ */
+public class Pentanomial {
+
+	private final AtomicLongArray counts = new AtomicLongArray(5);
+
+	/**
+	 * Adds a pair from the scores of the player in its two games, each 1, 0.5 or 0
+	 */
+	public void add(double firstScore, double secondScore) {
+		counts.incrementAndGet((int) Math.round((firstScore + secondScore) * 2));
+	}
+
+	/**
+	 * The number of pairs where the player got the given number of half points, 0 to 4
+	 */
+	public long getCount(int halfPoints) {
+		return counts.get(halfPoints);
+	}
+
+	/**
+	 * A copy of the counts, indexed by half points
+	 */
+	public long[] getCounts() {
+		long[] copy = new long[5];
+		for (int i = 0; i < copy.length; ++i) {
+			copy[i] = counts.get(i);
+		}
+		return copy;
+	}
+
+	public long getPairs() {
+		long pairs = 0;
+		for (int i = 0; i < 5; ++i) {
+			pairs += counts.get(i);
+		}
+		return pairs;
+	}
+
+	@Override
+	public String toString() {
+		long[] c = getCounts();
+		return String.format("[%d, %d, %d, %d, %d]", c[0], c[1], c[2], c[3], c[4]);
+	}
+}
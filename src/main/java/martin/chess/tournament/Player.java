@@ -0,0 +1,33 @@
+package martin.chess.tournament;
+
+import java.util.function.Supplier;
+
+import martin.chess.strategy.IPlayerStrategy;
+
+/**
+ * A tournament participant. Strategies keep state between moves and are not safe to share between
+ * games running at the same time, so every game gets a new strategy from the supplier.
+ */
+public class Player {
+
+	private final String name;
+	private final Supplier<IPlayerStrategy> strategySupplier;
+
+	public Player(String name, Supplier<IPlayerStrategy> strategySupplier) {
+		this.name = name;
+		this.strategySupplier = strategySupplier;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public IPlayerStrategy newStrategy() {
+		return strategySupplier.get();
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,70 @@
+package martin.chess.tournament;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The results of one player, updated by the game threads without locking
+ */
+public class PlayerStats {
+
+	private final Player player;
+	private final LongAdder wins = new LongAdder();
+	private final LongAdder draws = new LongAdder();
+	private final LongAdder losses = new LongAdder();
+
+	PlayerStats(Player player) {
+		this.player = player;
+	}
+
+	/**
+	 * Adds a game with the given points: 1, 0.5 or 0
+	 */
+	void add(double score) {
+		if (score == 1) {
+			wins.increment();
+		} else if (score == 0) {
+			losses.increment();
+		} else {
+			draws.increment();
+		}
+	}
+
+	public Player getPlayer() {
+		return player;
+	}
+
+	public long getWins() {
+		return wins.sum();
+	}
+
+	public long getDraws() {
+		return draws.sum();
+	}
+
+	public long getLosses() {
+		return losses.sum();
+	}
+
+	public long getGames() {
+		return getWins() + getDraws() + getLosses();
+	}
+
+	/**
+	 * Wins plus half the draws
+	 */
+	public double getScore() {
+		return getWins() + getDraws() / 2d;
+	}
+
+	/**
+	 * The Elo of the player relative to its opponents
+	 */
+	public Elo.Estimate getElo() {
+		return Elo.estimate(getWins(), getDraws(), getLosses());
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: %d games, +%d =%d -%d, Elo %s", player, getGames(), getWins(), getDraws(), getLosses(), getElo());
+	}
+}
@@ -0,0 +1,46 @@
+package martin.chess.tournament;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The messages between a Coordinator and its Workers. Every message starts with its type as a byte,
+ * followed by its fields. Strings are sent as a length and UTF-8 bytes, since PGN can be longer than
+ * writeUTF allows.
+ *
+ *   PAIR      id, fen, first name, first strategy, second name, second strategy
+ *   RESULT    id, first player's score in game 1, in game 2, PGN of game 1, PGN of game 2
+ *   STOP
+ *
+ * In the first game of a pair the first player has white, in the second game black.
+ */
+final class Protocol {
+
+	static final byte PAIR = 1;
+	static final byte RESULT = 2;
+	static final byte STOP = 3;
+
+	// Guards against reading garbage as a huge length
+	private static final int MAX_STRING_BYTES = 1 << 24;
+
+	private Protocol() {
+	}
+
+	static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > MAX_STRING_BYTES) {
+			throw new IOException("Bad string length: " + length);
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
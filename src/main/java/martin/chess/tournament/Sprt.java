@@ -0,0 +1,107 @@
+package martin.chess.tournament;
+
+/**
+ * A sequential probability ratio test of whether a player is elo0 or elo1 Elo stronger than its opponent.
+ *
+ * The log-likelihood ratio is computed from the pentanomial counts with the normal approximation
+ * used by most engine testing frameworks: with N pairs, a mean score per game of m and a variance
+ * per pair of v (scores scaled to 0-1), LLR = N (s1 - s0) (2m - s0 - s1) / 2v, where s0 and s1 are
+ * the expected scores at elo0 and elo1. The test stops when the LLR leaves the Wald bounds given by
+ * alpha (accepting H1 when H0 is true) and beta (accepting H0 when H1 is true).
+ */
+public class Sprt {
+
+	public enum Decision {
+		/**
+		 * The difference is elo0 rather than elo1
+		 */
+		H0,
+
+		/**
+		 * The difference is elo1 rather than elo0
+		 */
+		H1,
+
+		UNDECIDED
+	}
+
+	// Added to every count, otherwise a match where all pairs end the same has no variance and never ends
+	private static final double PRIOR = 0.1;
+
+	private final double elo0;
+	private final double elo1;
+	private final double alpha;
+	private final double beta;
+	private final double lowerBound;
+	private final double upperBound;
+
+	public Sprt(double elo0, double elo1, double alpha, double beta) {
+		if (elo1 <= elo0) {
+			throw new IllegalArgumentException("elo1 must be greater than elo0");
+		}
+		if (alpha <= 0 || alpha >= 1 || beta <= 0 || beta >= 1) {
+			throw new IllegalArgumentException("alpha and beta must be between 0 and 1");
+		}
+		this.elo0 = elo0;
+		this.elo1 = elo1;
+		this.alpha = alpha;
+		this.beta = beta;
+		this.lowerBound = Math.log(beta / (1 - alpha));
+		this.upperBound = Math.log((1 - beta) / alpha);
+	}
+
+	/**
+	 * The log-likelihood ratio of H1 against H0
+	 */
+	public double getLLR(Pentanomial pentanomial) {
+		long[] counts = pentanomial.getCounts();
+		if (pentanomial.getPairs() == 0) {
+			return 0;
+		}
+		
+		double pairs = 0;
+		double sum = 0;
+		double sumSquares = 0;
+		for (int i = 0; i < counts.length; ++i) {
+			double score = i / 4d;
+			double count = counts[i] + PRIOR;
+			pairs += count;
+			sum += count * score;
+			sumSquares += count * score * score;
+		}
+
+		double mean = sum / pairs;
+		double variance = sumSquares / pairs - mean * mean;
+		if (variance <= 0) {
+			return 0;
+		}
+
+		double s0 = Elo.toScore(elo0);
+		double s1 = Elo.toScore(elo1);
+		return pairs * (s1 - s0) * (2 * mean - s0 - s1) / (2 * variance);
+	}
+
+	public Decision getDecision(Pentanomial pentanomial) {
+		double llr = getLLR(pentanomial);
+		if (llr >= upperBound) {
+			return Decision.H1;
+		}
+		if (llr <= lowerBound) {
+			return Decision.H0;
+		}
+		return Decision.UNDECIDED;
+	}
+
+	public double getLowerBound() {
+		return lowerBound;
+	}
+
+	public double getUpperBound() {
+		return upperBound;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("SPRT elo0 = %.1f, elo1 = %.1f, alpha = %.3f, beta = %.3f", elo0, elo1, alpha, beta);
+	}
+}
@@ -0,0 +1,123 @@
+package martin.chess.tournament;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import martin.chess.engine.Board;
+import martin.chess.pgn.PgnWriter;
+
+/**
+ * A round-robin tournament with the games spread over a thread pool.
+ *
+ * In every round each pair of players plays two games with the colors reversed. The game pairs are
+ * independent tasks, so all cores are busy until the last few pairs. Results are added to per-player
+ * accumulators that the game threads update without locking.
+ */
+public class Tournament {
+
+	private final List<Player> players;
+	private final int rounds;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private OpeningSuite openings = OpeningSuite.INITIAL;
+	private PgnWriter pgnWriter;
+
+	/**
+	 * @param rounds the number of game pairs each pair of players plays
+	 */
+	public Tournament(List<Player> players, int rounds) {
+		if (players.size() < 2) {
+			throw new IllegalArgumentException("A tournament needs at least two players");
+		}
+		this.players = new ArrayList<>(players);
+		this.rounds = rounds;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public void setStartingPosition(String fen) {
+		this.openings = OpeningSuite.of(List.of(fen));
+	}
+
+	/**
+	 * The openings are used in turn, each by one round, so every pair of players plays the same openings
+	 */
+	public void setOpenings(OpeningSuite openings) {
+		this.openings = openings;
+	}
+
+	/**
+	 * Finished games are written here, in the order they finish
+	 */
+	public void setPgnWriter(PgnWriter pgnWriter) {
+		this.pgnWriter = pgnWriter;
+	}
+
+	/**
+	 * Plays all games and returns the results. If interrupted the games in progress are abandoned.
+	 */
+	public TournamentResult run() throws InterruptedException {
+		Map<Player, PlayerStats> stats = new LinkedHashMap<>();
+		for (Player player : players) {
+			stats.put(player, new PlayerStats(player));
+		}
+
+		long start = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(threads, daemonThreads("Tournament"));
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int round = 0; round < rounds; ++round) {
+				for (int i = 0; i < players.size(); ++i) {
+					for (int j = i + 1; j < players.size(); ++j) {
+						PlayerStats first = stats.get(players.get(i));
+						PlayerStats second = stats.get(players.get(j));
+						String fen = openings.get(round);
+						futures.add(executor.submit(() -> {
+							playGame(first, second, fen);
+							playGame(second, first, fen);
+							return null;
+						}));
+					}
+				}
+			}
+
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return new TournamentResult(new ArrayList<>(stats.values()), System.nanoTime() - start);
+	}
+
+	private void playGame(PlayerStats white, PlayerStats black, String fen) throws InterruptedException {
+		Board board = GameRunner.play(white.getPlayer().newStrategy(), black.getPlayer().newStrategy(), fen);
+		white.add(GameRunner.getWhiteScore(board));
+		black.add(1 - GameRunner.getWhiteScore(board));
+
+		if (pgnWriter != null) {
+			GameRunner.write(pgnWriter, board, white.getPlayer(), black.getPlayer());
+		}
+	}
+
+	static ThreadFactory daemonThreads(String name) {
+		AtomicInteger counter = new AtomicInteger();
+		return r -> {
+			Thread thread = new Thread(r, name + "-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
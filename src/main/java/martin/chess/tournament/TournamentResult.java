@@ -0,0 +1,63 @@
+package martin.chess.tournament;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The final results of a tournament
+ */
+public class TournamentResult {
+
+	private final List<PlayerStats> stats;
+	private final long elapsedNanos;
+
+	TournamentResult(List<PlayerStats> stats, long elapsedNanos) {
+		this.stats = stats;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * The results in the order the players were given
+	 */
+	public List<PlayerStats> getStats() {
+		return stats;
+	}
+
+	public PlayerStats getStats(Player player) {
+		for (PlayerStats playerStats : stats) {
+			if (playerStats.getPlayer() == player) {
+				return playerStats;
+			}
+		}
+		throw new IllegalArgumentException("Not in the tournament: " + player);
+	}
+
+	/**
+	 * The results with the highest score first
+	 */
+	public List<PlayerStats> getStandings() {
+		List<PlayerStats> standings = new ArrayList<>(stats);
+		standings.sort(Comparator.comparingDouble(PlayerStats::getScore).reversed());
+		return standings;
+	}
+
+	public long getGames() {
+		return stats.stream().mapToLong(PlayerStats::getGames).sum() / 2;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("Played %d games in %.1f seconds%n", getGames(), elapsedNanos / 1e9));
+		int rank = 1;
+		for (PlayerStats playerStats : getStandings()) {
+			sb.append(String.format("%3d. %s%n", rank++, playerStats));
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,96 @@
+package martin.chess.tournament;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.function.Supplier;
+
+import martin.chess.engine.Board;
+import martin.chess.pgn.PgnWriter;
+import martin.chess.strategy.IPlayerStrategy;
+import martin.chess.strategy.StrategyConfig;
+
+/**
+ * Plays the game pairs a Coordinator hands out, one at a time, until told to stop or the connection
+ * is lost. Run one worker process per core:
+ *
+ *   java -cp ... martin.chess.tournament.Worker port [host]
+ */
+public class Worker {
+
+	private final Socket socket;
+
+	public Worker(String host, int port) throws IOException {
+		this.socket = new Socket(host == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(host), port);
+	}
+
+	/**
+	 * Plays pairs until the coordinator says stop or closes the connection
+	 */
+	public void run() throws IOException, InterruptedException {
+		try (socket) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+			while (true) {
+				byte type;
+				try {
+					type = in.readByte();
+				} catch (EOFException e) {
+					return;
+				}
+				if (type == Protocol.STOP) {
+					return;
+				}
+				if (type != Protocol.PAIR) {
+					throw new IOException("Unexpected message: " + type);
+				}
+				playPair(in, out);
+			}
+		}
+	}
+
+	private void playPair(DataInputStream in, DataOutputStream out) throws IOException, InterruptedException {
+		int id = in.readInt();
+		String fen = Protocol.readString(in);
+		Player first = new Player(Protocol.readString(in), configured(Protocol.readString(in)));
+		Player second = new Player(Protocol.readString(in), configured(Protocol.readString(in)));
+
+		Board game1 = GameRunner.play(first.newStrategy(), second.newStrategy(), fen);
+		Board game2 = GameRunner.play(second.newStrategy(), first.newStrategy(), fen);
+
+		out.writeByte(Protocol.RESULT);
+		out.writeInt(id);
+		out.writeDouble(GameRunner.getWhiteScore(game1));
+		out.writeDouble(1 - GameRunner.getWhiteScore(game2));
+		Protocol.writeString(out, toPgn(game1, first, second));
+		Protocol.writeString(out, toPgn(game2, second, first));
+		out.flush();
+	}
+
+	private static Supplier<IPlayerStrategy> configured(String config) {
+		// Fails here rather than in the middle of a game
+		StrategyConfig.create(config);
+		return () -> StrategyConfig.create(config);
+	}
+
+	private static String toPgn(Board board, Player white, Player black) {
+		StringWriter pgn = new StringWriter();
+		GameRunner.write(new PgnWriter(pgn), board, white, black);
+		return pgn.toString();
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.err.println("Usage: Worker port [host]");
+			System.exit(1);
+		}
+		new Worker(args.length > 1 ? args[1] : null, Integer.parseInt(args[0])).run();
+	}
+}
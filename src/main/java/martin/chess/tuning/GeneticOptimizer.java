@@ -0,0 +1,327 @@
+package martin.chess.tuning;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import martin.chess.strategy.IPlayerStrategy;
+import martin.chess.strategy.Pair;
+import martin.chess.strategy.StrategyConfig;
+import martin.chess.strategy.TraitStrategy;
+import martin.chess.strategy.traits.Trait;
+import martin.chess.tournament.GameRunner;
+import martin.chess.tournament.OpeningSuite;
+import martin.chess.tournament.Player;
+
+/**
+ * Evolves TraitStrategy configurations, the exponent and a weight per trait, with a genetic algorithm.
+ *
+ * The fitness of a genome is its average score in game pairs against a fixed opponent, so it can be
+ * compared between generations. All games of a generation are tasks on a fork-join pool. The next
+ * generation keeps the best genomes as they are (elitism) and fills up with children of parents
+ * picked by tournament selection, with uniform crossover and multiplicative Gaussian mutation. Elites
+ * are evaluated again with the rest, so a genome that was only lucky doesn't stay on top.
+ *
+ * After every generation the evaluated population is written to the checkpoint file, replacing it
+ * atomically. If the file exists when the optimizer starts, it continues after that generation.
+ */
+public class GeneticOptimizer {
+
+	private static final String GENERATION = "generation ";
+
+	private final List<String> traitNames;
+	private final Player opponent;
+	private final Path checkpoint;
+
+	private String kind = "traits";
+	private OpeningSuite openings = OpeningSuite.INITIAL;
+	private int populationSize = 20;
+	private int pairsPerGenome = 10;
+	private int elites = 2;
+	private int tournamentSize = 3;
+	private double crossoverRate = 0.9;
+	private double mutationRate = 0.2;
+	private double mutationStrength = 0.1;
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	private Random random = new Random();
+
+	/**
+	 * @param traitNames the traits to weigh, named as in StrategyConfig
+	 * @param checkpoint the file to save every generation in, and to resume from
+	 */
+	public GeneticOptimizer(List<String> traitNames, Player opponent, Path checkpoint) {
+		this.traitNames = List.copyOf(traitNames);
+		this.opponent = opponent;
+		this.checkpoint = checkpoint;
+	}
+
+	/**
+	 * The kind of strategy in StrategyConfig, "traits" by default, or for example "search depth=1"
+	 */
+	public void setKind(String kind) {
+		this.kind = kind;
+	}
+
+	public void setStartingPosition(String fen) {
+		this.openings = OpeningSuite.of(List.of(fen));
+	}
+
+	/**
+	 * The openings of the game pairs, every genome plays the same ones so fitnesses are comparable
+	 */
+	public void setOpenings(OpeningSuite openings) {
+		this.openings = openings;
+	}
+
+	public void setPopulationSize(int populationSize) {
+		this.populationSize = populationSize;
+	}
+
+	/**
+	 * The number of game pairs each genome plays against the opponent per generation
+	 */
+	public void setPairsPerGenome(int pairsPerGenome) {
+		this.pairsPerGenome = pairsPerGenome;
+	}
+
+	/**
+	 * The number of best genomes that are copied to the next generation unchanged
+	 */
+	public void setElites(int elites) {
+		this.elites = elites;
+	}
+
+	/**
+	 * The number of random genomes a parent is the best of
+	 */
+	public void setTournamentSize(int tournamentSize) {
+		this.tournamentSize = tournamentSize;
+	}
+
+	/**
+	 * The probability that a child mixes the genes of two parents, otherwise it copies one
+	 */
+	public void setCrossoverRate(double crossoverRate) {
+		this.crossoverRate = crossoverRate;
+	}
+
+	/**
+	 * The probability that a gene of a child is mutated
+	 */
+	public void setMutationRate(double mutationRate) {
+		this.mutationRate = mutationRate;
+	}
+
+	/**
+	 * The standard deviation of the factor a mutated gene is multiplied with, around 1
+	 */
+	public void setMutationStrength(double mutationStrength) {
+		this.mutationStrength = mutationStrength;
+	}
+
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	public void setSeed(long seed) {
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Evolves until the given number of generations have been evaluated, counting those in the
+	 * checkpoint, and returns the last generation sorted by fitness.
+	 *
+	 * @param exponent the exponent the first generation is spread around
+	 * @param weights the weights the first generation is spread around, in the order of the traits
+	 */
+	public List<Genome> run(double exponent, double[] weights, int generations) throws IOException, InterruptedException {
+		if (weights.length != traitNames.size()) {
+			throw new IllegalArgumentException("Expected " + traitNames.size() + " weights");
+		}
+
+		int generation;
+		List<Genome> population;
+		if (Files.exists(checkpoint)) {
+			Pair<Integer, List<Genome>> saved = load();
+			generation = saved.first;
+			population = saved.second;
+			if (generation >= generations) {
+				return population;
+			}
+			population = breed(population);
+		} else {
+			generation = 0;
+			population = seed(exponent, weights);
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			while (true) {
+				evaluate(pool, population);
+				population.sort(Comparator.comparingDouble(Genome::getFitness).reversed());
+				save(++generation, population);
+
+				if (generation >= generations) {
+					return population;
+				}
+				population = breed(population);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private List<Genome> seed(double exponent, double[] weights) {
+		List<Genome> population = new ArrayList<>(populationSize);
+		population.add(new Genome(traitNames, exponent, weights.clone()));
+		while (population.size() < populationSize) {
+			// Wider than mutations, the first generation should cover the neighbourhood
+			double[] spread = new double[weights.length];
+			for (int t = 0; t < weights.length; ++t) {
+				spread[t] = mutate(weights[t], 3 * mutationStrength);
+			}
+			population.add(new Genome(traitNames, Math.max(0.1, mutate(exponent, 3 * mutationStrength)), spread));
+		}
+		return population;
+	}
+
+	/**
+	 * Plays all games of the generation on the pool and sets the fitness of every genome
+	 */
+	private void evaluate(ForkJoinPool pool, List<Genome> population) throws InterruptedException {
+		List<Callable<Double>> tasks = new ArrayList<>(population.size() * pairsPerGenome);
+		for (Genome genome : population) {
+			String config = genome.toConfig(kind);
+			for (int i = 0; i < pairsPerGenome; ++i) {
+				String fen = openings.get(i);
+				tasks.add(() -> {
+					double first = GameRunner.getWhiteScore(
+							GameRunner.play(StrategyConfig.create(config), opponent.newStrategy(), fen));
+					double second = 1 - GameRunner.getWhiteScore(
+							GameRunner.play(opponent.newStrategy(), StrategyConfig.create(config), fen));
+					return first + second;
+				});
+			}
+		}
+
+		List<Future<Double>> futures = pool.invokeAll(tasks);
+		try {
+			for (int g = 0; g < population.size(); ++g) {
+				double score = 0;
+				for (int i = 0; i < pairsPerGenome; ++i) {
+					score += futures.get(g * pairsPerGenome + i).get();
+				}
+				population.get(g).setFitness(score / (2 * pairsPerGenome));
+			}
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * The next generation from a population sorted by fitness
+	 */
+	private List<Genome> breed(List<Genome> population) {
+		List<Genome> next = new ArrayList<>(populationSize);
+		for (int i = 0; i < Math.min(elites, population.size()); ++i) {
+			Genome elite = population.get(i);
+			next.add(new Genome(traitNames, elite.getExponent(), elite.getWeights()));
+		}
+
+		while (next.size() < populationSize) {
+			Genome mother = select(population);
+			Genome father = random.nextDouble() < crossoverRate ? select(population) : mother;
+
+			double exponent = random.nextBoolean() ? mother.getExponent() : father.getExponent();
+			if (random.nextDouble() < mutationRate) {
+				exponent = Math.max(0.1, mutate(exponent, mutationStrength));
+			}
+
+			double[] weights = new double[traitNames.size()];
+			for (int t = 0; t < weights.length; ++t) {
+				weights[t] = random.nextBoolean() ? mother.getWeight(t) : father.getWeight(t);
+				if (random.nextDouble() < mutationRate) {
+					weights[t] = mutate(weights[t], mutationStrength);
+				}
+			}
+			next.add(new Genome(traitNames, exponent, weights));
+		}
+		return next;
+	}
+
+	private Genome select(List<Genome> population) {
+		Genome best = null;
+		for (int i = 0; i < tournamentSize; ++i) {
+			Genome genome = population.get(random.nextInt(population.size()));
+			if (best == null || genome.getFitness() > best.getFitness()) {
+				best = genome;
+			}
+		}
+		return best;
+	}
+
+	private double mutate(double gene, double strength) {
+		return Math.max(0, gene * (1 + random.nextGaussian() * strength));
+	}
+
+	/**
+	 * Writes the generation number, then a line with the fitness and configuration per genome
+	 */
+	private void save(int generation, List<Genome> population) throws IOException {
+		Path temp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+		try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+			writer.write(GENERATION + generation);
+			writer.newLine();
+			for (Genome genome : population) {
+				writer.write(genome.getFitness() + " " + genome.toConfig(kind));
+				writer.newLine();
+			}
+		}
+		Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private Pair<Integer, List<Genome>> load() throws IOException {
+		List<String> lines = Files.readAllLines(checkpoint, StandardCharsets.UTF_8);
+		if (lines.isEmpty() || !lines.get(0).startsWith(GENERATION)) {
+			throw new IOException("Not a checkpoint: " + checkpoint);
+		}
+		int generation = Integer.parseInt(lines.get(0).substring(GENERATION.length()).trim());
+
+		List<Genome> population = new ArrayList<>();
+		for (String line : lines.subList(1, lines.size())) {
+			if (line.isBlank()) {
+				continue;
+			}
+			int space = line.indexOf(' ');
+			IPlayerStrategy strategy = StrategyConfig.create(line.substring(space + 1));
+			if (!(strategy instanceof TraitStrategy)) {
+				throw new IOException("Not a trait strategy: " + line);
+			}
+
+			double[] weights = new double[traitNames.size()];
+			for (Pair<Trait, Double> trait : ((TraitStrategy) strategy).getTraits()) {
+				int t = traitNames.indexOf(trait.first.toString());
+				if (t == -1) {
+					throw new IOException("Trait " + trait.first + " is not optimized: " + line);
+				}
+				weights[t] = trait.second;
+			}
+
+			Genome genome = new Genome(traitNames, ((TraitStrategy) strategy).getExponent(), weights);
+			genome.setFitness(Double.parseDouble(line.substring(0, space)));
+			population.add(genome);
+		}
+		return new Pair<>(generation, population);
+	}
+}
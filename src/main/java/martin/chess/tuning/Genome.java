@@ -0,0 +1,61 @@
+package martin.chess.tuning;
+
+import java.util.List;
+
+import martin.chess.strategy.StrategyConfig;
+
+/**
+ * A TraitStrategy configuration in a GeneticOptimizer population: the exponent, a weight per trait,
+ * and the fitness once it has been evaluated
+ */
+public class Genome {
+
+	private final List<String> traitNames;
+	private final double exponent;
+	private final double[] weights;
+	private double fitness = Double.NaN;
+
+	Genome(List<String> traitNames, double exponent, double[] weights) {
+		this.traitNames = traitNames;
+		this.exponent = exponent;
+		this.weights = weights;
+	}
+
+	public double getExponent() {
+		return exponent;
+	}
+
+	/**
+	 * The weights, in the order of the optimizer's traits
+	 */
+	public double[] getWeights() {
+		return weights.clone();
+	}
+
+	double getWeight(int trait) {
+		return weights[trait];
+	}
+
+	/**
+	 * The average score against the opponent, NaN until evaluated
+	 */
+	public double getFitness() {
+		return fitness;
+	}
+
+	void setFitness(double fitness) {
+		this.fitness = fitness;
+	}
+
+	/**
+	 * A StrategyConfig description of the strategy, kind being for example "traits" or "search depth=1"
+	 */
+	public String toConfig(String kind) {
+		return StrategyConfig.describe(kind, exponent, traitNames, weights);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%.4f %s", fitness, toConfig("traits"));
+	}
+}
@@ -0,0 +1,239 @@
+package martin.chess.tuning;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import martin.chess.pgn.PgnReader;
+import martin.chess.strategy.traits.AvoidPieceExposureTrait;
+import martin.chess.strategy.traits.CapturePieceTrait;
+import martin.chess.strategy.traits.DontPlacePieceInExposureTrait;
+import martin.chess.strategy.traits.Trait;
+
+/**
+ * Tunes trait weights and the exponent by fitting the evaluation to game results (Texel's method).
+ *
+ * The evaluation of a position is the same as in SearchTraitStrategy: the sum over the traits of
+ * sign(f) (w |f|)^exp, where f is the trait's feature, the evaluation for white minus for black. It
+ * predicts the result as 1 / (1 + e^(-k * eval)), and the tuner minimizes the mean squared difference
+ * between the predictions and the results.
+ *
+ * The scale k is fitted once for the starting parameters, then the weights and the exponent follow
+ * the gradient with Adam. Errors and gradients are summed over batches of positions on all cores.
+ */
+public class TexelTuner {
+
+	private static final double BETA1 = 0.9;
+	private static final double BETA2 = 0.999;
+	private static final double EPSILON = 1e-8;
+
+	private final TuningPositions positions;
+	private final int numTraits;
+
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private double learningRate = 0.01;
+	private boolean tuneExponent = true;
+
+	private ExecutorService executor;
+
+	public TexelTuner(TuningPositions positions) {
+		this.positions = positions;
+		this.numTraits = positions.getTraits().size();
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public void setLearningRate(double learningRate) {
+		this.learningRate = learningRate;
+	}
+
+	/**
+	 * Whether the exponent is tuned as well as the weights, true by default
+	 */
+	public void setTuneExponent(boolean tuneExponent) {
+		this.tuneExponent = tuneExponent;
+	}
+
+	/**
+	 * Tunes from the given weights, one per trait, and exponent
+	 */
+	public TuningResult tune(double[] initialWeights, double initialExp, int iterations) throws InterruptedException {
+		if (initialWeights.length != numTraits) {
+			throw new IllegalArgumentException("Expected " + numTraits + " weights");
+		}
+		if (positions.size() == 0) {
+			throw new IllegalArgumentException("No positions to tune with");
+		}
+
+		executor = Executors.newFixedThreadPool(threads);
+		try {
+			// The exponent is the last parameter
+			double[] params = new double[numTraits + 1];
+			System.arraycopy(initialWeights, 0, params, 0, numTraits);
+			params[numTraits] = initialExp;
+
+			double k = fitScale(params);
+			double initialError = compute(params, k, null);
+
+			double[] gradient = new double[params.length];
+			double[] m = new double[params.length];
+			double[] v = new double[params.length];
+			double error = initialError;
+
+			for (int i = 1; i <= iterations; ++i) {
+				error = compute(params, k, gradient);
+				if (!tuneExponent) {
+					gradient[numTraits] = 0;
+				}
+
+				for (int p = 0; p < params.length; ++p) {
+					m[p] = BETA1 * m[p] + (1 - BETA1) * gradient[p];
+					v[p] = BETA2 * v[p] + (1 - BETA2) * gradient[p] * gradient[p];
+					double mHat = m[p] / (1 - Math.pow(BETA1, i));
+					double vHat = v[p] / (1 - Math.pow(BETA2, i));
+					params[p] -= learningRate * mHat / (Math.sqrt(vHat) + EPSILON);
+				}
+
+				// Negative weights and exponents have no meaning in the evaluation
+				for (int p = 0; p < params.length; ++p) {
+					params[p] = Math.max(params[p], p == numTraits ? 0.1 : 0);
+				}
+			}
+			error = compute(params, k, null);
+
+			double[] weights = new double[numTraits];
+			System.arraycopy(params, 0, weights, 0, numTraits);
+			return new TuningResult(positions.getTraits(), weights, params[numTraits], k, initialError, error);
+		} finally {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	/**
+	 * Finds the scale that gives the lowest error, by a ternary search over its logarithm
+	 */
+	private double fitScale(double[] params) throws InterruptedException {
+		double low = Math.log(1e-12);
+		double high = Math.log(1e3);
+		for (int i = 0; i < 60; ++i) {
+			double a = low + (high - low) / 3;
+			double b = high - (high - low) / 3;
+			if (compute(params, Math.exp(a), null) < compute(params, Math.exp(b), null)) {
+				high = b;
+			} else {
+				low = a;
+			}
+		}
+		return Math.exp((low + high) / 2);
+	}
+
+	/**
+	 * The mean squared error, and if gradient is not null its gradient with respect to the parameters
+	 */
+	private double compute(double[] params, double k, double[] gradient) throws InterruptedException {
+		int size = positions.size();
+		int batches = Math.min(size, threads * 4);
+		int batchSize = (size + batches - 1) / batches;
+
+		List<Future<double[]>> futures = new ArrayList<>(batches);
+		for (int start = 0; start < size; start += batchSize) {
+			int from = start;
+			int to = Math.min(size, start + batchSize);
+			futures.add(executor.submit(() -> computeBatch(params, k, from, to, gradient != null)));
+		}
+
+		// The error is last
+		double[] sums = new double[params.length + 1];
+		try {
+			for (Future<double[]> future : futures) {
+				double[] batch = future.get();
+				for (int i = 0; i < sums.length; ++i) {
+					sums[i] += batch[i];
+				}
+			}
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+
+		if (gradient != null) {
+			for (int p = 0; p < params.length; ++p) {
+				gradient[p] = sums[p] / size;
+			}
+		}
+		return sums[params.length] / size;
+	}
+
+	private double[] computeBatch(double[] params, double k, int from, int to, boolean withGradient) {
+		float[] features = positions.getFeatures();
+		float[] results = positions.getResults();
+		double exp = params[numTraits];
+
+		double[] sums = new double[params.length + 1];
+		double[] terms = new double[numTraits];
+
+		for (int i = from; i < to; ++i) {
+			int offset = i * numTraits;
+			double eval = 0;
+			double dEvalDExp = 0;
+			for (int t = 0; t < numTraits; ++t) {
+				double f = features[offset + t];
+				double base = params[t] * Math.abs(f);
+				if (f == 0 || base == 0) {
+					terms[t] = 0;
+					continue;
+				}
+				double term = Math.pow(base, exp);
+				if (f < 0) {
+					term = -term;
+				}
+				terms[t] = term;
+				eval += term;
+				dEvalDExp += term * Math.log(base);
+			}
+
+			double prediction = 1 / (1 + Math.exp(-k * eval));
+			double diff = results[i] - prediction;
+			sums[params.length] += diff * diff;
+
+			if (withGradient) {
+				// d(diff^2)/d(eval)
+				double dErrorDEval = -2 * diff * prediction * (1 - prediction) * k;
+				for (int t = 0; t < numTraits; ++t) {
+					if (terms[t] != 0) {
+						// d/dw of (w |f|)^exp is exp (w |f|)^exp / w
+						sums[t] += dErrorDEval * exp * terms[t] / params[t];
+					}
+				}
+				sums[numTraits] += dErrorDEval * dEvalDExp;
+			}
+		}
+		return sums;
+	}
+
+	/**
+	 * Tunes the search traits on the positions of the given PGN files, and prints the result as a
+	 * StrategyConfig description
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		// The exposure traits evaluate every attacked piece and only the undefended ones, so their features differ
+		List<Trait> traits = List.of(new CapturePieceTrait(), new DontPlacePieceInExposureTrait(), new AvoidPieceExposureTrait());
+		TuningPositions positions = new TuningPositions(traits);
+		for (String file : args) {
+			try (PgnReader reader = new PgnReader(Path.of(file))) {
+				positions.addGames(reader);
+			}
+		}
+		System.out.println("Tuning with " + positions.size() + " positions");
+
+		TuningResult result = new TexelTuner(positions).tune(new double[] { 1, 0.7, 0.8 }, 3, 1000);
+		System.out.println(result);
+	}
+}
@@ -0,0 +1,126 @@
+package martin.chess.tuning;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Color;
+import martin.chess.engine.Move;
+import martin.chess.pgn.PgnGame;
+import martin.chess.pgn.PgnParseException;
+import martin.chess.pgn.PgnReader;
+import martin.chess.strategy.traits.Trait;
+
+/**
+ * Positions labelled with the result of the game they were played in, for tuning.
+ *
+ * A position is only kept as its trait features, the evaluation of every trait for white minus the
+ * evaluation for black, so the boards aren't needed once loaded. Features are stored in one flat
+ * float array, position by position, and the results (1, 0.5 or 0 for white) in another. That is
+ * about 4 bytes per trait and position, so millions of positions fit in memory.
+ */
+public class TuningPositions {
+
+	private final List<Trait> traits;
+	private float[] features;
+	private float[] results;
+	private int size;
+
+	private int skipPlies = 8;
+
+	/**
+	 * @param traits the traits to compute features for, their evaluate() must not depend on initialize()
+	 */
+	public TuningPositions(List<Trait> traits) {
+		this.traits = List.copyOf(traits);
+		this.features = new float[1024 * traits.size()];
+		this.results = new float[1024];
+	}
+
+	/**
+	 * The number of plies at the start of each game that are not used, since opening positions say
+	 * little about the result
+	 */
+	public void setSkipPlies(int skipPlies) {
+		this.skipPlies = skipPlies;
+	}
+
+	/**
+	 * Adds the positions of all games with a known result. Positions where the side to move is in check
+	 * are left out, their evaluation is not settled. Games that can't be parsed are skipped.
+	 *
+	 * @return the number of positions added
+	 */
+	public int addGames(PgnReader reader) throws IOException {
+		int before = size;
+		while (true) {
+			PgnGame game;
+			try {
+				game = reader.next();
+			} catch (PgnParseException e) {
+				continue;
+			}
+			if (game == null) {
+				return size - before;
+			}
+			if (game.getResult().equals(PgnGame.UNKNOWN)) {
+				continue;
+			}
+			addGame(game);
+		}
+	}
+
+	private void addGame(PgnGame game) {
+		Color winner = game.getWinner();
+		float result = winner == null ? 0.5f : winner == Color.WHITE ? 1 : 0;
+
+		Board board = game.createBoard();
+		board.validateMoves(false);
+
+		int ply = 0;
+		for (Move move : game.getMoves()) {
+			board.move(move);
+			if (++ply > skipPlies && board.getResult() == null && !board.isInCheck()) {
+				add(board, result);
+			}
+		}
+	}
+
+	/**
+	 * Adds a position with the result of its game for white
+	 */
+	public void add(Board board, float result) {
+		int numTraits = traits.size();
+		if (size == results.length) {
+			results = Arrays.copyOf(results, size * 2);
+			features = Arrays.copyOf(features, size * 2 * numTraits);
+		}
+
+		int offset = size * numTraits;
+		for (int t = 0; t < numTraits; ++t) {
+			Trait trait = traits.get(t);
+			features[offset + t] = (float) (trait.evaluate(board, Color.WHITE) - trait.evaluate(board, Color.BLACK));
+		}
+		results[size++] = result;
+	}
+
+	public List<Trait> getTraits() {
+		return traits;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * The features of all positions, numTraits per position. Only the first size() positions are set.
+	 */
+	float[] getFeatures() {
+		return features;
+	}
+
+	float[] getResults() {
+		return results;
+	}
+}
@@ -0,0 +1,68 @@
+package martin.chess.tuning;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import martin.chess.strategy.StrategyConfig;
+import martin.chess.strategy.traits.Trait;
+
+/**
+ * Tuned weights and exponent, with the errors before and after tuning
+ */
+public class TuningResult {
+
+	private final List<Trait> traits;
+	private final double[] weights;
+	private final double exponent;
+	private final double scale;
+	private final double initialError;
+	private final double error;
+
+	TuningResult(List<Trait> traits, double[] weights, double exponent, double scale, double initialError, double error) {
+		this.traits = traits;
+		this.weights = weights;
+		this.exponent = exponent;
+		this.scale = scale;
+		this.initialError = initialError;
+		this.error = error;
+	}
+
+	/**
+	 * The weights, in the order of the traits
+	 */
+	public double[] getWeights() {
+		return weights.clone();
+	}
+
+	public double getExponent() {
+		return exponent;
+	}
+
+	/**
+	 * The scale k fitted to map evaluations to expected results
+	 */
+	public double getScale() {
+		return scale;
+	}
+
+	public double getInitialError() {
+		return initialError;
+	}
+
+	public double getError() {
+		return error;
+	}
+
+	/**
+	 * A StrategyConfig description of a strategy with the tuned weights
+	 */
+	public String toConfig(String kind) {
+		List<String> names = traits.stream().map(Trait::toString).collect(Collectors.toList());
+		return StrategyConfig.describe(kind, exponent, names, weights);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Error %.6f -> %.6f, k = %.3g: %s", initialError, error, scale, toConfig("search"));
+	}
+}
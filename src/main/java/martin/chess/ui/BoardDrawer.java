@@ -1,10 +1,18 @@
 package martin.chess.ui;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
+import javafx.application.Platform;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
@@ -12,19 +20,28 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.TextAlignment;
+import martin.chess.book.PolyglotBook;
 import martin.chess.engine.Board;
 import martin.chess.engine.GameResultData;
 import martin.chess.engine.Move;
 import martin.chess.engine.Piece;
 import martin.chess.engine.PieceType;
+import martin.chess.engine.Zobrist;
 import martin.chess.strategy.BalancedTraitStrategy;
+import martin.chess.strategy.IAsyncPlayerStrategy;
 import martin.chess.strategy.IPlayerStrategy;
+import martin.chess.strategy.OpeningBookStrategy;
+import martin.chess.strategy.PonderingStrategy;
 import martin.chess.strategy.RandomStrategy;
+import martin.chess.strategy.ThinkingInfo;
 import martin.chess.ui.DragAndDropDetector.DragAndDropHandler;
 
 public class BoardDrawer implements DragAndDropHandler {
 
 	private Board board;
+	
+	// Pieces and highlights are drawn on the board canvas, on top of the static canvas
+	private Canvas staticCanvas;
 	private Canvas boardCanvas;
 	private double size;
 	private double squareSize;
@@ -50,6 +67,14 @@ public class BoardDrawer implements DragAndDropHandler {
 	private double dragOffsetY;
 	private int dragFromIdx;
 	
+	// What was last drawn on each square, see getSquareContent
+	private int[] drawnSquareContent = new int[64];
+	
+	// Where the dragged piece was last drawn
+	private boolean dragPieceDrawn;
+	private double drawnDragX;
+	private double drawnDragY;
+	
 	private Map<Integer, Set<Integer>> availableMoves = new HashMap<>();
 	
 	private static final double CAPTURE_CIRCLE_WIDTH = 6;
@@ -65,10 +90,36 @@ public class BoardDrawer implements DragAndDropHandler {
 	private GameListener gameListener;
 	private Font font;
 	
+	// Engine moves are computed here, never on the FX thread
+	private ExecutorService engineExecutor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "Engine");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	// The engine spreads its work over all cores using this pool
+	private ExecutorService engineWorkers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+		Thread thread = new Thread(r, "Engine worker");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	private CompletableFuture<Move> pendingEngineMove;
+	
+	// The opening book given by the chess.book system property, if any
+	private PolyglotBook book = openBook(System.getProperty("chess.book"));
+	
+	// Incremented for each new game so that late engine moves from an old game are ignored
+	private int gameId;
+	
+	// The latest progress from the engine, not yet shown. Coalesces updates to at most one per frame
+	private AtomicReference<ThinkingInfo> pendingThinkingInfo = new AtomicReference<>();
+	
 	private static final String[] RANKS = new String[] { "1", "2", "3", "4", "5", "6", "7", "8" };
 	private static final String[] FILES = new String[] { "a", "b", "c", "d", "e", "f", "g", "h" };
 	
-	public BoardDrawer(Canvas boardCanvas, GameListener gameListener) {
+	public BoardDrawer(Canvas staticCanvas, Canvas boardCanvas, GameListener gameListener) {
+		this.staticCanvas = staticCanvas;
 		this.boardCanvas = boardCanvas;
 		this.gameListener = gameListener;
 
@@ -87,85 +138,207 @@ public class BoardDrawer implements DragAndDropHandler {
 		
 		font = Font.font("Arial", FontWeight.BOLD, 14);
 		
+		drawStaticLayer();
+		
+		// Nothing drawn yet
+		Arrays.fill(drawnSquareContent, -1);
 		drawBoard();
 	}
 
 	public void startGame(PlayerType whitePlayerType, PlayerType blackPlayerType) {
 		resetGame();
 		this.gameInProgress = true;
-		this.playerStrategyWhite = getStrategy(whitePlayerType);
-		this.playerStrategyBlack = getStrategy(blackPlayerType);
+		this.playerStrategyWhite = getStrategy(whitePlayerType, blackPlayerType);
+		this.playerStrategyBlack = getStrategy(blackPlayerType, whitePlayerType);
+		
+		for (var strategy : new IPlayerStrategy[] { playerStrategyWhite, playerStrategyBlack }) {
+			if (strategy != null) {
+				strategy.setThinkingListener(this::onThinking);
+			}
+		}
+		
 		requestMove();
 	}
 	
-	private IPlayerStrategy getStrategy(PlayerType playerType) {
+	private IPlayerStrategy getStrategy(PlayerType playerType, PlayerType opponentType) {
 		switch (playerType) {
  			case Human:			return null;
  			case RandomRobby:	return new RandomStrategy();
- 			case Trait1:		return new BalancedTraitStrategy();
+ 			case Trait1:
+ 				IPlayerStrategy strategy = new BalancedTraitStrategy(engineWorkers);
+ 				if (book != null) {
+ 					strategy = new OpeningBookStrategy(strategy, book);
+ 				}
+ 				// Think on the human's time
+ 				return opponentType == PlayerType.Human ? new PonderingStrategy(strategy) : strategy;
 		
 		}
 		throw new IllegalArgumentException("Unknown player type: " + playerType);
 	}
+	
+	private static PolyglotBook openBook(String path) {
+		if (path == null) {
+			return null;
+		}
+		if (!Zobrist.isPolyglotCompatible()) {
+			System.err.println("Position keys are not Polyglot keys, only books built by this program will be found in " + path);
+		}
+		try {
+			return new PolyglotBook(Path.of(path));
+		} catch (IOException e) {
+			// Play without book
+			e.printStackTrace();
+			return null;
+		}
+	}
 
-	private void drawBoard() {
-		GraphicsContext gc = boardCanvas.getGraphicsContext2D();
+	/**
+	 * Draws the squares and coordinates, which never change, on the static layer 
+	 */
+	private void drawStaticLayer() {
+		GraphicsContext gc = staticCanvas.getGraphicsContext2D();
 		
 		for (int rank = 0; rank < 8; ++rank) {
 			for (int file = 0; file < 8; ++file) {
 				boolean isDarkSquare = board.getSquareColor(rank, file) == martin.chess.engine.Color.BLACK;
 				
-				gc.setFill(isDarkSquare ? 
-						isLastPlayed(rank, file) ? DARK_SQUARE_COLOR_LASTPLAYED : DARK_SQUARE_COLOR : 
-						isLastPlayed(rank, file) ? LIGHT_SQUARE_COLOR_LASTPLAYED : LIGHT_SQUARE_COLOR);
-				
-				double topLeftX = file * squareSize;
-				double topLeftY = (7 - rank) * squareSize;
+				gc.setFill(isDarkSquare ? DARK_SQUARE_COLOR : LIGHT_SQUARE_COLOR);
+				gc.fillRect(file * squareSize, (7 - rank) * squareSize, squareSize, squareSize);
 				
-				gc.fillRect(topLeftX, topLeftY, squareSize, squareSize);
-				Piece piece = board.pieceAt(rank, file);
-
-				if (piece != null && piece != draggedPiece) {
-					if (isSquareAvailable(rank, file)) {
-						gc.setLineWidth(CAPTURE_CIRCLE_WIDTH);
-						gc.setStroke(isDarkSquare ? DARK_DOT : LIGHT_DOT);
-						gc.strokeOval(topLeftX + CAPTURE_CIRCLE_WIDTH/2, topLeftY + CAPTURE_CIRCLE_WIDTH/2, squareSize - CAPTURE_CIRCLE_WIDTH, squareSize - CAPTURE_CIRCLE_WIDTH);
-					}
-					
-					double topOffset = piece.getColor() == martin.chess.engine.Color.BLACK ? piecesImage.getHeight() / 2 : 0;
-					double leftOffset = pieceImageWidth * getPieceOffset(piece.getType());
-					
-					gc.drawImage(piecesImage, leftOffset, topOffset, pieceImageWidth, pieceImageWidth, topLeftX + pieceOffset, topLeftY + pieceOffset, pieceImageWidth, pieceImageWidth);
-				} else if (isSquareAvailable(rank, file)) {
-					gc.setFill(isDarkSquare ? DARK_DOT : LIGHT_DOT);
-					gc.fillOval(topLeftX + dotOffset, topLeftY + dotOffset, dotSize, dotSize);
-				}
-				
-				if (rank == 0) {
-					gc.setTextAlign(TextAlignment.RIGHT);
-					gc.setFill(isDarkSquare ? LIGHT_SQUARE_COLOR : DARK_SQUARE_COLOR);
-					gc.setFont(font);
-					gc.fillText(FILES[file], topLeftX + squareSize - 3, topLeftY + squareSize - 3);
-				}
-				
-				if (file == 0) {
-					gc.setTextAlign(TextAlignment.LEFT);
-					gc.setFill(isDarkSquare ? LIGHT_SQUARE_COLOR : DARK_SQUARE_COLOR);
-					gc.setFont(font);
-					gc.fillText(RANKS[rank], topLeftX + 3, topLeftY + 3 + font.getSize());
-				}
+				drawCoordinates(gc, rank, file, isDarkSquare);
 			}
 		}
+	}
+	
+	/**
+	 * Redraws the squares that have changed since the last call, and the dragged piece 
+	 */
+	private void drawBoard() {
+		GraphicsContext gc = boardCanvas.getGraphicsContext2D();
+		
+		long dirtySquares = 0;
+		for (int idx = 0; idx < 64; ++idx) {
+			int content = getSquareContent(idx);
+			if (content != drawnSquareContent[idx]) {
+				drawnSquareContent[idx] = content;
+				dirtySquares |= 1L << idx;
+			}
+		}
+		
+		// Erase the dragged piece from where it was drawn last time
+		if (dragPieceDrawn) {
+			dirtySquares |= getSquaresCovering(drawnDragX, drawnDragY, pieceImageWidth);
+			dragPieceDrawn = false;
+		}
+		
+		while (dirtySquares != 0) {
+			int idx = Long.numberOfTrailingZeros(dirtySquares);
+			dirtySquares &= dirtySquares - 1;
+			drawSquare(gc, idx / 8, idx % 8);
+		}
 		
 		if (draggedPiece != null) {
-			double topOffset = draggedPiece.getColor() == martin.chess.engine.Color.BLACK ? piecesImage.getHeight() / 2 : 0;
-			double leftOffset = pieceImageWidth * getPieceOffset(draggedPiece.getType());
-			
-			gc.drawImage(piecesImage, leftOffset, topOffset, pieceImageWidth, pieceImageWidth, dragDetector.getX() + dragOffsetX, dragDetector.getY() + dragOffsetY, pieceImageWidth, pieceImageWidth);
-			
+			drawnDragX = dragDetector.getX() + dragOffsetX;
+			drawnDragY = dragDetector.getY() + dragOffsetY;
+			drawPiece(gc, draggedPiece, drawnDragX, drawnDragY);
+			dragPieceDrawn = true;
 		}
 	}
+	
+	private void drawSquare(GraphicsContext gc, int rank, int file) {
+		boolean isDarkSquare = board.getSquareColor(rank, file) == martin.chess.engine.Color.BLACK;
+		
+		double topLeftX = file * squareSize;
+		double topLeftY = (7 - rank) * squareSize;
+		
+		gc.clearRect(topLeftX, topLeftY, squareSize, squareSize);
+		
+		if (isLastPlayed(rank, file)) {
+			gc.setFill(isDarkSquare ? DARK_SQUARE_COLOR_LASTPLAYED : LIGHT_SQUARE_COLOR_LASTPLAYED);
+			gc.fillRect(topLeftX, topLeftY, squareSize, squareSize);
+			drawCoordinates(gc, rank, file, isDarkSquare);
+		}
+		
+		Piece piece = board.pieceAt(rank, file);
 
+		if (piece != null && !isDragged(board.getArrayIdx(rank, file))) {
+			if (isSquareAvailable(rank, file)) {
+				gc.setLineWidth(CAPTURE_CIRCLE_WIDTH);
+				gc.setStroke(isDarkSquare ? DARK_DOT : LIGHT_DOT);
+				gc.strokeOval(topLeftX + CAPTURE_CIRCLE_WIDTH/2, topLeftY + CAPTURE_CIRCLE_WIDTH/2, squareSize - CAPTURE_CIRCLE_WIDTH, squareSize - CAPTURE_CIRCLE_WIDTH);
+			}
+			
+			drawPiece(gc, piece, topLeftX + pieceOffset, topLeftY + pieceOffset);
+		} else if (isSquareAvailable(rank, file)) {
+			gc.setFill(isDarkSquare ? DARK_DOT : LIGHT_DOT);
+			gc.fillOval(topLeftX + dotOffset, topLeftY + dotOffset, dotSize, dotSize);
+		}
+	}
+	
+	private void drawCoordinates(GraphicsContext gc, int rank, int file, boolean isDarkSquare) {
+		double topLeftX = file * squareSize;
+		double topLeftY = (7 - rank) * squareSize;
+		
+		if (rank == 0) {
+			gc.setTextAlign(TextAlignment.RIGHT);
+			gc.setFill(isDarkSquare ? LIGHT_SQUARE_COLOR : DARK_SQUARE_COLOR);
+			gc.setFont(font);
+			gc.fillText(FILES[file], topLeftX + squareSize - 3, topLeftY + squareSize - 3);
+		}
+		
+		if (file == 0) {
+			gc.setTextAlign(TextAlignment.LEFT);
+			gc.setFill(isDarkSquare ? LIGHT_SQUARE_COLOR : DARK_SQUARE_COLOR);
+			gc.setFont(font);
+			gc.fillText(RANKS[rank], topLeftX + 3, topLeftY + 3 + font.getSize());
+		}
+	}
+	
+	private void drawPiece(GraphicsContext gc, Piece piece, double x, double y) {
+		double topOffset = piece.getColor() == martin.chess.engine.Color.BLACK ? piecesImage.getHeight() / 2 : 0;
+		double leftOffset = pieceImageWidth * getPieceOffset(piece.getType());
+		
+		gc.drawImage(piecesImage, leftOffset, topOffset, pieceImageWidth, pieceImageWidth, x, y, pieceImageWidth, pieceImageWidth);
+	}
+	
+	/**
+	 * Encodes everything that is drawn on a square, so that a changed square can be detected 
+	 */
+	private int getSquareContent(int idx) {
+		int rank = idx / 8;
+		int file = idx % 8;
+		
+		Piece piece = board.pieceAt(idx);
+		int content = 0;
+		if (piece != null && !isDragged(idx)) {
+			content = 1 + piece.getType().ordinal() * 2 + piece.getColor().ordinal();
+		}
+		if (isLastPlayed(rank, file)) {
+			content |= 1 << 4;
+		}
+		if (isSquareAvailable(rank, file)) {
+			content |= 1 << 5;
+		}
+		return content;
+	}
+	
+	/**
+	 * Returns a mask of the squares that are covered by a square area with the given top left corner 
+	 */
+	private long getSquaresCovering(double x, double y, double width) {
+		int minFile = Math.max(0, (int) Math.floor(x / squareSize));
+		int maxFile = Math.min(7, (int) Math.floor((x + width) / squareSize));
+		int minRow = Math.max(0, (int) Math.floor(y / squareSize));
+		int maxRow = Math.min(7, (int) Math.floor((y + width) / squareSize));
+		
+		long squares = 0;
+		for (int row = minRow; row <= maxRow; ++row) {
+			for (int file = minFile; file <= maxFile; ++file) {
+				squares |= 1L << board.getArrayIdx(7 - row, file);
+			}
+		}
+		return squares;
+	}
 
 	private boolean isLastPlayed(int rank, int file) {
 		int squareIdx = board.getArrayIdx(rank, file);
@@ -252,6 +425,13 @@ public class BoardDrawer implements DragAndDropHandler {
 		drawBoard();
 	}
 
+	/**
+	 * Pieces are shared between squares, so the dragged one is told apart by its square
+	 */
+	private boolean isDragged(int idx) {
+		return draggedPiece != null && idx == dragFromIdx;
+	}
+
 	public boolean isGameInProgress() {
 		return gameInProgress;
 	}
@@ -310,6 +490,8 @@ public class BoardDrawer implements DragAndDropHandler {
 		
 		if (board.getResult() != null) {
 			gameInProgress = false;
+			stopPondering(playerStrategyWhite);
+			stopPondering(playerStrategyBlack);
 			gameListener.onGameEnded(board.getResult());
 		}
 		else {
@@ -317,25 +499,67 @@ public class BoardDrawer implements DragAndDropHandler {
 		}
 	}
 
+	/**
+	 * Asks the engine to move, if it is its turn. The move is computed on the engine thread and
+	 * played on the FX thread.
+	 */
 	private void requestMove() {
 		IPlayerStrategy strategyToPlay = board.getColorToMove() == martin.chess.engine.Color.BLACK ? playerStrategyBlack : playerStrategyWhite;
 		if (strategyToPlay == null) {
 			return;
 		}
 		
-		try {
-			doMove(strategyToPlay.getMove(board));
+		int requestGameId = gameId;
+		
+		pendingEngineMove = IAsyncPlayerStrategy.from(strategyToPlay).requestMove(board, engineExecutor);
+		pendingEngineMove.whenComplete((move, e) -> Platform.runLater(() -> {
+			if (requestGameId != gameId || !gameInProgress) {
+				return;
+			}
+			pendingEngineMove = null;
+			
+			if (e != null) {
+				e.printStackTrace();
+				return;
+			}
+			doMove(move);
+		}));
+	}
+	
+	/**
+	 * Called on the engine thread
+	 */
+	private void onThinking(ThinkingInfo info) {
+		if (pendingThinkingInfo.getAndSet(info) == null) {
+			Platform.runLater(() -> gameListener.onThinking(pendingThinkingInfo.getAndSet(null)));
 		}
-		catch (InterruptedException e) {
-			throw new RuntimeException(e);
+	}
+
+	private void stopPondering(IPlayerStrategy strategy) {
+		if (strategy instanceof PonderingStrategy) {
+			((PonderingStrategy) strategy).stopPondering();
 		}
 	}
 
 	public interface GameListener {
 		void onGameEnded(GameResultData result);
+		
+		/**
+		 * Progress from an engine that is computing a move 
+		 */
+		void onThinking(ThinkingInfo info);
 	}
 
 	public void resetGame() {
+		stopPondering(playerStrategyWhite);
+		stopPondering(playerStrategyBlack);
+		
+		if (pendingEngineMove != null) {
+			pendingEngineMove.cancel(true);
+			pendingEngineMove = null;
+		}
+		gameId++;
+		
 		gameInProgress = false;
 		lastPlayedFromIdx = -1;
 		lastPlayedToIdx = -1;
@@ -12,10 +12,12 @@ import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import martin.chess.engine.Color;
 import martin.chess.engine.GameResultData;
+import martin.chess.strategy.ThinkingInfo;
 import martin.chess.ui.BoardDrawer.GameListener;
 
 public class ChessUI extends Application implements GameListener {
@@ -25,11 +27,13 @@ public class ChessUI extends Application implements GameListener {
 	private Scene playingScene;
 	private ComboBox<PlayerType> whitePlayer;
 	private ComboBox<PlayerType> blackPlayer;
+	private Canvas staticCanvas;
 	private Canvas boardCanvas;
 	private BoardDrawer boardDrawer;
 	private Button startGameButton;
 	private Label resultLabel;
 	private Label resultValueLabel;
+	private Label thinkingValueLabel;
 	
 	public static void main(String[] args) {
         launch(args);
@@ -40,7 +44,7 @@ public class ChessUI extends Application implements GameListener {
         
         createPlayingScene();
         
-    	boardDrawer = new BoardDrawer(boardCanvas, this);
+    	boardDrawer = new BoardDrawer(staticCanvas, boardCanvas, this);
     	
         primaryStage.setTitle("Martin's Crappy Chess");
         primaryStage.setScene(playingScene);
@@ -48,9 +52,9 @@ public class ChessUI extends Application implements GameListener {
     }
 	
     private void createPlayingScene() {
-		boardCanvas = new Canvas();
-		boardCanvas.setWidth(720);
-		boardCanvas.setHeight(720);
+		// The board is drawn in two layers, pieces on top of the squares
+		staticCanvas = new Canvas(720, 720);
+		boardCanvas = new Canvas(720, 720);
 		
 		GridPane grid = new GridPane();
 		grid.setAlignment(Pos.TOP_LEFT);
@@ -94,6 +98,11 @@ public class ChessUI extends Application implements GameListener {
 		grid.add(resultLabel, 0, 3);
 		grid.add(resultValueLabel, 1, 3);
 		
+		thinkingValueLabel = new Label("");
+		
+		grid.add(new Label("Engine"), 0, 4);
+		grid.add(thinkingValueLabel, 1, 4);
+		
 		VBox vbox = new VBox();
 		
 		vbox.getChildren().add(grid);
@@ -101,7 +110,7 @@ public class ChessUI extends Application implements GameListener {
 		BorderPane border = new BorderPane();
 		 
 		border.setLeft(vbox);
-		border.setCenter(boardCanvas);
+		border.setCenter(new StackPane(staticCanvas, boardCanvas));
 		
 		playingScene = new Scene(border);  
 
@@ -128,6 +137,12 @@ public class ChessUI extends Application implements GameListener {
 		onGameStopped();
 	}
 
+	@Override
+	public void onThinking(ThinkingInfo info) {
+		thinkingValueLabel.setText(String.format("Depth %d, %d nodes/s, best %s", 
+			info.getDepth(), info.getNodesPerSecond(), info.getBestMove() == null ? "-" : info.getBestMove()));
+	}
+
 	private String getResultText(GameResultData result) {
 		switch (result.getOutcome()) {
 		case CHECKMATE: 					return (result.getWinner() == Color.BLACK ? "Black" : "White") + " wins"; 
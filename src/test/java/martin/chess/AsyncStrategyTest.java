@@ -0,0 +1,58 @@
+package martin.chess;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Move;
+import martin.chess.strategy.AsyncStrategy;
+import martin.chess.strategy.BalancedTraitStrategy;
+import martin.chess.strategy.IAsyncPlayerStrategy;
+
+public class AsyncStrategyTest {
+
+	@Test
+	public void moveIsHandedToPendingRequest() throws Exception {
+		AsyncStrategy strategy = new AsyncStrategy();
+		Board board = new Board();
+		
+		CompletableFuture<Move> request = strategy.requestMove(board, Runnable::run);
+		Assert.assertFalse(request.isDone());
+		
+		strategy.setMove(new Move("e2e4"));
+		Assert.assertEquals(new Move("e2e4"), request.get(1, TimeUnit.SECONDS));
+		
+		// The move is consumed, the next request must wait for a new one
+		Assert.assertFalse(strategy.requestMove(board, Runnable::run).isDone());
+	}
+	
+	@Test
+	public void moveSuppliedBeforeRequestIsKept() throws Exception {
+		AsyncStrategy strategy = new AsyncStrategy();
+		Board board = new Board();
+		
+		strategy.setMove(new Move("d2d4"));
+		
+		Assert.assertEquals(new Move("d2d4"), strategy.getMove(board));
+		Assert.assertFalse(strategy.requestMove(board, Runnable::run).isDone());
+	}
+	
+	@Test
+	public void adaptedStrategyRunsOnExecutor() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Board board = new Board();
+			board.setLogging(false);
+			
+			Move move = IAsyncPlayerStrategy.from(new BalancedTraitStrategy()).requestMove(board, executor).get(30, TimeUnit.SECONDS);
+			Assert.assertTrue(board.getAvailableMoves().contains(move));
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package martin.chess;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import martin.chess.engine.Algebraic;
+import martin.chess.engine.Board;
+import martin.chess.engine.Color;
+import martin.chess.engine.Move;
+import martin.chess.engine.state.BoardState;
+import martin.chess.engine.state.SideData;
+
+public class AttackMaskTest {
+
+	@Test
+	public void recordsAttackersAndPins() {
+		// The knight on e4 is pinned by the rook on e8, the bishop on b4 gives check
+		Board board = new Board("4r1k1/8/8/8/1b2N3/8/8/4K3 w - - 0 1");
+		board.getAvailableMoves();
+		BoardState state = board.getCurrentState();
+
+		SideData black = state.getSideData(Color.BLACK);
+		int e1 = Algebraic.fromAlgebraic("e1");
+		Assert.assertEquals(1L << Algebraic.fromAlgebraic("b4"), black.attackersOf[e1]);
+		Assert.assertTrue(board.isAttacked(Algebraic.fromAlgebraic("e5"), Color.BLACK));
+		Assert.assertTrue(board.getAttackedSquares(Color.BLACK).get(e1).contains(Algebraic.fromAlgebraic("b4")));
+
+		int e4 = Algebraic.fromAlgebraic("e4");
+		Assert.assertEquals(1L << e4, state.pinnedPieces);
+		Assert.assertEquals(0, state.getPinRay(e4) & (1L << Algebraic.fromAlgebraic("d2")));
+
+		// A pinned knight can't block the check, so only king moves are left
+		for (Move move : board.getAvailableMoves()) {
+			Assert.assertEquals(e1, move.getIdxFrom());
+		}
+	}
+
+	@Test
+	public void pinsSurviveUndo() {
+		Board board = new Board("4r1k1/8/8/8/4N3/8/8/4K3 w - - 0 1");
+		int moves = board.getAvailableMoves().size();
+		long pinned = board.getCurrentState().pinnedPieces;
+
+		board.move(new Move("e1d1"));
+		board.getAvailableMoves();
+		board.undoLastMove();
+
+		Assert.assertEquals(pinned, board.getCurrentState().pinnedPieces);
+		Assert.assertEquals(moves, board.getAvailableMoves().size());
+	}
+}
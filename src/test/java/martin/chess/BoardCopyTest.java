@@ -0,0 +1,84 @@
+package martin.chess;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.GameOutcome;
+import martin.chess.engine.Move;
+
+public class BoardCopyTest {
+
+	@Test
+	public void copiesAreIndependent() {
+		Random random = new Random(3);
+		Board board = new Board();
+		board.setLogging(false);
+		board.validateMoves(false);
+
+		for (int ply = 0; ply < 30 && board.getResult() == null; ++ply) {
+			Board copy = new Board(board);
+			assertSameBoard(board, copy);
+
+			// Play some moves on the copy and take all of them back, including the shared history
+			String state = board.getState();
+			int plies = copy.getMoveHistory().size();
+			for (int i = 0; i < 4 && copy.getResult() == null; ++i) {
+				List<Move> moves = copy.getAvailableMoves();
+				copy.move(moves.get(random.nextInt(moves.size())));
+			}
+			while (!copy.getMoveHistory().isEmpty()) {
+				copy.undoLastMove();
+			}
+			Assert.assertEquals(Board.INITIAL_STATE, copy.getState());
+			Assert.assertEquals(new Board().getZobristKey(), copy.getZobristKey());
+			Assert.assertEquals(state, board.getState());
+			Assert.assertEquals(plies, board.getMoveHistory().size());
+
+			List<Move> moves = board.getAvailableMoves();
+			board.move(moves.get(random.nextInt(moves.size())));
+		}
+
+		// And the original can still be taken back after its copies did the same
+		while (!board.getMoveHistory().isEmpty()) {
+			board.undoLastMove();
+		}
+		Assert.assertEquals(Board.INITIAL_STATE, board.getState());
+	}
+
+	@Test
+	public void copyFromReusesBoard() {
+		Board board = new Board("4k3/8/8/8/8/8/4P3/4K3 w - - 0 1");
+		board.move(new Move("e2e4"));
+
+		Board copy = new Board();
+		copy.copyFrom(board);
+		assertSameBoard(board, copy);
+		Assert.assertEquals("4k3/8/8/8/8/8/4P3/4K3 w - - 0 1", copy.getStartingState());
+	}
+
+	@Test
+	public void copyDetectsRepetition() {
+		Board board = new Board();
+		board.setLogging(false);
+		for (String move : new String[] { "g1f3", "g8f6", "f3g1", "f6g8", "g1f3", "g8f6", "f3g1" }) {
+			board.move(new Move(move));
+		}
+
+		Board copy = new Board(board);
+		copy.move(new Move("f6g8"));
+		Assert.assertEquals(GameOutcome.DRAW_THREEFOLD_REPETITION, copy.getResult().getOutcome());
+		Assert.assertNull(board.getResult());
+	}
+
+	private static void assertSameBoard(Board expected, Board actual) {
+		Assert.assertEquals(expected.getState(), actual.getState());
+		Assert.assertEquals(expected.getZobristKey(), actual.getZobristKey());
+		Assert.assertEquals(expected.getAvailableMoves(), actual.getAvailableMoves());
+		Assert.assertEquals(expected.getMoveHistory(), actual.getMoveHistory());
+		Assert.assertEquals(expected.getResult(), actual.getResult());
+	}
+}
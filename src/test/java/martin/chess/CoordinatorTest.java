@@ -0,0 +1,108 @@
+package martin.chess;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import martin.chess.strategy.SearchTraitStrategy;
+import martin.chess.strategy.StrategyConfig;
+import martin.chess.strategy.TraitStrategy;
+import martin.chess.tournament.Coordinator;
+import martin.chess.tournament.MatchResult;
+
+public class CoordinatorTest {
+
+	@Test
+	public void playsOnLocalWorkers() throws Exception {
+		Coordinator coordinator = new Coordinator("Greedy", "search depth=1 exp=1 CapturePiece=1", "Random", "random", 6);
+		StringWriter pgn = new StringWriter();
+		coordinator.setPgnOutput(pgn);
+		coordinator.start();
+		List<Process> workers = coordinator.launchLocalWorkers(2);
+
+		MatchResult result = coordinator.awaitResult();
+		Assert.assertEquals(6, result.getPentanomial().getPairs());
+		Assert.assertEquals(12, result.getStats().getGames());
+		Assert.assertEquals(12, pgn.toString().split("\\[Event ", -1).length - 1);
+
+		for (Process worker : workers) {
+			Assert.assertTrue(worker.waitFor(10, TimeUnit.SECONDS));
+			Assert.assertEquals(0, worker.exitValue());
+		}
+	}
+
+	@Test
+	public void requeuesPairOfLostWorker() throws Exception {
+		Coordinator coordinator = new Coordinator("A", "random", "B", "random", 3);
+		int port = coordinator.start();
+
+		// Takes a pair and disappears without answering
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			new DataInputStream(socket.getInputStream()).readByte();
+		}
+
+		List<Process> workers = coordinator.launchLocalWorkers(1);
+		MatchResult result = coordinator.awaitResult();
+		Assert.assertEquals(3, result.getPentanomial().getPairs());
+		Assert.assertEquals(2, coordinator.getConnections());
+		Assert.assertTrue(workers.get(0).waitFor(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void failsPairThatFailsOnEveryWorker() throws Exception {
+		Coordinator coordinator = new Coordinator("A", "random", "B", "random", 1);
+		coordinator.setMaxAttempts(2);
+		int port = coordinator.start();
+
+		// Each takes the pair and disappears without answering
+		for (int i = 0; i < 2; ++i) {
+			try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+				new DataInputStream(socket.getInputStream()).readByte();
+			}
+		}
+
+		try {
+			coordinator.awaitResult(10, TimeUnit.SECONDS);
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertEquals("Pair 0 failed on 2 workers", e.getMessage());
+		}
+	}
+
+	@Test
+	public void givesUpWithoutWorkers() throws Exception {
+		Coordinator coordinator = new Coordinator("A", "random", "B", "random", 1);
+		coordinator.start();
+
+		try {
+			coordinator.awaitResult(200, TimeUnit.MILLISECONDS);
+			Assert.fail();
+		} catch (TimeoutException e) {
+			Assert.assertEquals("Timed out with 0 of 1 pairs played", e.getMessage());
+		}
+	}
+
+	@Test
+	public void describesStrategies() {
+		String config = "search depth=3 exp=1.5 CapturePiece=1.0 AvoidPieceExposure=0.8";
+		TraitStrategy strategy = (TraitStrategy) StrategyConfig.create(config);
+		Assert.assertTrue(strategy instanceof SearchTraitStrategy);
+		Assert.assertEquals(config, StrategyConfig.describe(strategy));
+		Assert.assertEquals(config, StrategyConfig.describe("search depth=3", 1.5, List.of("CapturePiece", "AvoidPieceExposure"), new double[] { 1, 0.8 }));
+
+		try {
+			StrategyConfig.create("traits Capture=1");
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package martin.chess;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import martin.chess.engine.Algebraic;
+import martin.chess.engine.Board;
+import martin.chess.engine.Move;
+
+public class EvasionTest {
+
+	@Test
+	public void onlyKingMovesUnderDoubleCheck() {
+		// The rook on a1 and the bishop on b4 both give check, the knight could otherwise block on d2
+		Board board = new Board("4k3/8/8/8/1b6/5N2/8/r3K3 w - - 0 1");
+		Assert.assertEquals(List.of("e1e2", "e1f2"), sorted(board.getAvailableMoves()));
+	}
+
+	@Test
+	public void blocksOrCapturesSingleCheck() {
+		Board board = new Board("4k3/8/8/8/8/8/1R6/r3K3 w - - 0 1");
+		List<String> moves = sorted(board.getAvailableMoves());
+		Assert.assertEquals(List.of("b2b1", "e1d2", "e1e2", "e1f2"), moves);
+
+		board = new Board("4k3/8/8/8/8/8/8/rR2K3 w - - 0 1");
+		Assert.assertTrue(sorted(board.getAvailableMoves()).contains("b1a1"));
+	}
+
+	@Test
+	public void capturesCheckingPawnEnPassant() {
+		Board board = new Board("4k3/3p4/8/4P3/4K3/8/8/8 b - - 0 1");
+		board.move(new Move("d7d5"));
+		List<String> moves = sorted(board.getAvailableMoves());
+		Assert.assertTrue(moves.contains("e5d6"));
+		Assert.assertTrue(moves.contains("e4d5"));
+		Assert.assertFalse(moves.contains("e5e6"));
+	}
+
+	private static List<String> sorted(List<Move> moves) {
+		return moves.stream().map(m -> Algebraic.toAlgebraic(m.getIdxFrom()) + Algebraic.toAlgebraic(m.getIdxTo())).sorted().collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,72 @@
+package martin.chess;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Color;
+import martin.chess.engine.Piece;
+import martin.chess.engine.PieceType;
+import martin.chess.engine.state.BoardState;
+import martin.chess.fen.FENNotation;
+
+public class FENNotationTest {
+
+	private static final String[] POSITIONS = {
+		Board.INITIAL_STATE,
+		"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+		"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+		"rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w Kq f6 0 3",
+		"r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 17 123",
+	};
+
+	@Test
+	public void roundTrips() {
+		for (String fen : POSITIONS) {
+			Board board = new Board(fen);
+			Assert.assertEquals(fen, FENNotation.toString(board));
+			Assert.assertEquals(fen.substring(0, fen.lastIndexOf(' ', fen.lastIndexOf(' ') - 1)), FENNotation.toString(board, false));
+
+			char[] buffer = new char[FENNotation.MAX_LENGTH + 3];
+			int end = FENNotation.write(board, true, buffer, 3);
+			Assert.assertEquals(fen, new String(buffer, 3, end - 3));
+
+			StringBuilder sb = new StringBuilder("fen: ");
+			Assert.assertEquals("fen: " + fen, FENNotation.appendTo(board, true, sb).toString());
+		}
+	}
+
+	@Test
+	public void parsesEpd() {
+		byte[] squares = new byte[64];
+		BoardState state = new BoardState();
+
+		FENNotation.parse(new StringBuilder("4k3/8/8/8/8/8/8/4K2R b K e3 bm Kd7; id \"test\";"), squares, state);
+		Assert.assertEquals(Color.BLACK, state.colorToMove);
+		Assert.assertTrue(state.whiteData.castling.canCastleKingSide);
+		Assert.assertFalse(state.blackData.castling.canCastleKingSide);
+		Assert.assertEquals(20, state.enPassantTargetIdx);
+		Assert.assertEquals(0, state.halfMoveClock);
+		Assert.assertEquals(1, state.moveNumber);
+		Assert.assertEquals(PieceType.ROOK, Piece.fromCode(squares[7]).getType());
+	}
+
+	@Test
+	public void rejectsBadBoards() {
+		String[] bad = {
+			"rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+			"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+			"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPPP/RNBQKBNR w KQkq - 0 1",
+			"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR",
+			"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq - 0 1",
+		};
+		for (String fen : bad) {
+			try {
+				FENNotation.parse(fen, new byte[64], new BoardState());
+				Assert.fail(fen);
+			} catch (IllegalArgumentException e) {
+				// Expected
+			}
+		}
+	}
+}
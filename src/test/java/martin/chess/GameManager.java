@@ -1,10 +1,18 @@
 package martin.chess;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
 import martin.chess.engine.Board;
 import martin.chess.engine.Color;
 import martin.chess.engine.GameResultData;
 import martin.chess.engine.Move;
+import martin.chess.pgn.PgnGame;
+import martin.chess.pgn.PgnWriter;
 import martin.chess.strategy.IPlayerStrategy;
+import martin.chess.tournament.OpeningSuite;
 
 public class GameManager {
 
@@ -12,18 +20,40 @@ public class GameManager {
 	private IPlayerStrategy whitePlayer;
 	private IPlayerStrategy blackPlayer;
 	private boolean logging;
+	private PgnWriter pgnWriter;
+	private OpeningSuite openings = OpeningSuite.INITIAL;
 	
 	public GameManager(IPlayerStrategy whitePlayer, IPlayerStrategy blackPlayer) {
 		this.whitePlayer = whitePlayer;
 		this.blackPlayer = blackPlayer;
 	}
 	
+	/**
+	 * Plays one game from the first opening
+	 */
 	public GameResultData startGame() {
-		board = new Board();
+		return playGame(whitePlayer, blackPlayer, openings.get(0));
+	}
+	
+	/**
+	 * Plays every opening twice, the second time with the colors reversed. The results are in the order
+	 * the games were played, null for an aborted game.
+	 */
+	public List<GameResultData> playOpenings() {
+		List<GameResultData> results = new ArrayList<>();
+		for (String fen : openings.getFens()) {
+			results.add(playGame(whitePlayer, blackPlayer, fen));
+			results.add(playGame(blackPlayer, whitePlayer, fen));
+		}
+		return results;
+	}
+	
+	private GameResultData playGame(IPlayerStrategy white, IPlayerStrategy black, String fen) {
+		board = new Board(fen);
 		board.setLogging(logging);
 		
 		while (board.getResult() == null) {
-			IPlayerStrategy toMove = board.getColorToMove() == Color.WHITE ? whitePlayer : blackPlayer;
+			IPlayerStrategy toMove = board.getColorToMove() == Color.WHITE ? white : black;
 			
 			Move move = null;
 			try {
@@ -36,6 +66,10 @@ public class GameManager {
 			board.move(move);
 		}
 		
+		if (pgnWriter != null) {
+			writeGame(white, black);
+		}
+		
 		if (board.getResult().getWinner() != null) {
 			System.out.println(board.getResult().getWinner() + " won");
 		} else {
@@ -45,9 +79,36 @@ public class GameManager {
 		return board.getResult();
 	}
 
+	private void writeGame(IPlayerStrategy white, IPlayerStrategy black) {
+		PgnGame game = PgnGame.fromBoard(board);
+		game.setTag("White", white.toString());
+		game.setTag("Black", black.toString());
+		
+		try {
+			pgnWriter.write(game);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
 	public void setLogging(boolean logging) {
 		this.logging = logging;
 	}
 	
+	/**
+	 * Finished games are written here
+	 */
+	public void setPgnWriter(PgnWriter pgnWriter) {
+		this.pgnWriter = pgnWriter;
+	}
+	
+	public void setStartingPosition(String fen) {
+		this.openings = OpeningSuite.of(List.of(fen));
+	}
+	
+	public void setOpenings(OpeningSuite openings) {
+		this.openings = openings;
+	}
+	
 	
 }
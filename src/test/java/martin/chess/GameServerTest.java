@@ -0,0 +1,56 @@
+package martin.chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import martin.chess.engine.GameResultData;
+import martin.chess.engine.Move;
+import martin.chess.server.GameServer;
+import martin.chess.server.HostedGame;
+import martin.chess.strategy.AsyncStrategy;
+import martin.chess.strategy.RandomStrategy;
+
+public class GameServerTest {
+
+	@Test
+	public void hostsConcurrentGames() throws Exception {
+		GameServer server = new GameServer(2, 1);
+		
+		List<HostedGame> games = new ArrayList<>();
+		for (int i = 0; i < 200; ++i) {
+			games.add(server.startGame(new RandomStrategy(i), new RandomStrategy(-i)));
+		}
+		
+		for (var game : games) {
+			GameResultData result = game.getResult().get(60, TimeUnit.SECONDS);
+			Assert.assertNotNull(result.getOutcome());
+		}
+		
+		Assert.assertEquals(200, server.getGamesFinished());
+		Assert.assertTrue(server.getStatistics(), server.getStatistics().contains("Active games: 0, finished: 200, failed: 0"));
+		Assert.assertEquals(0, server.getNumberOfActiveGames());
+		Assert.assertTrue(server.getMoveLatencyPercentileMs(99) >= server.getMoveLatencyPercentileMs(50));
+		
+		server.shutdown();
+	}
+	
+	@Test
+	public void abortGameWaitingForHuman() throws Exception {
+		GameServer server = new GameServer(1, 1);
+		
+		AsyncStrategy human = new AsyncStrategy();
+		HostedGame game = server.startGame(human, new RandomStrategy());
+		
+		human.setMove(new Move("e2e4"));
+		game.abort();
+		
+		Assert.assertTrue(game.getResult().isCancelled());
+		
+		Assert.assertEquals(1, server.getGamesFailed());
+		server.shutdown();
+	}
+}
@@ -0,0 +1,62 @@
+package martin.chess;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import martin.chess.strategy.RandomStrategy;
+import martin.chess.tournament.Player;
+import martin.chess.tuning.GeneticOptimizer;
+import martin.chess.tuning.Genome;
+
+public class GeneticOptimizerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void resumesFromCheckpoint() throws Exception {
+		Path checkpoint = folder.getRoot().toPath().resolve("checkpoint.txt");
+
+		List<Genome> population = createOptimizer(checkpoint).run(2, new double[] { 1, 1 }, 2);
+		Assert.assertEquals(4, population.size());
+		for (int i = 1; i < population.size(); ++i) {
+			Assert.assertTrue(population.get(i - 1).getFitness() >= population.get(i).getFitness());
+		}
+
+		List<String> saved = Files.readAllLines(checkpoint);
+		Assert.assertEquals("generation 2", saved.get(0));
+		Assert.assertEquals(5, saved.size());
+		String best = config(saved.get(1));
+
+		// A new optimizer continues with the third generation, which keeps the best of the second
+		createOptimizer(checkpoint).run(2, new double[] { 1, 1 }, 3);
+		List<String> resumed = Files.readAllLines(checkpoint);
+		Assert.assertEquals("generation 3", resumed.get(0));
+		Assert.assertTrue(resumed.stream().skip(1).anyMatch(line -> config(line).equals(best)));
+
+		// Nothing more to do
+		Assert.assertEquals(4, createOptimizer(checkpoint).run(2, new double[] { 1, 1 }, 3).size());
+		Assert.assertEquals(resumed, Files.readAllLines(checkpoint));
+	}
+
+	private static GeneticOptimizer createOptimizer(Path checkpoint) {
+		GeneticOptimizer optimizer = new GeneticOptimizer(List.of("CapturePiece", "AvoidPieceExposure"),
+				new Player("Random", RandomStrategy::new), checkpoint);
+		optimizer.setPopulationSize(4);
+		optimizer.setPairsPerGenome(1);
+		optimizer.setElites(1);
+		optimizer.setParallelism(4);
+		optimizer.setSeed(1);
+		return optimizer;
+	}
+
+	private static String config(String line) {
+		return line.substring(line.indexOf(' ') + 1);
+	}
+}
@@ -1,24 +1,23 @@
 package martin.chess;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.Random;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import org.junit.Test;
 
-import martin.chess.engine.Color;
-import martin.chess.engine.GameResultData;
-import martin.chess.strategy.Pair;
+import martin.chess.strategy.BalancedTraitStrategy;
 import martin.chess.strategy.TraitStrategy;
 import martin.chess.strategy.traits.AvoidCheckMateTrait;
 import martin.chess.strategy.traits.AvoidPieceExposureTrait;
 import martin.chess.strategy.traits.CapturePieceTrait;
 import martin.chess.strategy.traits.DontPlacePieceInExposureTrait;
 import martin.chess.strategy.traits.PerformCheckMateTrait;
+import martin.chess.tournament.Match;
+import martin.chess.tournament.Player;
+import martin.chess.tournament.Sprt;
+import martin.chess.tuning.GeneticOptimizer;
+import martin.chess.tuning.Genome;
 
 /**
  * Try to develop the best TraitStrategy by letting TraitStrategies with different c  
@@ -26,106 +25,45 @@ import martin.chess.strategy.traits.PerformCheckMateTrait;
  */
 public class Genetics {
 	
-	private static final double ADJUSTMENT_RANGE = 0.1; // 10%
-
-	private Random random = new Random();
-	
+	/**
+	 * Evolves the trait weights against the balanced strategy, resuming from genetics.txt if it exists
+	 */
 	@Test
-	public void test() {
-		var strategies = getStrategies(50, 3, 1, 1, 1, 1, 1);
-		
-		final int NUM_GAMES = 10;
-		
-		runTournament(strategies, NUM_GAMES);
-	}
-	
-	
-	
-	private void runTournament(List<Pair<TraitStrategy, Double>> strategies, int numGames) {
-		long start = System.currentTimeMillis();
-		int totalNumGames = 0;
-		
-		for (int i = 0; i < strategies.size(); ++i) {
-			for (int j = i + 1; j < strategies.size(); ++j) {
-				System.out.println("Starting match between #" + i + " and #" + j);
-				
-				
-				for (int game = 0; game < numGames; ++game) {
-					var white = game % 2 == 0 ? strategies.get(i) : strategies.get(j);   
-					var black = game % 2 == 0 ? strategies.get(j) : strategies.get(i);
-					
-					if (game % 100 == 0) {
-						System.out.println("Starting game " + (game + 1));
-					}
-					
-					GameManager mgr = new GameManager(white.first, black.first);
-					mgr.setLogging(false);
-					GameResultData result = mgr.startGame();
-					if (result.getWinner() != null) {
-						if (result.getWinner() == Color.BLACK) {
-							black.second += 1;
-						} else {
-							white.second += 1;
-						}
-					} else {
-						black.second += 0.5;
-						white.second += 0.5;
-					}
-					totalNumGames++;
-				} 
-			}
-		}
+	public void test() throws InterruptedException, IOException {
+		List<String> traits = List.of("AvoidCheckMate", "PerformCheckMate", "DontPlacePieceInExposure", "CapturePiece", "AvoidPieceExposure");
+		Player opponent = new Player("Balanced", BalancedTraitStrategy::new);
 		
-		long end = System.currentTimeMillis();
+		GeneticOptimizer optimizer = new GeneticOptimizer(traits, opponent, Path.of("genetics.txt"));
+		List<Genome> population = optimizer.run(3, new double[] { 1, 1, 1, 1, 1 }, 20);
 		
-		System.out.println("Played " + totalNumGames + " in " + (end - start)/1000 + " seconds (" + ((end - start)/(double) totalNumGames) + " ms per game)");
-		
-		Collections.sort(strategies, new Comparator<Pair<TraitStrategy, Double>>() {
-
-			@Override
-			public int compare(Pair<TraitStrategy, Double> o1, Pair<TraitStrategy, Double> o2) {
-				return -Double.compare(o1.second, o2.second);
-			}
-			
-		});
-
 		System.out.println("Done. Top 5 strategies: ");
-		
 		for (int i = 0; i < 5; ++i) {
-			System.out.println("Score: " + strategies.get(i).second + ". Strategy: " + strategies.get(i).first);
+			System.out.println(population.get(i));
 		}
 	}
 
-	private List<Pair<TraitStrategy, Double>> getStrategies(
-		int numStrategies,
-		double exponent,
-		double avoidCheckMateFactor,
-		double performCheckMateFactor,
-		double dontPlacePieceInExposureFactor,
-		double capturePieceFactor,
-		double avoidPieceExposureFactor) {
-		
-		ExecutorService executorService = Executors.newFixedThreadPool(6);
-		
-		var list = new ArrayList<Pair<TraitStrategy, Double>>();
+	/**
+	 * Plays a candidate against the balanced strategy until it is clear whether it is at least 10 Elo stronger
+	 */
+	@Test
+	public void regression() throws InterruptedException {
+		Player candidate = new Player("Candidate", () -> createStrategy(3, new double[] { 1, 1, 0.8, 1.2, 0.8 }));
+		Player baseline = new Player("Balanced", BalancedTraitStrategy::new);
 		
-		for (int i = 0; i < numStrategies; ++i) {
-			TraitStrategy strat = new TraitStrategy(adjust(exponent), executorService);
-			strat.addTrait(new AvoidCheckMateTrait(), adjust(avoidCheckMateFactor));
-			strat.addTrait(new PerformCheckMateTrait(), adjust(performCheckMateFactor));
-			strat.addTrait(new DontPlacePieceInExposureTrait(), adjust(dontPlacePieceInExposureFactor));
-			strat.addTrait(new CapturePieceTrait(), adjust(capturePieceFactor));
-			strat.addTrait(new AvoidPieceExposureTrait(), adjust(avoidPieceExposureFactor));
-			
-			list.add(new Pair<TraitStrategy, Double>(strat, 0d));
-		}
+		Match match = new Match(candidate, baseline, 20000);
+		match.setSprt(new Sprt(0, 10, 0.05, 0.05));
 		
-		return list;
+		System.out.println(match.run());
 	}
-	
-	double adjust(double val) {
-		double adjustmentFactor = 1 + (-ADJUSTMENT_RANGE + 2*ADJUSTMENT_RANGE*random.nextDouble());
-		return val * adjustmentFactor;
+
+	private static TraitStrategy createStrategy(double exp, double[] factors) {
+		TraitStrategy strat = new TraitStrategy(exp);
+		strat.addTrait(new AvoidCheckMateTrait(), factors[0]);
+		strat.addTrait(new PerformCheckMateTrait(), factors[1]);
+		strat.addTrait(new DontPlacePieceInExposureTrait(), factors[2]);
+		strat.addTrait(new CapturePieceTrait(), factors[3]);
+		strat.addTrait(new AvoidPieceExposureTrait(), factors[4]);
+		return strat;
 	}
 	
 }
@@ -0,0 +1,81 @@
+package martin.chess;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Color;
+import martin.chess.engine.MateSearchResult;
+import martin.chess.engine.MateSolver;
+import martin.chess.engine.Move;
+
+public class MateSolverTest {
+
+	private MateSolver solver = new MateSolver(1 << 16);
+	
+	@Test
+	public void findsMateInOne() {
+		MateSearchResult result = solve("r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq - 4 4", 3);
+		
+		Assert.assertTrue(result.isMate());
+		Assert.assertEquals(List.of(new Move("h5f7")), result.getLine());
+	}
+	
+	@Test
+	public void findsShortestMate() {
+		MateSearchResult result = solve("3r2k1/5ppp/8/8/8/8/4RPPP/4R1K1 w - - 0 1", 4);
+		
+		Assert.assertEquals(2, result.getMateIn());
+		Assert.assertEquals(List.of(new Move("e2e8"), new Move("d8e8"), new Move("e1e8")), result.getLine());
+	}
+	
+	@Test
+	public void findsMateStartingWithQuietMove() {
+		MateSearchResult result = solve("k7/8/2K5/8/8/8/8/1R6 w - - 0 1", 2);
+		
+		Assert.assertEquals(List.of(new Move("c6c7"), new Move("a8a7"), new Move("b1a1")), result.getLine());
+	}
+	
+	@Test
+	public void lineEndsInMate() {
+		String fen = "2r3k1/p4p2/3Rp2p/1p2P1pK/8/1P4P1/P3Q2P/1q6 b - - 0 1";
+		MateSearchResult result = solve(fen, 3);
+		Assert.assertEquals(3, result.getMateIn());
+		
+		Board board = new Board(fen);
+		for (Move move : result.getLine()) {
+			board.move(move);
+		}
+		Assert.assertNotNull(board.getResult());
+		Assert.assertEquals(Color.BLACK, board.getResult().getWinner());
+	}
+	
+	@Test
+	public void reportsNoMate() {
+		MateSearchResult result = solve("k7/8/2K5/8/8/8/8/1R6 w - - 0 1", 1);
+		
+		Assert.assertEquals(MateSearchResult.Status.NO_MATE, result.getStatus());
+		Assert.assertTrue(result.getLine().isEmpty());
+	}
+	
+	@Test
+	public void stopsWhenBudgetRunsOut() {
+		Board board = new Board();
+		board.setLogging(false);
+		MateSearchResult result = solver.solve(board, 5, 1000);
+		
+		Assert.assertEquals(MateSearchResult.Status.UNKNOWN, result.getStatus());
+		Assert.assertEquals(new Board().getState(), board.getState());
+	}
+	
+	private MateSearchResult solve(String fen, int maxMoves) {
+		Board board = new Board(fen);
+		board.setLogging(false);
+		
+		MateSearchResult result = solver.solve(board, maxMoves, 1_000_000);
+		Assert.assertEquals(fen, board.getState());
+		return result;
+	}
+}
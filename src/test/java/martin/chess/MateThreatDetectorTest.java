@@ -0,0 +1,66 @@
+package martin.chess;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.MateThreatDetector;
+import martin.chess.engine.Move;
+
+public class MateThreatDetectorTest {
+
+	@Test
+	public void findsMateInOneLikeBruteForce() {
+		Random random = new Random(17);
+		MateThreatDetector detector = new MateThreatDetector();
+		
+		for (int game = 0; game < 20; ++game) {
+			Board board = new Board();
+			board.setLogging(false);
+			board.validateMoves(false);
+			
+			while (board.getResult() == null) {
+				Assert.assertEquals(board.getState(), hasMateInOne(board), detector.hasMate(board, 1));
+				
+				List<Move> moves = board.getAvailableMoves();
+				board.move(moves.get(random.nextInt(moves.size())));
+			}
+		}
+	}
+	
+	@Test
+	public void findsMateInTwo() {
+		// Re8+ Rxe8 Rxe8#
+		Board board = new Board("3r2k1/5ppp/8/8/8/8/4RPPP/4R1K1 w - - 0 1");
+		board.validateMoves(false);
+		MateThreatDetector detector = new MateThreatDetector();
+		
+		Assert.assertFalse(detector.hasMate(board, 1));
+		Assert.assertTrue(detector.hasMate(board, 2));
+		Assert.assertEquals("3r2k1/5ppp/8/8/8/8/4RPPP/4R1K1 w - - 0 1", board.getState());
+	}
+	
+	@Test
+	public void findsChecksOnly() {
+		Board board = new Board("3r2k1/5ppp/8/8/8/8/4RPPP/4R1K1 w - - 0 1");
+		
+		List<Move> checks = new MateThreatDetector().getCheckingMoves(board);
+		Assert.assertEquals(List.of(new Move("e2e8")), checks);
+	}
+	
+	private boolean hasMateInOne(Board board) {
+		List<Move> moves = board.getAvailableMoves();
+		for (Move move : moves) {
+			board.move(move);
+			boolean mate = board.getResult() != null && board.getResult().getWinner() != null;
+			board.undoLastMove();
+			if (mate) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,122 @@
+package martin.chess;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Move;
+import martin.chess.pgn.PgnGame;
+import martin.chess.pgn.PgnParseException;
+import martin.chess.pgn.PgnReader;
+import martin.chess.pgn.PgnWriter;
+
+public class PgnTest {
+
+	@Test
+	public void readsTagsAndMoves() throws Exception {
+		String pgn = 
+				"[Event \"Test \\\"quoted\\\"\"]\n" +
+				"[White \"A\"]\n" +
+				"[Result \"1-0\"]\n" +
+				"\n" +
+				"1. e4 {Best by test} e5 2.Nf3 (2. f4 exf4 (2... d5) 3. Nf3) Nc6 $1 3. Bb5 a6 ; the Morphy defence\n" +
+				"4. Ba4 Nf6 5. O-O Be7 6. Re1 b5 7. Bb3 d6 8. c3 O-O 9. h3 Nb8 10. d4 Nbd7 1-0\n";
+		
+		try (PgnReader reader = new PgnReader(new StringReader(pgn))) {
+			PgnGame game = reader.next();
+			
+			Assert.assertEquals("Test \"quoted\"", game.getTag("Event"));
+			Assert.assertEquals("A", game.getTag("White"));
+			Assert.assertEquals(PgnGame.WHITE_WINS, game.getResult());
+			Assert.assertEquals(20, game.getMoves().size());
+			Assert.assertEquals(new Move("e2e4"), game.getMoves().get(0));
+			Assert.assertEquals(new Move("b8d7"), game.getMoves().get(19));
+			
+			Assert.assertNull(reader.next());
+		}
+	}
+	
+	@Test
+	public void readsSetUpPositionsAndPromotions() throws Exception {
+		String pgn = 
+				"[SetUp \"1\"]\n" +
+				"[FEN \"8/P6k/8/8/8/8/6pK/8 b - - 0 40\"]\n" +
+				"\n" +
+				"40... g1=Q+ 41. Kxg1 Kg6 42. a8=Q *\n";
+		
+		try (PgnReader reader = new PgnReader(new StringReader(pgn))) {
+			PgnGame game = reader.next();
+			
+			Assert.assertEquals(List.of(new Move("g2g1q"), new Move("h2g1"), new Move("h7g6"), new Move("a7a8q")), game.getMoves());
+			Assert.assertEquals(PgnGame.UNKNOWN, game.getResult());
+		}
+	}
+	
+	@Test
+	public void continuesAfterIllegalMove() throws Exception {
+		String pgn = 
+				"[Event \"Broken\"]\n\n1. e4 e5 2. Ke3 Nc6 1-0\n\n" +
+				"[Event \"Fine\"]\n\n1. d4 d5 1/2-1/2\n";
+		
+		try (PgnReader reader = new PgnReader(new StringReader(pgn))) {
+			try {
+				reader.next();
+				Assert.fail("Expected an illegal move");
+			} catch (PgnParseException e) {
+				Assert.assertEquals(3, e.getLineNumber());
+			}
+			
+			PgnGame game = reader.next();
+			Assert.assertEquals("Fine", game.getTag("Event"));
+			Assert.assertEquals(2, game.getMoves().size());
+		}
+	}
+	
+	@Test
+	public void writesStandardAlgebraicNotation() throws Exception {
+		PgnGame game = new PgnGame();
+		game.setStartingState("4k3/8/8/8/8/8/3N1N2/R3K2R w KQ - 0 1");
+		game.getMoves().addAll(List.of(new Move("f2e4"), new Move("e8e7"), new Move("e1g1"), new Move("e7e8"), new Move("a1a8")));
+		game.setResult(PgnGame.WHITE_WINS);
+		
+		StringWriter out = new StringWriter();
+		new PgnWriter(out).write(game);
+		
+		Assert.assertTrue(out.toString(), out.toString().startsWith("[Event \"?\"]\n"));
+		Assert.assertTrue(out.toString(), out.toString().contains("[FEN \"4k3/8/8/8/8/8/3N1N2/R3K2R w KQ - 0 1\"]\n"));
+		Assert.assertTrue(out.toString(), out.toString().endsWith("\n1. Nfe4 Ke7 2. O-O Ke8 3. Ra8+ 1-0\n\n"));
+	}
+	
+	@Test
+	public void writtenGamesAreReadBack() throws Exception {
+		Random random = new Random(99);
+		StringWriter out = new StringWriter();
+		PgnWriter writer = new PgnWriter(out);
+		
+		PgnGame[] games = new PgnGame[10];
+		for (int i = 0; i < games.length; ++i) {
+			Board board = new Board();
+			board.setLogging(false);
+			while (board.getResult() == null) {
+				List<Move> moves = board.getAvailableMoves();
+				board.move(moves.get(random.nextInt(moves.size())));
+			}
+			games[i] = PgnGame.fromBoard(board);
+			writer.write(games[i]);
+		}
+		
+		try (PgnReader reader = new PgnReader(new StringReader(out.toString()))) {
+			for (PgnGame game : games) {
+				PgnGame read = reader.next();
+				Assert.assertEquals(game.getMoves(), read.getMoves());
+				Assert.assertEquals(game.getResult(), read.getResult());
+			}
+			Assert.assertNull(reader.next());
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package martin.chess;
+
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import martin.chess.book.BookMove;
+import martin.chess.book.PolyglotBook;
+import martin.chess.book.PolyglotBookBuilder;
+import martin.chess.engine.Board;
+import martin.chess.engine.Move;
+import martin.chess.engine.Zobrist;
+import martin.chess.strategy.OpeningBookStrategy;
+import martin.chess.strategy.RandomStrategy;
+
+public class PolyglotBookTest {
+
+	private static final String PGN = 
+			"[Event \"One\"]\n" +
+			"[Result \"1-0\"]\n" +
+			"\n" +
+			"1. e4 e5 2. Nf3 {a comment} Nc6 3. Bc4 (3. Bb5 a6) Nf6 4. O-O Bc5 1-0\n" +
+			"\n" +
+			"[Event \"Two\"]\n" +
+			"[Result \"1/2-1/2\"]\n" +
+			"\n" +
+			"1.e4 c5 2.Nf3 d6 ; Sicilian\n" +
+			"3.d4 cxd4 $1 1/2-1/2\n" +
+			"\n" +
+			"[Event \"Three\"]\n" +
+			"[Result \"0-1\"]\n" +
+			"\n" +
+			"1. d4 d5 0-1\n";
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Test
+	public void buildsAndProbesBook() throws Exception {
+		try (PolyglotBook book = buildBook()) {
+			Board board = new Board();
+			
+			// White won with e4 and drew with it, but lost with d4 which scores nothing
+			List<BookMove> moves = book.getMoves(board);
+			Assert.assertEquals(1, moves.size());
+			Assert.assertEquals(new Move("e2e4"), moves.get(0).getMove());
+			Assert.assertEquals(3, moves.get(0).getWeight());
+			
+			// Black's winning reply is kept
+			Assert.assertEquals(new Move("d7d5"), book.getMove(playFromStart("d2d4"), new Random()));
+			Assert.assertEquals(0, book.getMoves(playFromStart("d2d4", "d7d5")).size());
+			
+			// Castling is stored as king takes rook, and decoded to the engine's castling move
+			Board castling = playFromStart("e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "g8f6");
+			Move move = book.getMove(castling, new Random());
+			Assert.assertTrue(move.isCastling());
+			Assert.assertEquals(new Move("e1g1").getIdxTo(), move.getIdxTo());
+			
+			// Variations are not part of the book
+			Assert.assertNull(book.getMove(playFromStart("e2e4", "e7e5", "g1f3", "b8c6", "f1b5"), new Random()));
+		}
+	}
+	
+	@Test
+	public void strategyLeavesBookWhenPositionIsUnknown() throws Exception {
+		try (PolyglotBook book = buildBook()) {
+			OpeningBookStrategy strategy = new OpeningBookStrategy(new RandomStrategy(), book);
+			
+			Board board = new Board();
+			Assert.assertEquals(new Move("e2e4"), strategy.getMove(board));
+			Assert.assertEquals(1, strategy.getBookMoves());
+			
+			board.move(new Move("g1f3"));
+			Assert.assertNotNull(strategy.getMove(board));
+			Assert.assertEquals(1, strategy.getBookMoves());
+		}
+	}
+	
+	/**
+	 * A book as other Polyglot tools write it: the keys are the reference keys from the book format
+	 * description, and moves are to file, to row, from file and from row in 3 bits each
+	 */
+	@Test
+	public void probesBookOfOtherTools() throws Exception {
+		Assert.assertTrue("No Random64 array in " + Zobrist.POLYGLOT_RANDOM_RESOURCE, Zobrist.isPolyglotCompatible());
+		
+		Path bookFile = folder.newFile("external.bin").toPath();
+		try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(bookFile))) {
+			// Starting position: e2e4 and d2d4
+			writeEntry(out, 0x463B96181691FC9CL, 4 | 3 << 3 | 4 << 6 | 1 << 9, 10);
+			writeEntry(out, 0x463B96181691FC9CL, 3 | 3 << 3 | 3 << 6 | 1 << 9, 5);
+			// After 1.e4: c7c5
+			writeEntry(out, 0x823C9B50FD114196L, 2 | 4 << 3 | 2 << 6 | 6 << 9, 7);
+		}
+		
+		try (PolyglotBook book = new PolyglotBook(bookFile)) {
+			List<BookMove> moves = book.getMoves(new Board());
+			Assert.assertEquals(2, moves.size());
+			Assert.assertEquals(new Move("e2e4"), moves.get(0).getMove());
+			Assert.assertEquals(10, moves.get(0).getWeight());
+			Assert.assertEquals(new Move("d2d4"), moves.get(1).getMove());
+			
+			Assert.assertEquals(new Move("c7c5"), book.getMove(playFromStart("e2e4"), new Random()));
+			Assert.assertNull(book.getMove(playFromStart("d2d4"), new Random()));
+		}
+	}
+	
+	private static void writeEntry(DataOutputStream out, long key, int move, int weight) throws Exception {
+		out.writeLong(key);
+		out.writeShort(move);
+		out.writeShort(weight);
+		out.writeInt(0);
+	}
+	
+	private PolyglotBook buildBook() throws Exception {
+		Path pgn = folder.newFile("games.pgn").toPath();
+		Files.writeString(pgn, PGN);
+		
+		PolyglotBookBuilder builder = new PolyglotBookBuilder();
+		Assert.assertEquals(3, builder.addPgn(pgn));
+		
+		Path bookFile = folder.newFile("book.bin").toPath();
+		builder.write(bookFile);
+		return new PolyglotBook(bookFile);
+	}
+	
+	private Board playFromStart(String... moves) {
+		Board board = new Board();
+		for (String move : moves) {
+			board.move(new Move(move));
+		}
+		return board;
+	}
+}
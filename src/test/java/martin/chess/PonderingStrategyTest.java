@@ -0,0 +1,177 @@
+package martin.chess;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Move;
+import martin.chess.strategy.CancellationToken;
+import martin.chess.strategy.IPlayerStrategy;
+import martin.chess.strategy.PonderingStrategy;
+
+public class PonderingStrategyTest {
+
+	/**
+	 * Plays 1.e4, predicts 1...e5, and then searches until its token is cancelled
+	 */
+	private static class SlowStrategy implements IPlayerStrategy {
+
+		@Override
+		public Move getMove(Board board) throws InterruptedException {
+			return getMove(board, new CancellationToken());
+		}
+
+		@Override
+		public Move getMove(Board board, CancellationToken token) throws InterruptedException {
+			if (board.getState().equals(new Board().getState())) {
+				return new Move("e2e4");
+			}
+			if (board.getAvailableMoves().contains(new Move("e7e5"))) {
+				return new Move("e7e5");
+			}
+			while (!token.isCancelled()) {
+				Thread.sleep(1);
+			}
+			return new Move("g1f3");
+		}
+	}
+
+	/**
+	 * Plays 1.e4, predicts 1...e5 and answers it with 2.Nf3, counting the calls per position. Any
+	 * other position gets its first move.
+	 */
+	private static class CountingStrategy implements IPlayerStrategy {
+
+		final Map<String, Integer> calls = new ConcurrentHashMap<>();
+		final CountDownLatch answerStarted = new CountDownLatch(1);
+		final CountDownLatch answerCancelled = new CountDownLatch(1);
+		private final boolean blockAnswer;
+
+		/**
+		 * @param blockAnswer whether the answer to 1...e5 waits until its token is cancelled
+		 */
+		CountingStrategy(boolean blockAnswer) {
+			this.blockAnswer = blockAnswer;
+		}
+
+		@Override
+		public Move getMove(Board board) throws InterruptedException {
+			return getMove(board, new CancellationToken());
+		}
+
+		@Override
+		public Move getMove(Board board, CancellationToken token) throws InterruptedException {
+			calls.merge(board.getState(), 1, Integer::sum);
+			if (board.getState().equals(new Board().getState())) {
+				return new Move("e2e4");
+			}
+			if (board.getAvailableMoves().contains(new Move("e7e5"))) {
+				return new Move("e7e5");
+			}
+			if (board.getState().equals(afterMoves("e2e4", "e7e5").getState())) {
+				answerStarted.countDown();
+				try {
+					while (blockAnswer && !token.isCancelled()) {
+						Thread.sleep(1);
+					}
+				} finally {
+					// Cancelling also interrupts the sleep
+					if (token.isCancelled()) {
+						answerCancelled.countDown();
+					}
+				}
+				return new Move("g1f3");
+			}
+			return board.getAvailableMoves().get(0);
+		}
+
+		int getCalls(Board board) {
+			return calls.getOrDefault(board.getState(), 0);
+		}
+	}
+
+	@Test
+	public void ponderHitReturnsPonderedMove() throws Exception {
+		CountingStrategy counting = new CountingStrategy(false);
+		PonderingStrategy strategy = new PonderingStrategy(counting);
+		try {
+			Assert.assertEquals(new Move("e2e4"), strategy.getMove(new Board()));
+			// The reply has been predicted once the answer is being searched
+			Assert.assertTrue(counting.answerStarted.await(5, TimeUnit.SECONDS));
+
+			Board board = afterMoves("e2e4", "e7e5");
+			Assert.assertEquals(new Move("g1f3"), strategy.getMove(board));
+
+			// Only the search while pondering, none after the hit
+			Assert.assertEquals(1, counting.getCalls(board));
+			Assert.assertEquals(1, strategy.getPonderHits());
+			Assert.assertEquals(0, strategy.getPonderMisses());
+		} finally {
+			strategy.stopPondering();
+		}
+	}
+
+	@Test
+	public void ponderMissSearchesAgain() throws Exception {
+		CountingStrategy counting = new CountingStrategy(true);
+		PonderingStrategy strategy = new PonderingStrategy(counting);
+		try {
+			Assert.assertEquals(new Move("e2e4"), strategy.getMove(new Board()));
+			Assert.assertTrue(counting.answerStarted.await(5, TimeUnit.SECONDS));
+
+			Board board = afterMoves("e2e4", "d7d5");
+			Assert.assertEquals(board.getAvailableMoves().get(0), strategy.getMove(board));
+
+			// The pondering search was cancelled, and the position searched once
+			Assert.assertTrue(counting.answerCancelled.await(5, TimeUnit.SECONDS));
+			Assert.assertEquals(1, counting.getCalls(board));
+			Assert.assertEquals(1, counting.getCalls(afterMoves("e2e4", "e7e5")));
+			Assert.assertEquals(0, strategy.getPonderHits());
+			Assert.assertEquals(1, strategy.getPonderMisses());
+		} finally {
+			strategy.stopPondering();
+		}
+	}
+
+	@Test
+	public void cancelledCallerDoesNotWaitForPondering() throws Exception {
+		PonderingStrategy strategy = new PonderingStrategy(new SlowStrategy());
+		Board board = new Board();
+		board.setLogging(false);
+		board.move(strategy.getMove(board));
+		board.move(new Move("e7e5"));
+
+		// A ponder hit, but the pondering search only ends when cancelled
+		Thread.sleep(50);
+		CancellationToken token = new CancellationToken();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Move> move = executor.submit(() -> strategy.getMove(board, token));
+			Thread.sleep(50);
+			Assert.assertFalse(move.isDone());
+
+			token.cancel();
+			Assert.assertEquals(new Move("g1f3"), move.get(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+			strategy.stopPondering();
+		}
+	}
+
+	private static Board afterMoves(String... moves) {
+		Board board = new Board();
+		board.setLogging(false);
+		for (String move : moves) {
+			board.move(new Move(move));
+		}
+		return board;
+	}
+}
@@ -0,0 +1,90 @@
+package martin.chess;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Move;
+import martin.chess.engine.SanCodec;
+
+public class SanCodecTest {
+
+	@Test
+	public void roundTripsAllLegalMoves() {
+		Random random = new Random(5);
+
+		for (int game = 0; game < 20; ++game) {
+			Board board = new Board();
+			board.setLogging(false);
+			board.validateMoves(false);
+
+			while (board.getResult() == null) {
+				List<Move> moves = board.getAvailableMoves();
+				Set<String> sans = new HashSet<>();
+
+				for (Move move : moves) {
+					String san = SanCodec.format(board, move);
+					Assert.assertTrue(board.getState() + " " + san, sans.add(san));
+					Assert.assertEquals(board.getState() + " " + san, move, SanCodec.parse(board, san));
+				}
+
+				board.move(moves.get(random.nextInt(moves.size())));
+			}
+		}
+	}
+
+	@Test
+	public void disambiguatesOnlyBetweenPiecesThatCanMove() {
+		// Both knights reach d2, but the one on e4 is pinned
+		Board board = new Board("4r1k1/8/8/8/4N3/8/8/1N2K3 w - - 0 1");
+		Assert.assertEquals("Nd2", SanCodec.format(board, new Move("b1d2")));
+		Assert.assertEquals(new Move("b1d2"), SanCodec.parse(board, "Nd2"));
+		Assert.assertNull(SanCodec.parse(board, "Ned2"));
+
+		board = new Board("4k3/8/8/8/8/8/4K3/R6R w - - 0 1");
+		Assert.assertEquals("Rad1", SanCodec.format(board, new Move("a1d1")));
+		Assert.assertNull(SanCodec.parse(board, "Rd1"));
+
+		board = new Board("4k3/8/8/Q2Q4/8/8/Q7/4K3 w - - 0 1");
+		Assert.assertEquals("Qa5d2", SanCodec.format(board, new Move("a5d2")));
+		Assert.assertEquals(new Move("a5d2"), SanCodec.parse(board, "Qa5d2"));
+	}
+
+	@Test
+	public void parsesSpecialMoves() {
+		Board board = new Board("r3k2r/1P6/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1");
+
+		Assert.assertEquals(new Move("e5d6"), SanCodec.parse(board, "exd6"));
+		Assert.assertEquals(new Move("b7a8n"), SanCodec.parse(board, "bxa8=N"));
+		Assert.assertEquals(new Move("b7b8q"), SanCodec.parse(board, "b8Q"));
+		Assert.assertNull(SanCodec.parse(board, "b8"));
+
+		Move castling = SanCodec.parse(board, "O-O-O");
+		Assert.assertTrue(castling.isCastling());
+		Assert.assertTrue(board.getAvailableMoves().contains(castling));
+		Assert.assertEquals(castling, SanCodec.parse(board, "0-0-0+"));
+
+		Assert.assertEquals(new Move("e1e2"), SanCodec.parse(board, "Ke2!?"));
+		Assert.assertNull(SanCodec.parse(board, "Ke3"));
+		Assert.assertNull(SanCodec.parse(board, "Nf3"));
+	}
+
+	@Test
+	public void formatsCheckAndMate() {
+		Board board = new Board("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+		String state = board.getState();
+
+		Assert.assertEquals("Ra8#", SanCodec.format(board, new Move("a1a8")));
+		Assert.assertEquals("Ra7", SanCodec.format(board, new Move("a1a7")));
+		Assert.assertEquals("Ra8", SanCodec.format(board, new Move("a1a8"), false));
+		Assert.assertEquals(state, board.getState());
+
+		board = new Board("6k1/8/8/8/8/8/8/R5K1 w - - 0 1");
+		Assert.assertEquals("Ra8+", SanCodec.format(board, new Move("a1a8")));
+	}
+}
@@ -0,0 +1,55 @@
+package martin.chess;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Color;
+import martin.chess.engine.Move;
+import martin.chess.strategy.BalancedTraitStrategy;
+import martin.chess.strategy.SearchTraitStrategy;
+import martin.chess.strategy.traits.CapturePieceTrait;
+import martin.chess.strategy.traits.DontPlacePieceInExposureTrait;
+
+public class SearchTraitStrategyTest {
+
+	@Test
+	public void playsMate() throws InterruptedException {
+		// Ra8 mates, the search must not prefer winning more material
+		SearchTraitStrategy strategy = new SearchTraitStrategy(new BalancedTraitStrategy(), 3);
+		Board board = new Board("3k4/8/3K4/8/8/8/1R6/R7 w - - 0 1");
+		for (int ply = 0; ply < 3 && board.getResult() == null; ++ply) {
+			board.move(strategy.getMove(board));
+		}
+		Assert.assertEquals(Color.WHITE, board.getResult().getWinner());
+	}
+
+	@Test
+	public void doesNotTakeDefendedPawnWithQueen() throws InterruptedException {
+		SearchTraitStrategy strategy = new SearchTraitStrategy(1, 2);
+		strategy.addTrait(new CapturePieceTrait(), 1);
+
+		// Qxd5 is answered by exd5
+		Board board = new Board("4k3/8/4p3/3p4/8/8/3Q4/4K3 w - - 0 1");
+		for (int i = 0; i < 10; ++i) {
+			Assert.assertNotEquals(new Move("d2d5"), strategy.getMove(board));
+		}
+	}
+
+	@Test
+	public void evaluationMatchesVotes() {
+		CapturePieceTrait capture = new CapturePieceTrait();
+		DontPlacePieceInExposureTrait exposure = new DontPlacePieceInExposureTrait();
+		Board before = new Board("3rkn2/p2pp3/8/8/2p1n3/PQ4PP/5R2/2K5 b - - 0 1");
+		Board after = new Board(before);
+		after.validateMoves(false);
+
+		for (Move move : before.getAvailableMoves()) {
+			after.move(move);
+			double evaluated = capture.evaluate(after, Color.BLACK) - capture.evaluate(before, Color.BLACK);
+			Assert.assertEquals(move.toString(), capture.vote(Color.BLACK, before, after, move), evaluated, 0.00001);
+			Assert.assertTrue(exposure.evaluate(after, Color.BLACK) <= 0);
+			after.undoLastMove();
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package martin.chess;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import martin.chess.pgn.PgnReader;
+import martin.chess.pgn.PgnWriter;
+import martin.chess.strategy.RandomStrategy;
+import martin.chess.strategy.SearchTraitStrategy;
+import martin.chess.strategy.traits.AvoidPieceExposureTrait;
+import martin.chess.strategy.traits.CapturePieceTrait;
+import martin.chess.tournament.Player;
+import martin.chess.tournament.Tournament;
+import martin.chess.tuning.TexelTuner;
+import martin.chess.tuning.TuningPositions;
+import martin.chess.tuning.TuningResult;
+
+public class TexelTunerTest {
+
+	@Test
+	public void lowersErrorOnSelfPlay() throws InterruptedException, IOException {
+		Player greedy = new Player("Greedy", () -> {
+			SearchTraitStrategy strategy = new SearchTraitStrategy(1, 1);
+			strategy.addTrait(new CapturePieceTrait(), 1);
+			return strategy;
+		});
+		Player random = new Player("Random", RandomStrategy::new);
+
+		StringWriter pgn = new StringWriter();
+		Tournament tournament = new Tournament(List.of(greedy, random), 4);
+		tournament.setPgnWriter(new PgnWriter(pgn));
+		tournament.run();
+
+		TuningPositions positions = new TuningPositions(List.of(new CapturePieceTrait(), new AvoidPieceExposureTrait()));
+		try (PgnReader reader = new PgnReader(new StringReader(pgn.toString()))) {
+			int added = positions.addGames(reader);
+			Assert.assertTrue(added > 0);
+			Assert.assertEquals(added, positions.size());
+		}
+
+		TexelTuner tuner = new TexelTuner(positions);
+		tuner.setThreads(2);
+		TuningResult result = tuner.tune(new double[] { 0.5, 0.5 }, 1, 200);
+
+		Assert.assertTrue(result.getError() <= result.getInitialError());
+		for (double weight : result.getWeights()) {
+			Assert.assertTrue(weight >= 0);
+		}
+		Assert.assertTrue(result.toConfig("search").startsWith("search exp="));
+	}
+}
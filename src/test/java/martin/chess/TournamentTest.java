@@ -0,0 +1,156 @@
+package martin.chess;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import martin.chess.pgn.PgnGame;
+import martin.chess.pgn.PgnReader;
+import martin.chess.pgn.PgnWriter;
+import martin.chess.strategy.RandomStrategy;
+import martin.chess.strategy.SearchTraitStrategy;
+import martin.chess.strategy.traits.CapturePieceTrait;
+import martin.chess.tournament.Elo;
+import martin.chess.tournament.Match;
+import martin.chess.tournament.MatchResult;
+import martin.chess.tournament.OpeningSuite;
+import martin.chess.tournament.Pentanomial;
+import martin.chess.tournament.Player;
+import martin.chess.tournament.PlayerStats;
+import martin.chess.tournament.Sprt;
+import martin.chess.tournament.Tournament;
+import martin.chess.tournament.TournamentResult;
+
+public class TournamentTest {
+
+	@Test
+	public void playsAllGames() throws InterruptedException {
+		List<Player> players = List.of(
+			new Player("A", RandomStrategy::new),
+			new Player("B", RandomStrategy::new),
+			new Player("C", RandomStrategy::new));
+
+		StringWriter pgn = new StringWriter();
+		Tournament tournament = new Tournament(players, 2);
+		tournament.setThreads(4);
+		tournament.setPgnWriter(new PgnWriter(pgn));
+		TournamentResult result = tournament.run();
+
+		Assert.assertEquals(12, result.getGames());
+		long wins = 0;
+		long losses = 0;
+		for (PlayerStats stats : result.getStats()) {
+			Assert.assertEquals(8, stats.getGames());
+			wins += stats.getWins();
+			losses += stats.getLosses();
+		}
+		Assert.assertEquals(wins, losses);
+		Assert.assertEquals(12, pgn.toString().split("\\[Event ", -1).length - 1);
+	}
+
+	@Test
+	public void estimatesElo() {
+		Assert.assertEquals(0, Elo.estimate(5, 10, 5).getElo(), 1e-9);
+		Assert.assertEquals(190.85, Elo.fromScore(0.75), 0.01);
+		Assert.assertEquals(0.75, Elo.toScore(Elo.fromScore(0.75)), 1e-9);
+
+		// 60% over 1000 games without draws is about 70 +/- 22 Elo
+		Elo.Estimate estimate = Elo.estimate(600, 0, 400);
+		Assert.assertEquals(70.4, estimate.getElo(), 0.1);
+		Assert.assertEquals(22, estimate.getError(), 1);
+		Assert.assertTrue(estimate.getLow() < estimate.getElo() && estimate.getElo() < estimate.getHigh());
+	}
+
+	@Test
+	public void sprtStopsWhenDecided() throws InterruptedException {
+		Player greedy = new Player("Greedy", () -> {
+			SearchTraitStrategy strategy = new SearchTraitStrategy(1, 1);
+			strategy.addTrait(new CapturePieceTrait(), 1);
+			return strategy;
+		});
+		Match match = new Match(greedy, new Player("Random", RandomStrategy::new), 1000);
+		match.setThreads(2);
+		match.setSprt(new Sprt(0, 50, 0.05, 0.05));
+		MatchResult result = match.run();
+
+		Assert.assertEquals(Sprt.Decision.H1, result.getDecision());
+		Assert.assertTrue(result.getPentanomial().getPairs() < 100);
+		Assert.assertEquals(2 * result.getPentanomial().getPairs(), result.getStats().getGames());
+	}
+
+	@Test
+	public void computesLLR() {
+		Sprt sprt = new Sprt(0, 10, 0.05, 0.05);
+		Assert.assertEquals(-2.944, sprt.getLowerBound(), 0.001);
+		Assert.assertEquals(2.944, sprt.getUpperBound(), 0.001);
+
+		// Even results over 2000 pairs favor H0, a 55% score (35 Elo) favors H1
+		Pentanomial even = new Pentanomial();
+		Pentanomial ahead = new Pentanomial();
+		for (int i = 0; i < 2000; ++i) {
+			even.add(i % 2, 0.5);
+			ahead.add(i % 10 < 6 ? 1 : 0, 0.5);
+		}
+		Assert.assertEquals(Sprt.Decision.H0, sprt.getDecision(even));
+		Assert.assertEquals(Sprt.Decision.H1, sprt.getDecision(ahead));
+		Assert.assertEquals(Sprt.Decision.UNDECIDED, new Sprt(0, 10, 0.05, 0.05).getDecision(new Pentanomial()));
+	}
+
+	@Test
+	public void loadsOpeningSuite() throws IOException {
+		OpeningSuite suite = OpeningSuite.load(new StringReader(
+			"# Two openings\n" +
+			"rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e6 0 2\n" +
+			"\n" +
+			"rnbqkbnr/pp1ppppp/8/2p5/4P3/8/PPPP1PPP/RNBQKBNR w KQkq c6 hmvc 0; fmvn 2; id \"Sicilian\";\n" +
+			"r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq -\n"));
+
+		Assert.assertEquals(List.of(
+			"rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e6 0 2",
+			"rnbqkbnr/pp1ppppp/8/2p5/4P3/8/PPPP1PPP/RNBQKBNR w KQkq c6 0 2",
+			"r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 0 1"), suite.getFens());
+		Assert.assertEquals(suite.get(0), suite.get(3));
+
+		try {
+			OpeningSuite.load(new StringReader("rnbqkbnr/pppppppp w\n"));
+			Assert.fail();
+		} catch (IOException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void playsEachOpeningWithBothColors() throws InterruptedException, IOException {
+		OpeningSuite suite = OpeningSuite.of(List.of(
+			"rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e6 0 2",
+			"rnbqkbnr/pp1ppppp/8/2p5/4P3/8/PPPP1PPP/RNBQKBNR w KQkq c6 0 2"));
+
+		StringWriter pgn = new StringWriter();
+		Match match = new Match(new Player("A", RandomStrategy::new), new Player("B", RandomStrategy::new), 4);
+		match.setThreads(2);
+		match.setOpenings(suite);
+		match.setPgnWriter(new PgnWriter(pgn));
+		match.run();
+
+		// Every opening is played by two pairs, and A has white in half of its games
+		Map<String, Integer> whiteGamesOfA = new HashMap<>();
+		Map<String, Integer> games = new HashMap<>();
+		try (PgnReader reader = new PgnReader(new StringReader(pgn.toString()))) {
+			PgnGame game;
+			while ((game = reader.next()) != null) {
+				games.merge(game.getStartingState(), 1, Integer::sum);
+				whiteGamesOfA.merge(game.getStartingState(), game.getTag("White").equals("A") ? 1 : 0, Integer::sum);
+			}
+		}
+		for (String fen : suite.getFens()) {
+			Assert.assertEquals(4, (int) games.get(fen));
+			Assert.assertEquals(2, (int) whiteGamesOfA.get(fen));
+		}
+	}
+}
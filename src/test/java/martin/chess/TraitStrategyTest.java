@@ -0,0 +1,43 @@
+package martin.chess;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Color;
+import martin.chess.engine.Move;
+import martin.chess.strategy.TraitStrategy;
+import martin.chess.strategy.traits.Trait;
+
+public class TraitStrategyTest {
+
+	@Test
+	public void selectsMovesInProportionToTheirValue() throws InterruptedException {
+		// The pawns are blocked, and the king has three moves, voted -2, 0 and 2
+		Map<Move, Double> votes = Map.of(new Move("a1a2"), -2.0, new Move("a1b1"), 0.0, new Move("a1b2"), 2.0);
+		TraitStrategy strategy = new TraitStrategy(1);
+		strategy.addTrait(new Trait() {
+			@Override
+			public double vote(Color ourColor, Board boardBefore, Board boardAfter, Move m) {
+				return votes.get(m);
+			}
+		}, 1);
+
+		Board board = new Board("7k/8/8/6p1/6P1/8/8/K7 w - - 0 1");
+		board.setLogging(false);
+
+		final int samples = 6000;
+		Map<Move, Integer> counts = new HashMap<>();
+		for (int i = 0; i < samples; ++i) {
+			counts.merge(strategy.getMove(board), 1, Integer::sum);
+		}
+
+		// Values are 1 + vote, shifted up by 2 so the lowest is 1: 1, 3 and 5 out of 9
+		Assert.assertEquals(1.0 / 9, counts.getOrDefault(new Move("a1a2"), 0) / (double) samples, 0.03);
+		Assert.assertEquals(3.0 / 9, counts.getOrDefault(new Move("a1b1"), 0) / (double) samples, 0.03);
+		Assert.assertEquals(5.0 / 9, counts.getOrDefault(new Move("a1b2"), 0) / (double) samples, 0.03);
+	}
+}
@@ -0,0 +1,91 @@
+package martin.chess;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Move;
+import martin.chess.engine.Zobrist;
+
+public class ZobristTest {
+
+	@Test
+	public void incrementalKeyMatchesRecomputedKey() {
+		Random random = new Random(4711);
+		
+		for (int game = 0; game < 20; ++game) {
+			Board board = new Board();
+			board.setLogging(false);
+			int plies = 0;
+			
+			while (board.getResult() == null) {
+				++plies;
+				List<Move> moves = board.getAvailableMoves();
+				for (Move move : moves) {
+					long expected = board.getZobristKeyAfter(move);
+					board.move(move);
+					Assert.assertEquals(board.getState(), expected, board.getZobristKey());
+					board.undoLastMove();
+				}
+				board.move(moves.get(random.nextInt(moves.size())));
+				Assert.assertEquals(board.getState(), new Board(board.getState()).getZobristKey(), board.getZobristKey());
+			}
+			
+			// Undo restores the keys of earlier positions
+			long keyAfterTwo = playFromStart("e2e4", "e7e5");
+			for (; plies > 0; --plies) {
+				board.undoLastMove();
+			}
+			Assert.assertEquals(new Board().getZobristKey(), board.getZobristKey());
+			board.move(new Move("e2e4"));
+			board.move(new Move("e7e5"));
+			Assert.assertEquals(keyAfterTwo, board.getZobristKey());
+		}
+	}
+	
+	@Test
+	public void transpositionsHaveSameKey() {
+		Assert.assertEquals(playFromStart("g1f3", "g8f6", "b1c3"), playFromStart("b1c3", "g8f6", "g1f3"));
+		Assert.assertNotEquals(playFromStart("g1f3", "g8f6"), playFromStart("b1c3", "g8f6"));
+	}
+	
+	@Test
+	public void enPassantOnlyCountsWhenCapturePossible() {
+		// No black pawn can capture on e3, so the key equals the one without an en passant square
+		Assert.assertEquals(new Board("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1").getZobristKey(), 
+				new Board("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1").getZobristKey());
+		
+		Assert.assertNotEquals(new Board("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1").getZobristKey(), 
+				new Board("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1").getZobristKey());
+	}
+	
+	/**
+	 * The reference keys from the Polyglot book format description
+	 */
+	@Test
+	public void matchesPolyglotReferenceKeys() {
+		Assert.assertTrue("No Random64 array in " + Zobrist.POLYGLOT_RANDOM_RESOURCE, Zobrist.isPolyglotCompatible());
+		
+		Assert.assertEquals(0x463B96181691FC9CL, playFromStart());
+		Assert.assertEquals(0x823C9B50FD114196L, playFromStart("e2e4"));
+		Assert.assertEquals(0x0756B94461C50FB0L, playFromStart("e2e4", "d7d5"));
+		Assert.assertEquals(0x662FAFB965DB29D4L, playFromStart("e2e4", "d7d5", "e4e5"));
+		Assert.assertEquals(0x22A48B5A8E47FF78L, playFromStart("e2e4", "d7d5", "e4e5", "f7f5"));
+		Assert.assertEquals(0x652A607CA3F242C1L, playFromStart("e2e4", "d7d5", "e4e5", "f7f5", "e1e2"));
+		Assert.assertEquals(0x00FDD303C946BDD9L, playFromStart("e2e4", "d7d5", "e4e5", "f7f5", "e1e2", "e8f7"));
+		Assert.assertEquals(0x3C8123EA7B067637L, playFromStart("a2a4", "b7b5", "h2h4", "b5b4", "c2c4"));
+		Assert.assertEquals(0x5C3F9B829B279560L, playFromStart("a2a4", "b7b5", "h2h4", "b5b4", "c2c4", "b4c3", "a1a3"));
+	}
+	
+	private long playFromStart(String... moves) {
+		Board board = new Board();
+		board.setLogging(false);
+		for (String move : moves) {
+			board.move(new Move(move));
+		}
+		return board.getZobristKey();
+	}
+}
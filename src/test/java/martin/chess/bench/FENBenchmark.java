@@ -0,0 +1,74 @@
+package martin.chess.bench;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import martin.chess.engine.Board;
+import martin.chess.engine.Piece;
+import martin.chess.fen.FENNotation;
+
+/**
+ * Parsing and writing FEN. Run with
+ *
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ *   java -cp target/classes:target/test-classes:$(cat cp.txt) martin.chess.bench.FENBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FENBenchmark {
+
+	@Param({
+		"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+		"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+		"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+	})
+	public String fen;
+
+	private Board board;
+	private char[] buffer = new char[FENNotation.MAX_LENGTH];
+
+	@Setup
+	public void setup() {
+		board = new Board(fen);
+	}
+
+	@Benchmark
+	public Board parse() {
+		Arrays.fill(board.getSquares(), Piece.EMPTY);
+		FENNotation.initialize(board, fen);
+		return board;
+	}
+
+	@Benchmark
+	public String toFEN() {
+		return FENNotation.toString(board);
+	}
+
+	@Benchmark
+	public int write() {
+		return FENNotation.write(board, true, buffer, 0);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(FENBenchmark.class.getSimpleName()).build()).run();
+	}
+}
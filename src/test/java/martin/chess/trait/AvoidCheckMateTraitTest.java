@@ -1,6 +1,8 @@
 package martin.chess.trait;
 
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -56,5 +58,33 @@ public class AvoidCheckMateTraitTest {
 			boardAfter.undoLastMove();
 		}
 	}
+	
+	@Test
+	public void sameVotesWithExecutorService() {
+		Board boardBefore = new Board("2nrkn2/p2pp3/1p6/8/8/PQ4PP/5R2/2K5 b - - 0 1");
+		Board boardAfter = new Board(boardBefore);
+		boardAfter.validateMoves(false);
+		
+		ExecutorService executorService = Executors.newFixedThreadPool(3);
+		try {
+			AvoidCheckMateTrait parallel = new AvoidCheckMateTrait();
+			parallel.setExecutorService(executorService);
+			
+			// Twice, the second time with the detectors of the first decision
+			for (int i = 0; i < 2; ++i) {
+				trait.initialize(boardBefore);
+				parallel.initialize(boardBefore);
+				
+				for (Move move : boardBefore.getAvailableMoves()) {
+					boardAfter.move(move);
+					Assert.assertEquals(move.toString(), trait.vote(boardBefore.getColorToMove(), boardBefore, boardAfter, move), 
+							parallel.vote(boardBefore.getColorToMove(), boardBefore, boardAfter, move), 0.00001);
+					boardAfter.undoLastMove();
+				}
+			}
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
 
 }
@@ -39,16 +39,20 @@ public class AvoidPieceExposureTraitTest {
 				expectedValue = 9; 
 				break;
 			case "f2h2":
-			case "f2g2":
 			case "f2f3": 
 				expectedValue = 5; 
 				break;
 			case "e2f3":
-			case "e2d3": 
 			case "e2c4":
 			case "e2d1":
 				expectedValue = 3; 
 				break;
+				
+			// Still exposed, d3 and g2 are attacked by the pawns on c4 and f3
+			case "e2d3":
+			case "f2g2":
+				expectedValue = 0;
+				break;
 			}
 
 			boardAfter.move(move);
@@ -4,7 +4,9 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import martin.chess.engine.Board;
+import martin.chess.engine.Color;
 import martin.chess.engine.Move;
+import martin.chess.strategy.traits.AvoidPieceExposureTrait;
 import martin.chess.strategy.traits.DontPlacePieceInExposureTrait;
 
 public class DontPlacePieceInExposureTraitTest {
@@ -62,5 +64,16 @@ public class DontPlacePieceInExposureTraitTest {
 		
 	}
 	
+	@Test
+	public void evaluatesOnlyUndefendedPieces() {
+		// The rook on b5 is attacked and undefended, the knight on d5 is attacked but defended by the e4 pawn
+		for (String toMove : new String[] { "w", "b" }) {
+			Board board = new Board("4k3/8/p3p3/1R1N4/4P3/8/8/4K3 " + toMove + " - - 0 1");
+			
+			Assert.assertEquals(toMove, -5, trait.evaluate(board, Color.WHITE), 0.00001);
+			Assert.assertEquals(toMove, -8, new AvoidPieceExposureTrait().evaluate(board, Color.WHITE), 0.00001);
+			Assert.assertEquals(toMove, 0, trait.evaluate(board, Color.BLACK), 0.00001);
+		}
+	}
+	
 }
-